@@ -13,6 +13,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 public class AiAgentApplication {
 
     public static void main(String[] args) {
+        // Reactor 的 boundedElastic 调度器（记忆拦截器流式模式下执行阻塞读写）也跑在虚拟线程上
+        System.setProperty("reactor.schedulers.defaultBoundedElasticOnVirtualThreads", "true");
         SpringApplication.run(AiAgentApplication.class, args);
     }
 
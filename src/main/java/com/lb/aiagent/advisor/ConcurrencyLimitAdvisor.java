@@ -0,0 +1,171 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.concurrent.AdaptiveLimiter;
+import com.lb.aiagent.concurrent.ModelConcurrencyLimiter;
+import com.lb.aiagent.concurrent.Priority;
+import com.lb.aiagent.exception.BusinessException;
+import com.lb.aiagent.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型并发限制拦截器
+ * 排在最后，只有真正要调用模型的请求才占用并发；按模型名分别限流，排队超时或队列已满时快速拒绝。
+ * 优先级从上下文参数 {@link Priority#CONTEXT_KEY} 读取，排队时按优先级加权调度
+ */
+@Slf4j
+public class ConcurrencyLimitAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * 未指定模型时使用的限制器名称
+     */
+    private static final String DEFAULT_MODEL = "default";
+
+    private final ModelConcurrencyLimiter limiter;
+
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Timer> callTimers = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitAdvisor(ModelConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            rejected.put(priority, Counter.builder("ai.model.concurrency.rejected")
+                    .description("因模型并发已满被拒绝的请求数")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            waitTimers.put(priority, Timer.builder("ai.model.concurrency.wait")
+                    .description("等待模型并发许可的时间")
+                    .tag("priority", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+            callTimers.put(priority, Timer.builder("ai.model.call")
+                    .description("从申请许可到模型返回（流式为首包）的时间")
+                    .tag("priority", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 1000;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        Priority priority = Priority.of(advisedRequest.adviseContext());
+        long start = System.nanoTime();
+        CompletableFuture<AdaptiveLimiter.Permit> acquiring = this.limiterOf(advisedRequest).acquire(priority);
+        AdaptiveLimiter.Permit permit;
+        try {
+            permit = acquiring.get();
+        } catch (InterruptedException e) {
+            // 取消排队；若已获得许可则归还
+            acquiring.cancel(false);
+            acquiring.thenAccept(AdaptiveLimiter.Permit::ignore);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "请求已取消");
+        } catch (ExecutionException e) {
+            throw this.rejected(priority, e.getCause());
+        }
+        waitTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+            permit.success();
+            callTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return advisedResponse;
+        } catch (RuntimeException e) {
+            permit.dropped();
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        AdaptiveLimiter limiter = this.limiterOf(advisedRequest);
+        Priority priority = Priority.of(advisedRequest.adviseContext());
+        return Mono.defer(() -> {
+                    long requested = System.nanoTime();
+                    return Mono.fromFuture(() -> limiter.acquire(priority))
+                            .doOnNext(permit -> waitTimers.get(priority)
+                                    .record(System.nanoTime() - requested, TimeUnit.NANOSECONDS))
+                            .map(permit -> new Acquired(permit, requested));
+                })
+                // 获得许可时订阅方恰好取消，归还许可
+                .doOnDiscard(AdaptiveLimiter.Permit.class, AdaptiveLimiter.Permit::ignore)
+                .onErrorMap(e -> this.rejected(priority, e instanceof CompletionException ? e.getCause() : e))
+                .flatMapMany(acquired -> {
+                    AdaptiveLimiter.Permit permit = acquired.permit();
+                    long requested = acquired.requestedNanos();
+                    // 流式调用总耗时取决于回答长度，用首包耗时作为样本；许可一直占用到流结束
+                    AtomicLong start = new AtomicLong(System.nanoTime());
+                    return chain.nextAroundStream(advisedRequest)
+                            .doOnNext(response -> {
+                                long begin = start.getAndSet(0);
+                                if (begin > 0) {
+                                    long now = System.nanoTime();
+                                    permit.sample(now - begin);
+                                    callTimers.get(priority).record(now - requested, TimeUnit.NANOSECONDS);
+                                }
+                            })
+                            .doOnError(e -> permit.dropped())
+                            .doFinally(signal -> {
+                                // 正常结束时按首包耗时修正上限，取消时只归还许可
+                                if (signal == SignalType.ON_COMPLETE) {
+                                    permit.success();
+                                } else {
+                                    permit.ignore();
+                                }
+                            });
+                });
+    }
+
+    private AdaptiveLimiter limiterOf(AdvisedRequest advisedRequest) {
+        ChatOptions options = advisedRequest.chatOptions();
+        String model = options != null && options.getModel() != null ? options.getModel() : DEFAULT_MODEL;
+        return limiter.forModel(model);
+    }
+
+    private RuntimeException rejected(Priority priority, Throwable cause) {
+        rejected.get(priority).increment();
+        if (cause instanceof BusinessException businessException) {
+            return businessException;
+        }
+        if (cause instanceof TimeoutException) {
+            log.warn("Model concurrency wait timed out, priority {}", priority);
+            return new BusinessException(ErrorCode.TOO_MANY_REQUEST, "模型繁忙，请稍后再试");
+        }
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+    }
+
+    /**
+     * 获得的许可和开始申请的时间
+     */
+    private record Acquired(AdaptiveLimiter.Permit permit, long requestedNanos) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.rag.Bm25Index;
+import com.lb.aiagent.rag.LocalDocumentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 知识库检索拦截器
+ * 按用户问题从本地文档库检索相关段落，只把命中的段落追加到系统提示词
+ */
+@Slf4j
+public class KnowledgeRetrievalAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final LocalDocumentStore documentStore;
+
+    public KnowledgeRetrievalAdvisor(LocalDocumentStore documentStore) {
+        this.documentStore = documentStore;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 在违禁词检查之后，避免检索内容触发系统文本违禁词拦截
+        return 50;
+    }
+
+    private AdvisedRequest before(AdvisedRequest request) {
+        List<Bm25Index.Hit> hits = documentStore.search(request.userText());
+        if (hits.isEmpty()) {
+            return request;
+        }
+        StringBuilder systemText = new StringBuilder(request.systemText() == null ? "" : request.systemText());
+        systemText.append("\n以下是可能相关的参考资料，仅在与用户问题相关时参考：\n");
+        for (int i = 0; i < hits.size(); i++) {
+            // 系统提示词可能按模板渲染，把花括号换成全角避免被当成占位符
+            String text = hits.get(i).text().replace('{', '｛').replace('}', '｝');
+            systemText.append('[').append(i + 1).append("] ").append(text).append('\n');
+        }
+        log.debug("Injected {} knowledge passages", hits.size());
+        return AdvisedRequest.from(request)
+                .systemText(systemText.toString())
+                .build();
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        return chain.nextAroundCall(this.before(advisedRequest));
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return chain.nextAroundStream(this.before(advisedRequest));
+    }
+}
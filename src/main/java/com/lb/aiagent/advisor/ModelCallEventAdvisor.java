@@ -0,0 +1,100 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.jfr.ModelCallEvent;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+
+/**
+ * 模型调用 JFR 事件拦截器
+ * 未开启录制时只有一次事件开关判断的开销，可以常驻
+ */
+public class ModelCallEventAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 排在指标拦截器（LOWEST_PRECEDENCE - 2）之前，紧挨着模型调用
+        return Ordered.LOWEST_PRECEDENCE - 3;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        ModelCallEvent event = new ModelCallEvent();
+        if (!event.isEnabled()) {
+            return chain.nextAroundCall(advisedRequest);
+        }
+        event.begin();
+        try {
+            AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+            event.responseLength = length(advisedResponse.response());
+            event.success = true;
+            return advisedResponse;
+        } finally {
+            commit(event, advisedRequest, false);
+        }
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        if (!new ModelCallEvent().isEnabled()) {
+            return chain.nextAroundStream(advisedRequest);
+        }
+        return Flux.defer(() -> {
+            ModelCallEvent event = new ModelCallEvent();
+            AtomicInteger responseLength = new AtomicInteger();
+            event.begin();
+            return chain.nextAroundStream(advisedRequest)
+                    .doOnNext(advisedResponse -> responseLength.addAndGet(length(advisedResponse.response())))
+                    .doOnComplete(() -> event.success = true)
+                    .doFinally(signal -> {
+                        event.responseLength = responseLength.get();
+                        commit(event, advisedRequest, true);
+                    });
+        });
+    }
+
+    private static void commit(ModelCallEvent event, AdvisedRequest advisedRequest, boolean stream) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        Object conversationId = advisedRequest.adviseContext().get(CHAT_MEMORY_CONVERSATION_ID_KEY);
+        event.conversationId = conversationId == null ? null : conversationId.toString();
+        ChatOptions options = advisedRequest.chatOptions();
+        event.model = options != null ? options.getModel() : null;
+        event.stream = stream;
+        event.promptLength = length(advisedRequest.systemText()) + length(advisedRequest.userText());
+        for (Message message : advisedRequest.messages()) {
+            event.promptLength += length(message.getText());
+        }
+        event.commit();
+    }
+
+    private static int length(ChatResponse response) {
+        if (response == null) {
+            return 0;
+        }
+        int length = 0;
+        for (Generation generation : response.getResults()) {
+            length += length(generation.getOutput().getText());
+        }
+        return length;
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
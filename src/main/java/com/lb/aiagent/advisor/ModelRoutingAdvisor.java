@@ -0,0 +1,201 @@
+package com.lb.aiagent.advisor;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.lb.aiagent.concurrent.AdaptiveLimiter;
+import com.lb.aiagent.concurrent.LatencyPercentiles;
+import com.lb.aiagent.concurrent.ModelConcurrencyLimiter;
+import com.lb.aiagent.concurrent.Priority;
+import com.lb.aiagent.config.ModelRoutingProperties;
+import com.lb.aiagent.utils.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型分级路由拦截器
+ * 根据估算的提示词 token 数、上下文消息数、是否结构化输出选择最便宜的可用级别，
+ * 该级别拥堵（并发已满或近期耗时过高）时改用同样满足条件的相邻级别。排在并发限制之前，限流按路由后的模型生效。
+ * 同步调用的总耗时和流式调用的首包耗时分开统计，各自判断是否拥堵
+ */
+@Slf4j
+public class ModelRoutingAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final ModelRoutingProperties properties;
+
+    private final ModelConcurrencyLimiter limiter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<LatencyKey, LatencyPercentiles> latencies = new ConcurrentHashMap<>();
+
+    private final Map<RouteKey, Counter> routeCounters = new ConcurrentHashMap<>();
+
+    public ModelRoutingAdvisor(ModelRoutingProperties properties, ModelConcurrencyLimiter limiter,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 900;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        ModelRoutingProperties.Tier tier = this.route(advisedRequest, false);
+        if (tier == null) {
+            return chain.nextAroundCall(advisedRequest);
+        }
+        long start = System.nanoTime();
+        AdvisedResponse advisedResponse = chain.nextAroundCall(this.withModel(advisedRequest, tier.getModel()));
+        this.recordLatency(tier.getModel(), false, System.nanoTime() - start);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return Flux.defer(() -> {
+            ModelRoutingProperties.Tier tier = this.route(advisedRequest, true);
+            if (tier == null) {
+                return chain.nextAroundStream(advisedRequest);
+            }
+            // 流式调用记录首包耗时
+            AtomicLong start = new AtomicLong(System.nanoTime());
+            return chain.nextAroundStream(this.withModel(advisedRequest, tier.getModel()))
+                    .doOnNext(response -> {
+                        long begin = start.getAndSet(0);
+                        if (begin > 0) {
+                            this.recordLatency(tier.getModel(), true, System.nanoTime() - begin);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 选择模型级别，没有配置级别时返回 null
+     * @param stream 是否流式调用，决定按哪组耗时判断拥堵
+     */
+    ModelRoutingProperties.Tier route(AdvisedRequest advisedRequest, boolean stream) {
+        List<ModelRoutingProperties.Tier> tiers = properties.getTiers();
+        if (tiers.isEmpty()) {
+            return null;
+        }
+        int tokens = TokenEstimator.estimate(advisedRequest);
+        int history = advisedRequest.messages().size();
+        boolean structured = Priority.of(advisedRequest.adviseContext()) == Priority.REPORT;
+
+        boolean[] eligible = new boolean[tiers.size()];
+        int preferred = -1;
+        for (int i = 0; i < tiers.size(); i++) {
+            ModelRoutingProperties.Tier tier = tiers.get(i);
+            eligible[i] = tokens <= tier.getMaxPromptTokens() && history <= tier.getMaxHistory()
+                    && (!structured || tier.isStructuredOutput());
+            if (eligible[i] && preferred < 0) {
+                preferred = i;
+            }
+        }
+        // 没有满足条件的级别时用最后一级兜底，且不再切换
+        boolean anyEligible = preferred >= 0;
+        if (!anyEligible) {
+            preferred = tiers.size() - 1;
+        }
+        // 首选级别拥堵时在满足条件的级别中先往上找，再往下找；都拥堵时仍用首选级别
+        int chosen = preferred;
+        String reason = anyEligible ? "match" : "default";
+        if (anyEligible && this.congested(tiers.get(preferred), stream)) {
+            reason = "saturated";
+            for (int distance = 1; distance < tiers.size(); distance++) {
+                int up = preferred + distance;
+                int down = preferred - distance;
+                if (up < tiers.size() && eligible[up] && !this.congested(tiers.get(up), stream)) {
+                    chosen = up;
+                    break;
+                }
+                if (down >= 0 && eligible[down] && !this.congested(tiers.get(down), stream)) {
+                    chosen = down;
+                    break;
+                }
+            }
+            if (chosen != preferred) {
+                reason = "fallback";
+            }
+        }
+        ModelRoutingProperties.Tier tier = tiers.get(chosen);
+        log.info("Routed to tier {} ({}): reason={}, tokens={}, history={}, structured={}",
+                tier.getName(), tier.getModel(), reason, tokens, history, structured);
+        routeCounters.computeIfAbsent(new RouteKey(tier.getName(), reason), k -> Counter.builder("ai.model.route")
+                        .description("按级别统计的路由次数")
+                        .tag("tier", k.tier())
+                        .tag("reason", k.reason())
+                        .register(meterRegistry))
+                .increment();
+        return tier;
+    }
+
+    /**
+     * 记录一次耗时
+     * @param stream true 为流式首包耗时，false 为同步调用总耗时
+     */
+    void recordLatency(String model, boolean stream, long nanos) {
+        this.latencyOf(model, stream).record(nanos);
+    }
+
+    /**
+     * 并发已满、有请求排队，或近期耗时中位数超过上限
+     */
+    private boolean congested(ModelRoutingProperties.Tier tier, boolean stream) {
+        AdaptiveLimiter modelLimiter = limiter.forModel(tier.getModel());
+        if (modelLimiter.getQueueSize() > 0 || modelLimiter.getInFlight() >= modelLimiter.getLimit()) {
+            return true;
+        }
+        Duration maxLatency = stream && tier.getMaxFirstTokenLatency() != null
+                ? tier.getMaxFirstTokenLatency()
+                : tier.getMaxLatency();
+        if (maxLatency == null) {
+            return false;
+        }
+        LatencyPercentiles latency = this.latencyOf(tier.getModel(), stream);
+        return latency.count() >= properties.getLatencyMinSamples()
+                && latency.sinceLastRecord() < properties.getLatencyStaleAfter().toNanos()
+                && latency.percentile(0.5) > maxLatency.toNanos();
+    }
+
+    private LatencyPercentiles latencyOf(String model, boolean stream) {
+        return latencies.computeIfAbsent(new LatencyKey(model, stream),
+                k -> new LatencyPercentiles(properties.getLatencyWindowSize()));
+    }
+
+    private AdvisedRequest withModel(AdvisedRequest advisedRequest, String model) {
+        ChatOptions options = advisedRequest.chatOptions();
+        DashScopeChatOptions routed;
+        if (options instanceof DashScopeChatOptions dashScopeChatOptions) {
+            routed = dashScopeChatOptions.copy();
+        } else {
+            routed = DashScopeChatOptions.builder().build();
+        }
+        routed.setModel(model);
+        return AdvisedRequest.from(advisedRequest).chatOptions(routed).build();
+    }
+
+    private record LatencyKey(String model, boolean stream) {
+    }
+
+    private record RouteKey(String tier, String reason) {
+    }
+}
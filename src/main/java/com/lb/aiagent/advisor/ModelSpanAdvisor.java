@@ -0,0 +1,132 @@
+package com.lb.aiagent.advisor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型调用追踪拦截器
+ * 排在所有拦截器之后、紧挨着实际调用模型的那一步，记录模型调用耗时以及请求、回答的字符数
+ */
+public class ModelSpanAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final ObservationRegistry observationRegistry;
+
+    private final Timer callTimer;
+
+    private final Timer streamTimer;
+
+    private final DistributionSummary requestChars;
+
+    private final DistributionSummary responseChars;
+
+    public ModelSpanAdvisor(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.callTimer = timer(meterRegistry, "call");
+        this.streamTimer = timer(meterRegistry, "stream");
+        this.requestChars = payload(meterRegistry, "request");
+        this.responseChars = payload(meterRegistry, "response");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("ai.model.span")
+                .description("模型调用耗时，流式为最后一个分片返回的时间")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary payload(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("ai.model.payload")
+                .description("发给模型的提示词和模型回答的字符数")
+                .baseUnit("chars")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 实际调用模型的拦截器顺序为 LOWEST_PRECEDENCE
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        requestChars.record(requestLength(advisedRequest));
+        Observation observation = this.observation();
+        long start = System.nanoTime();
+        try {
+            AdvisedResponse advisedResponse = observation.observe(() -> chain.nextAroundCall(advisedRequest));
+            responseChars.record(responseLength(advisedResponse.response()));
+            return advisedResponse;
+        } finally {
+            callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return Flux.deferContextual(context -> {
+            requestChars.record(requestLength(advisedRequest));
+            Observation observation = this.observation();
+            Observation parent = context.getOrDefault(TracingAdvisor.OBSERVATION_CONTEXT_KEY, null);
+            if (parent != null) {
+                observation.parentObservation(parent);
+            }
+            observation.start();
+            AtomicLong chars = new AtomicLong();
+            long start = System.nanoTime();
+            return chain.nextAroundStream(advisedRequest)
+                    .doOnNext(response -> chars.addAndGet(responseLength(response.response())))
+                    .doOnError(observation::error)
+                    .doFinally(signal -> {
+                        streamTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        responseChars.record(chars.get());
+                        observation.stop();
+                    });
+        });
+    }
+
+    private Observation observation() {
+        return Observation.createNotStarted("ai.model.span", observationRegistry)
+                .contextualName("model");
+    }
+
+    private static long requestLength(AdvisedRequest request) {
+        long length = length(request.systemText()) + length(request.userText());
+        for (Message message : request.messages()) {
+            length += length(message.getText());
+        }
+        return length;
+    }
+
+    private static long responseLength(ChatResponse response) {
+        if (response == null) {
+            return 0;
+        }
+        long length = 0;
+        for (Generation generation : response.getResults()) {
+            length += length(generation.getOutput().getText());
+        }
+        return length;
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -1,15 +1,32 @@
 package com.lb.aiagent.advisor;
 
+import com.lb.aiagent.audit.AuditLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.advisor.api.*;
 import org.springframework.ai.chat.model.MessageAggregator;
 import reactor.core.publisher.Flux;
 
+import java.util.Map;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+
 /**
  * 自定义日志拦截器
+ * 启用审计日志时请求和回答写入异步审计日志，否则只在 DEBUG 级别输出
  */
 @Slf4j
 public class MyLoggerAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final AuditLog auditLog;
+
+    public MyLoggerAdvisor() {
+        this(null);
+    }
+
+    public MyLoggerAdvisor(AuditLog auditLog) {
+        this.auditLog = auditLog != null && auditLog.isEnabled() ? auditLog : null;
+    }
+
     @Override
     public String getName() {
         return this.getClass().getSimpleName();
@@ -21,12 +38,26 @@ public class MyLoggerAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
     }
 
     private AdvisedRequest before(AdvisedRequest request) {
-        log.info("AI request: {}", request.userText());
+        if (auditLog != null) {
+            auditLog.record("request", conversationId(request.adviseContext()), this.getName(), request.userText());
+        } else {
+            log.debug("AI request: {}", request.userText());
+        }
         return request;
     }
 
     private void observeAfter(AdvisedResponse advisedResponse) {
-        log.info("AI response: {}", advisedResponse.response().getResult().getOutput().getText());
+        String text = advisedResponse.response().getResult().getOutput().getText();
+        if (auditLog != null) {
+            auditLog.record("response", conversationId(advisedResponse.adviseContext()), this.getName(), text);
+        } else {
+            log.debug("AI response: {}", text);
+        }
+    }
+
+    static String conversationId(Map<String, Object> context) {
+        Object conversationId = context == null ? null : context.get(CHAT_MEMORY_CONVERSATION_ID_KEY);
+        return conversationId == null ? null : conversationId.toString();
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.lb.aiagent.advisor;
 
+import com.lb.aiagent.audit.AuditLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
@@ -7,19 +8,32 @@ import org.springframework.ai.chat.client.advisor.api.AdvisedResponse;
 import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisorChain;
 import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisorChain;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.MessageAggregator;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
+
 /**
  * 聊天记忆建议
  */
 @Slf4j
 public class MyMessageChatMemoryAdvisor extends AbstractChatMemoryAdvisor<ChatMemory> {
 
+	/**
+	 * 为 null 时只在 DEBUG 级别输出
+	 */
+	private AuditLog auditLog;
+
 	public MyMessageChatMemoryAdvisor(ChatMemory chatMemory) {
 		super(chatMemory);
 	}
 
+	public MyMessageChatMemoryAdvisor(ChatMemory chatMemory, AuditLog auditLog) {
+		super(chatMemory);
+		this.auditLog = auditLog != null && auditLog.isEnabled() ? auditLog : null;
+	}
+
 	public MyMessageChatMemoryAdvisor(ChatMemory chatMemory, String defaultConversationId, int defaultChatMemoryRetrieveSize, boolean protectFromBlocking) {
 		super(chatMemory, defaultConversationId, defaultChatMemoryRetrieveSize, protectFromBlocking);
 	}
@@ -55,11 +69,25 @@ public class MyMessageChatMemoryAdvisor extends AbstractChatMemoryAdvisor<ChatMe
 	}
 
 	private AdvisedRequest before(AdvisedRequest request) {
-		log.info("before " + request.messages());
+		// 只记录上下文条数和最后一条消息，不把整个消息列表转成字符串
+		List<Message> messages = request.messages();
+		String last = messages.isEmpty() ? null : messages.get(messages.size() - 1).getText();
+		if (auditLog != null) {
+			auditLog.record("context", MyLoggerAdvisor.conversationId(request.adviseContext()), this.getName(), last,
+					messages.size());
+		} else {
+			log.debug("before {} messages, last: {}", messages.size(), last);
+		}
 		return request;
 	}
 
 	private void observeAfter(AdvisedResponse advisedResponse) {
-		log.info("after " + advisedResponse.response().getResult().getOutput().toString());
+		String text = advisedResponse.response().getResult().getOutput().getText();
+		if (auditLog != null) {
+			auditLog.record("response", MyLoggerAdvisor.conversationId(advisedResponse.adviseContext()), this.getName(),
+					text);
+		} else {
+			log.debug("after {}", text);
+		}
 	}
 }
\ No newline at end of file
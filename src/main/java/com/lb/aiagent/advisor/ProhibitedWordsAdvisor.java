@@ -1,8 +1,10 @@
 package com.lb.aiagent.advisor;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.spring.SpringUtil;
 import com.lb.aiagent.exception.BusinessException;
+import com.lb.aiagent.jfr.ModerationScanEvent;
 import com.lb.aiagent.service.ProhibitedWordsService;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
@@ -13,14 +15,19 @@ import org.springframework.ai.chat.client.advisor.api.*;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
-import org.springframework.ai.chat.model.MessageAggregator;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+
 /**
  * 违禁词拦截器
  */
@@ -30,24 +37,110 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
 
     private volatile List<String> prohibitedWords;
 
-    // 构建正则表达式模式用于匹配违禁词
-    private Pattern pattern;
+    // 构建正则表达式模式用于匹配违禁词，词表为空时为 null
+    private volatile Pattern pattern;
+
+    /**
+     * 最长违禁词的长度，流式输出时末尾保留这么多字符减一，避免违禁词被切在两个分片之间
+     */
+    private volatile int maxWordLength;
+
+    /**
+     * 词库版本（词表内容的哈希），记录在 JFR 扫描事件中
+     */
+    private volatile String dictionaryVersion;
+
+    /**
+     * 词表刷新间隔，增删违禁词（ProhibitedWordsService 会清掉 Redis 缓存）后最迟这么久生效
+     */
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * 加载词表会访问 Redis/MySQL，用 ReentrantLock 而不是 synchronized，避免虚拟线程钉住载体线程
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * 是否定期从 ProhibitedWordsService 刷新，直接指定词表时不刷新
+     */
+    private final boolean refreshable;
+
+    private volatile long loadedAt;
+
+    public ProhibitedWordsAdvisor() {
+        this.refreshable = true;
+    }
+
+    /**
+     * 直接指定词表，不从 ProhibitedWordsService 加载
+     */
+    public ProhibitedWordsAdvisor(List<String> prohibitedWords) {
+        this.refreshable = false;
+        this.applyWords(prohibitedWords);
+    }
 
+    /**
+     * 重新加载词表，首次请求时自动调用，之后每隔 REFRESH_INTERVAL_NANOS 刷新一次
+     */
     public void initProhibitedWords() {
         ProhibitedWordsService prohibitedWordsService = SpringUtil.getBean(ProhibitedWordsService.class);
-        prohibitedWords = prohibitedWordsService.getAllWords();
-        StringBuilder patternBuilder = new StringBuilder();
-        if (CollUtil.isEmpty(prohibitedWords)) {
-            this.pattern = Pattern.compile(patternBuilder.toString(), Pattern.CASE_INSENSITIVE);
+        this.applyWords(prohibitedWordsService.getAllWords());
+    }
+
+    private void ensureLoaded() {
+        if (dictionaryVersion == null) {
+            // 首次加载，所有请求都要等词表就绪
+            loadLock.lock();
+            try {
+                if (dictionaryVersion == null) {
+                    this.initProhibitedWords();
+                }
+            } finally {
+                loadLock.unlock();
+            }
+            return;
+        }
+        if (!refreshable || System.nanoTime() - loadedAt < REFRESH_INTERVAL_NANOS) {
             return;
         }
-        for (int i = 0; i < prohibitedWords.size(); i++) {
-            if (i > 0) {
-                patternBuilder.append("|");
+        // 到期刷新只由一个请求执行，其他请求继续使用旧词表
+        if (!loadLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.nanoTime() - loadedAt >= REFRESH_INTERVAL_NANOS) {
+                this.initProhibitedWords();
+            }
+        } catch (RuntimeException e) {
+            // 刷新失败沿用旧词表，下个周期再试
+            this.loadedAt = System.nanoTime();
+            log.warn("Failed to refresh prohibited words, keep version {}", dictionaryVersion, e);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void applyWords(List<String> words) {
+        List<String> nonBlank = words == null ? List.of() : words.stream().filter(StrUtil::isNotEmpty).toList();
+        Pattern compiled = null;
+        int maxLength = 0;
+        if (CollUtil.isNotEmpty(nonBlank)) {
+            StringBuilder patternBuilder = new StringBuilder();
+            for (int i = 0; i < nonBlank.size(); i++) {
+                if (i > 0) {
+                    patternBuilder.append("|");
+                }
+                patternBuilder.append(Pattern.quote(nonBlank.get(i)));
+                maxLength = Math.max(maxLength, nonBlank.get(i).length());
             }
-            patternBuilder.append(Pattern.quote(prohibitedWords.get(i)));
+            compiled = Pattern.compile(patternBuilder.toString(), Pattern.CASE_INSENSITIVE);
         }
-        this.pattern = Pattern.compile(patternBuilder.toString(), Pattern.CASE_INSENSITIVE);
+        this.prohibitedWords = nonBlank;
+        this.pattern = compiled;
+        this.maxWordLength = maxLength;
+        this.loadedAt = System.nanoTime();
+        // 最后写版本号，ensureLoaded 以它判断是否已加载
+        this.dictionaryVersion = Integer.toHexString(nonBlank.hashCode());
     }
 
     @Override
@@ -66,26 +159,57 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
      * @return true表示包含违禁词，false表示不包含
      */
     private boolean containsProhibitedWords(String text) {
-        if (text == null || text.isEmpty()) {
+        Pattern current = pattern;
+        if (current == null || text == null || text.isEmpty()) {
             return false;
         }
-        return pattern.matcher(text).find();
+        return current.matcher(text).find();
     }
 
     /**
-     * 替换文本中的违禁词
+     * 检查违禁词并记录 JFR 扫描事件
+     * @param context 拦截器上下文，从中读取会话 id
+     * @param phase request 或 response
+     */
+    private boolean scan(Map<String, Object> context, String phase, String text) {
+        ModerationScanEvent event = new ModerationScanEvent();
+        event.begin();
+        boolean hit = containsProhibitedWords(text);
+        event.end();
+        if (event.shouldCommit()) {
+            Object conversationId = context.get(CHAT_MEMORY_CONVERSATION_ID_KEY);
+            event.conversationId = conversationId == null ? null : conversationId.toString();
+            event.phase = phase;
+            event.dictionaryVersion = dictionaryVersion;
+            event.dictionarySize = prohibitedWords == null ? 0 : prohibitedWords.size();
+            event.textLength = text == null ? 0 : text.length();
+            event.hit = hit;
+            event.commit();
+        }
+        return hit;
+    }
+
+    /**
+     * 替换文本中的违禁词，每个字符替换为一个星号，文本长度不变
      * @param text 原始文本
      * @return 替换后的文本
      */
     private String replaceProhibitedWords(String text) {
-        if (text == null || text.isEmpty()) {
+        Pattern current = pattern;
+        if (current == null || text == null || text.isEmpty()) {
             return text;
         }
-        String result = text;
-        for (String word : prohibitedWords) {
-            result = result.replaceAll("(?i)" + Pattern.quote(word), "*".repeat(word.length()));
+        Matcher matcher = current.matcher(text);
+        if (!matcher.find()) {
+            return text;
         }
-        return result;
+        StringBuilder result = new StringBuilder(text);
+        do {
+            for (int i = matcher.start(); i < matcher.end(); i++) {
+                result.setCharAt(i, '*');
+            }
+        } while (matcher.find());
+        return result.toString();
     }
 
     /**
@@ -96,7 +220,7 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
      */
     private AdvisedRequest before(AdvisedRequest request) {
         // 检查用户输入是否包含违禁词
-        if (containsProhibitedWords(request.userText())) {
+        if (scan(request.adviseContext(), "request", request.userText())) {
             log.warn("Request contains prohibited words: {}", request.userText());
             throw new BusinessException("请求包含违禁词");
         }
@@ -119,7 +243,7 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
     private AdvisedResponse observeAfterAndModify(AdvisedResponse advisedResponse) {
         String responseText = advisedResponse.response().getResult().getOutput().getText();
 
-        if (containsProhibitedWords(responseText)) {
+        if (scan(advisedResponse.adviseContext(), "response", responseText)) {
             log.warn("Response contains prohibited words: {}", responseText);
 
             // 替换违禁词
@@ -155,7 +279,7 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
 
     @Override
     public AdvisedResponse aroundCall(@NotNull AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
-        this.initProhibitedWords();
+        this.ensureLoaded();
         // 请求前检查
         before(advisedRequest);
 
@@ -168,13 +292,80 @@ public class ProhibitedWordsAdvisor implements CallAroundAdvisor, StreamAroundAd
 
     @Override
     public Flux<AdvisedResponse> aroundStream(@NotNull AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        this.ensureLoaded();
         // 请求前检查
         before(advisedRequest);
 
-        // 继续执行流式调用链
-        Flux<AdvisedResponse> advisedResponses = chain.nextAroundStream(advisedRequest);
+        // 继续执行流式调用链，每个分片替换违禁词后再往下游发送
+        return Flux.defer(() -> {
+            StreamMasker masker = new StreamMasker();
+            return chain.nextAroundStream(advisedRequest)
+                    .concatMap(masker::mask)
+                    .concatWith(Flux.defer(masker::flush));
+        });
+    }
+
+    /**
+     * 单次流式调用的替换状态。末尾保留最长违禁词长度减一个字符不发送，
+     * 与下一个分片拼接后再检查，跨分片的违禁词也能被替换
+     */
+    private class StreamMasker {
+
+        /**
+         * 尚未发送的原始文本
+         */
+        private final StringBuilder pending = new StringBuilder();
+
+        private AdvisedResponse last;
 
-        // 对流式响应进行聚合处理
-        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses, this::observeAfterAndModify);
+        Flux<AdvisedResponse> mask(AdvisedResponse advisedResponse) {
+            String text = textOf(advisedResponse);
+            if (text == null) {
+                return Flux.just(advisedResponse);
+            }
+            last = advisedResponse;
+            pending.append(text);
+            String original = pending.toString();
+            String masked = original;
+            int cut = Math.max(original.length() - Math.max(maxWordLength - 1, 0), 0);
+            Pattern current = pattern;
+            if (current != null && scan(advisedResponse.adviseContext(), "response", original)) {
+                log.warn("Response contains prohibited words: {}", original);
+                masked = replaceProhibitedWords(original);
+                // 跨过保留边界的违禁词整体发送
+                Matcher matcher = current.matcher(original);
+                while (matcher.find()) {
+                    if (matcher.start() < cut && matcher.end() > cut) {
+                        cut = matcher.end();
+                    }
+                }
+            }
+            // 不把代理对拆开
+            if (cut > 0 && cut < original.length() && Character.isHighSurrogate(original.charAt(cut - 1))) {
+                cut--;
+            }
+            pending.delete(0, cut);
+            if (cut == 0) {
+                return Flux.empty();
+            }
+            return Flux.just(createModifiedResponse(advisedResponse, masked.substring(0, cut)));
+        }
+
+        Flux<AdvisedResponse> flush() {
+            if (pending.isEmpty() || last == null) {
+                return Flux.empty();
+            }
+            String masked = replaceProhibitedWords(pending.toString());
+            pending.setLength(0);
+            return Flux.just(createModifiedResponse(last, masked));
+        }
+
+        private String textOf(AdvisedResponse advisedResponse) {
+            ChatResponse response = advisedResponse.response();
+            if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
+                return null;
+            }
+            return response.getResult().getOutput().getText();
+        }
     }
 }
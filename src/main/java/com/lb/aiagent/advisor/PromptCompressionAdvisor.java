@@ -0,0 +1,304 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.concurrent.Priority;
+import com.lb.aiagent.config.PromptCompressionProperties;
+import com.lb.aiagent.utils.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 提示词压缩拦截器
+ * 按输入 token 预算压缩请求：去掉重复的对话轮次，超出预算时先缩短、再丢弃较早的对话轮次；
+ * 可选对较短的用户输入重读问题（见 {@link ReReadingAdvisor}，默认关闭）。
+ * 排在记忆、知识库检索之后，模型路由之前，路由按压缩后的 token 数选择模型
+ */
+@Slf4j
+public class PromptCompressionAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * 本次请求节省的 token 数（估算值），写入拦截器上下文；重读问题增加的 token 多于节省的时为负数
+     */
+    public static final String TOKENS_SAVED_KEY = "prompt_tokens_saved";
+
+    private static final String RE_READ_PREFIX = "\nRead the question again: ";
+
+    private static final String ELLIPSIS = "……";
+
+    private final PromptCompressionProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final DistributionSummary saved;
+
+    private final DistributionSummary added;
+
+    public PromptCompressionAdvisor(PromptCompressionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.saved = DistributionSummary.builder("ai.prompt.tokens.saved")
+                .description("每次请求压缩节省的输入 token 数（估算值）")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.added = DistributionSummary.builder("ai.prompt.tokens.added")
+                .description("压缩后输入 token 反而增加（重读问题）时增加的 token 数（估算值）")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 800;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        return chain.nextAroundCall(this.compress(advisedRequest));
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return Flux.defer(() -> chain.nextAroundStream(this.compress(advisedRequest)));
+    }
+
+    AdvisedRequest compress(AdvisedRequest request) {
+        int before = TokenEstimator.estimate(request);
+        int budget = properties.getMaxInputTokens();
+        int fixed = TokenEstimator.estimate(request.systemText()) + TokenEstimator.estimate(request.userText());
+
+        List<Message> messages = request.messages();
+        if (properties.isDedupe()) {
+            messages = this.dedupe(messages);
+        }
+        int history = historyTokens(messages);
+        if (fixed + history > budget) {
+            messages = this.shorten(messages, fixed + history - budget);
+            history = historyTokens(messages);
+        }
+        if (fixed + history > budget) {
+            messages = this.drop(messages, fixed + history - budget);
+            history = historyTokens(messages);
+        }
+
+        String userText = request.userText();
+        int queryTokens = TokenEstimator.estimate(userText);
+        int after = fixed + history;
+        // 重读对短问题效果明显；长问题和结构化输出（用户输入后附有格式要求）不重读
+        if (queryTokens > 0 && queryTokens <= properties.getReReadMaxTokens()
+                && after + queryTokens <= budget
+                && Priority.of(request.adviseContext()) != Priority.REPORT) {
+            userText = userText + RE_READ_PREFIX + userText;
+            after += queryTokens;
+            this.count("reread", 1);
+        }
+
+        int tokensSaved = before - after;
+        if (tokensSaved >= 0) {
+            saved.record(tokensSaved);
+        } else {
+            added.record(-tokensSaved);
+        }
+        if (tokensSaved > 0) {
+            log.debug("Compressed prompt from {} to {} tokens, {} -> {} messages",
+                    before, after, request.messages().size(), messages.size());
+        }
+
+        Map<String, Object> context = new HashMap<>(request.adviseContext());
+        context.put(TOKENS_SAVED_KEY, tokensSaved);
+        return AdvisedRequest.from(request)
+                .messages(messages)
+                .userText(userText)
+                .adviseContext(context)
+                .build();
+    }
+
+    /**
+     * 去掉内容重复的对话轮次（用户消息连同其后的助手回复），保留最近一次。
+     * 按整轮去重，不会出现连续两条助手消息
+     */
+    private List<Message> dedupe(List<Message> messages) {
+        // 切分为轮次：用户消息开始一轮，其后的非用户、非系统消息归入该轮；其余消息单独成组且不参与去重
+        List<List<Message>> turns = new ArrayList<>();
+        List<Message> current = null;
+        for (Message message : messages) {
+            if (message.getMessageType() == MessageType.USER || current == null
+                    || message.getMessageType() == MessageType.SYSTEM) {
+                current = new ArrayList<>(2);
+                turns.add(current);
+            }
+            current.add(message);
+            if (message.getMessageType() == MessageType.SYSTEM) {
+                current = null;
+            }
+        }
+        Set<String> seen = new HashSet<>();
+        List<List<Message>> reversed = new ArrayList<>(turns.size());
+        int removed = 0;
+        for (int i = turns.size() - 1; i >= 0; i--) {
+            List<Message> turn = turns.get(i);
+            String key = turnKey(turn);
+            if (key == null || seen.add(key)) {
+                reversed.add(turn);
+            } else {
+                removed += turn.size();
+            }
+        }
+        if (removed == 0) {
+            return messages;
+        }
+        this.count("dedupe", removed);
+        List<Message> result = new ArrayList<>(messages.size() - removed);
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            result.addAll(reversed.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 轮次的去重键，不以用户消息开头或含有空文本时返回 null（不参与去重）
+     */
+    private static String turnKey(List<Message> turn) {
+        if (turn.get(0).getMessageType() != MessageType.USER) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Message message : turn) {
+            if (message.getText() == null) {
+                return null;
+            }
+            key.append(message.getMessageType()).append(':').append(message.getText().strip()).append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * 从最早的消息开始，把超长消息缩短为首尾两段，直到省出 excess 个 token
+     */
+    private List<Message> shorten(List<Message> messages, int excess) {
+        int maxTokens = properties.getOldMessageMaxTokens();
+        int end = messages.size() - properties.getKeepRecentMessages();
+        List<Message> result = new ArrayList<>(messages);
+        int shortened = 0;
+        for (int i = 0; i < end && excess > 0; i++) {
+            Message message = result.get(i);
+            String text = message.getText();
+            int tokens = TokenEstimator.estimate(text);
+            if (tokens <= maxTokens || message.getMessageType() == MessageType.SYSTEM) {
+                continue;
+            }
+            String shorter = shortenText(text, maxTokens);
+            Message replaced = copyWithText(message, shorter);
+            if (replaced == null) {
+                continue;
+            }
+            result.set(i, replaced);
+            excess -= tokens - TokenEstimator.estimate(shorter);
+            shortened++;
+        }
+        if (shortened == 0) {
+            return messages;
+        }
+        this.count("shorten", shortened);
+        return result;
+    }
+
+    /**
+     * 从最早的轮次开始整轮丢弃（用户消息连同其后的助手回复），直到省出 excess 个 token
+     */
+    private List<Message> drop(List<Message> messages, int excess) {
+        int end = messages.size() - properties.getKeepRecentMessages();
+        List<Message> result = new ArrayList<>(messages.size());
+        int dropped = 0;
+        int i = 0;
+        while (i < end && excess > 0) {
+            Message message = messages.get(i);
+            if (message.getMessageType() == MessageType.SYSTEM) {
+                result.add(message);
+                i++;
+                continue;
+            }
+            excess -= TokenEstimator.estimate(message.getText());
+            dropped++;
+            i++;
+            if (message.getMessageType() == MessageType.USER && i < end
+                    && messages.get(i).getMessageType() == MessageType.ASSISTANT) {
+                excess -= TokenEstimator.estimate(messages.get(i).getText());
+                dropped++;
+                i++;
+            }
+        }
+        if (dropped == 0) {
+            return messages;
+        }
+        result.addAll(messages.subList(i, messages.size()));
+        this.count("drop", dropped);
+        return result;
+    }
+
+    /**
+     * 保留开头约三分之二、结尾约三分之一，中间用省略号代替
+     */
+    static String shortenText(String text, int maxTokens) {
+        int length = text.length();
+        // 按平均每字符 token 数换算要保留的字符数
+        int keepChars = (int) ((long) length * maxTokens / Math.max(TokenEstimator.estimate(text), 1));
+        if (keepChars >= length) {
+            return text;
+        }
+        int head = keepChars * 2 / 3;
+        int tail = keepChars - head;
+        // 不在代理对中间截断
+        if (head > 0 && Character.isHighSurrogate(text.charAt(head - 1))) {
+            head--;
+        }
+        if (tail > 0 && Character.isLowSurrogate(text.charAt(length - tail))) {
+            tail--;
+        }
+        return text.substring(0, head) + ELLIPSIS + text.substring(length - tail);
+    }
+
+    private static Message copyWithText(Message message, String text) {
+        if (message.getMessageType() == MessageType.USER) {
+            return new UserMessage(text);
+        }
+        if (message.getMessageType() == MessageType.ASSISTANT) {
+            return new AssistantMessage(text, message.getMetadata());
+        }
+        return null;
+    }
+
+    private static int historyTokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += TokenEstimator.estimate(message.getText());
+        }
+        return tokens;
+    }
+
+    private void count(String action, int amount) {
+        Counter.builder("ai.prompt.compression")
+                .description("提示词压缩处理的消息数")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+}
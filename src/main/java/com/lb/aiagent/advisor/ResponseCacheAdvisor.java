@@ -0,0 +1,98 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.cache.CacheBypassRules;
+import com.lb.aiagent.cache.CachedResponse;
+import com.lb.aiagent.cache.ResponseCache;
+import com.lb.aiagent.cache.ResponseCacheKey;
+import com.lb.aiagent.config.ResponseCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.MessageAggregator;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 精确匹配回答缓存拦截器
+ * 需排在记忆拦截器之后，缓存键包含已填充的上下文消息
+ */
+@Slf4j
+public class ResponseCacheAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * 命中缓存的回答在消息元数据中带上该标记
+     */
+    public static final String CACHED_METADATA_KEY = "cached";
+
+    private final ResponseCache responseCache;
+
+    private final ResponseCacheProperties properties;
+
+    public ResponseCacheAdvisor(ResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 200;
+    }
+
+    private boolean bypass(AdvisedRequest request) {
+        return CacheBypassRules.bypass(request, properties.isFirstTurnOnly(), properties.getMaxQueryLength());
+    }
+
+    /**
+     * 把缓存的回答包装成响应，消息元数据带上命中标记
+     */
+    static AdvisedResponse toAdvisedResponse(CachedResponse cached, Map<String, Object> adviseContext) {
+        AssistantMessage message = new AssistantMessage(cached.text(), Map.of(CACHED_METADATA_KEY, true));
+        return new AdvisedResponse(new ChatResponse(List.of(new Generation(message))), adviseContext);
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        if (this.bypass(advisedRequest)) {
+            responseCache.recordBypass();
+            return chain.nextAroundCall(advisedRequest);
+        }
+        String key = ResponseCacheKey.of(advisedRequest);
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            log.debug("Response cache hit {}", key);
+            return toAdvisedResponse(cached, advisedRequest.adviseContext());
+        }
+        long start = System.currentTimeMillis();
+        AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+        responseCache.put(key, advisedResponse.response().getResult().getOutput().getText(),
+                System.currentTimeMillis() - start);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        if (this.bypass(advisedRequest)) {
+            responseCache.recordBypass();
+            return chain.nextAroundStream(advisedRequest);
+        }
+        String key = ResponseCacheKey.of(advisedRequest);
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            return Flux.just(toAdvisedResponse(cached, advisedRequest.adviseContext()));
+        }
+        long start = System.currentTimeMillis();
+        Flux<AdvisedResponse> advisedResponses = chain.nextAroundStream(advisedRequest);
+        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses,
+                response -> responseCache.put(key, response.response().getResult().getOutput().getText(),
+                        System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,78 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.cache.CacheBypassRules;
+import com.lb.aiagent.cache.CachedResponse;
+import com.lb.aiagent.cache.SemanticResponseCache;
+import com.lb.aiagent.config.SemanticCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.model.MessageAggregator;
+import reactor.core.publisher.Flux;
+
+/**
+ * 语义回答缓存拦截器
+ * 排在精确匹配缓存之后，用于命中措辞不同但意思相同的问题
+ */
+@Slf4j
+public class SemanticCacheAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final SemanticResponseCache semanticResponseCache;
+
+    private final SemanticCacheProperties properties;
+
+    public SemanticCacheAdvisor(SemanticResponseCache semanticResponseCache, SemanticCacheProperties properties) {
+        this.semanticResponseCache = semanticResponseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 210;
+    }
+
+    private boolean bypass(AdvisedRequest request) {
+        return CacheBypassRules.bypass(request, properties.isFirstTurnOnly(), properties.getMaxQueryLength());
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        if (this.bypass(advisedRequest)) {
+            return chain.nextAroundCall(advisedRequest);
+        }
+        String scope = SemanticResponseCache.scopeOf(advisedRequest);
+        CachedResponse cached = semanticResponseCache.get(scope, advisedRequest.userText());
+        if (cached != null) {
+            log.debug("Semantic cache hit: {}", advisedRequest.userText());
+            return ResponseCacheAdvisor.toAdvisedResponse(cached, advisedRequest.adviseContext());
+        }
+        long start = System.currentTimeMillis();
+        AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+        semanticResponseCache.put(scope, advisedRequest.userText(),
+                advisedResponse.response().getResult().getOutput().getText(),
+                System.currentTimeMillis() - start);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        if (this.bypass(advisedRequest)) {
+            return chain.nextAroundStream(advisedRequest);
+        }
+        String scope = SemanticResponseCache.scopeOf(advisedRequest);
+        CachedResponse cached = semanticResponseCache.get(scope, advisedRequest.userText());
+        if (cached != null) {
+            return Flux.just(ResponseCacheAdvisor.toAdvisedResponse(cached, advisedRequest.adviseContext()));
+        }
+        long start = System.currentTimeMillis();
+        Flux<AdvisedResponse> advisedResponses = chain.nextAroundStream(advisedRequest);
+        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses,
+                response -> semanticResponseCache.put(scope, advisedRequest.userText(),
+                        response.response().getResult().getOutput().getText(),
+                        System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,59 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.cache.ResponseCacheKey;
+import com.lb.aiagent.concurrent.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * 请求合并拦截器
+ * 排在缓存之后，缓存键相同（系统提示词、用户输入、上下文、模型参数都相同）的并发请求只调用一次模型
+ */
+@Slf4j
+public class SingleFlightAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private final SingleFlight<String, AdvisedResponse> calls = new SingleFlight<>();
+
+    private final SingleFlight<String, AdvisedResponse> streams = new SingleFlight<>();
+
+    private final Counter coalesced;
+
+    public SingleFlightAdvisor(MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("ai.single.flight.coalesced")
+                .description("复用了进行中调用的请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return 300;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        String key = ResponseCacheKey.of(advisedRequest);
+        SingleFlight.Result<AdvisedResponse> result = calls.execute(key, () -> chain.nextAroundCall(advisedRequest));
+        if (!result.shared()) {
+            return result.value();
+        }
+        coalesced.increment();
+        log.debug("Coalesced call {}", key);
+        // 共享模型结果，上下文保持为当前请求自己的
+        return new AdvisedResponse(result.value().response(), advisedRequest.adviseContext());
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        String key = ResponseCacheKey.of(advisedRequest);
+        return streams.stream(key, () -> chain.nextAroundStream(advisedRequest), coalesced::increment)
+                .map(response -> new AdvisedResponse(response.response(), advisedRequest.adviseContext()));
+    }
+}
@@ -0,0 +1,244 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.usage.ConversationUsageStore;
+import com.lb.aiagent.utils.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+
+/**
+ * 模型调用指标拦截器
+ * 流式调用记录首包耗时、分片间隔和输出速率（首包之后每秒输出的 token 数），同步和流式都记录 token 用量。
+ * 指标按模型和入口（上下文参数 {@link #ENDPOINT_KEY}）区分，并按会话累计用量。
+ * 排在其他拦截器之后，命中缓存等未调用模型的请求不计入
+ */
+public class StreamMetricsAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * 上下文参数：调用入口，如 chat、chat_stream、report
+     */
+    public static final String ENDPOINT_KEY = "endpoint";
+
+    private static final String DEFAULT_MODEL = "default";
+
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 为 null 时不按会话累计用量
+     */
+    private final ConversationUsageStore usageStore;
+
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public StreamMetricsAdvisor(MeterRegistry meterRegistry, ConversationUsageStore usageStore) {
+        this.meterRegistry = meterRegistry;
+        this.usageStore = usageStore;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 紧挨在模型调用之前（ModelSpanAdvisor 为 LOWEST_PRECEDENCE - 1）
+        return Ordered.LOWEST_PRECEDENCE - 2;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+        ChatResponse response = advisedResponse.response();
+        Meters meters = this.meters(advisedRequest);
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        long promptTokens = promptTokens(usage, advisedRequest);
+        long completionTokens = completionTokens(usage, text(response));
+        this.recordUsage(meters, advisedRequest, promptTokens, completionTokens);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return Flux.defer(() -> {
+            Meters meters = this.meters(advisedRequest);
+            StreamState state = new StreamState(meters, System.nanoTime());
+            return chain.nextAroundStream(advisedRequest)
+                    .doOnNext(advisedResponse -> state.onChunk(advisedResponse.response()))
+                    .doFinally(signal -> this.onStreamEnd(advisedRequest, state));
+        });
+    }
+
+    private void onStreamEnd(AdvisedRequest advisedRequest, StreamState state) {
+        long promptTokens = promptTokens(state.usage, advisedRequest);
+        long completionTokens = completionTokens(state.usage, state.text.toString());
+        long generating = state.lastChunkNanos - state.firstChunkNanos;
+        // 只有一个分片时没有生成时长，不记录速率
+        if (generating > 0 && completionTokens > 1) {
+            state.meters.outputRate.record((completionTokens - 1) * 1e9 / generating);
+        }
+        this.recordUsage(state.meters, advisedRequest, promptTokens, completionTokens);
+    }
+
+    private void recordUsage(Meters meters, AdvisedRequest advisedRequest, long promptTokens, long completionTokens) {
+        meters.promptTokens.increment(promptTokens);
+        meters.completionTokens.increment(completionTokens);
+        Object conversationId = advisedRequest.adviseContext().get(CHAT_MEMORY_CONVERSATION_ID_KEY);
+        if (usageStore != null && conversationId != null) {
+            usageStore.add(conversationId.toString(), promptTokens, completionTokens);
+        }
+    }
+
+    /**
+     * 模型名取请求选项（即路由后的模型），同步和流式调用用同一来源，
+     * 不取响应元数据：流式调用在首包前就要确定指标，且响应中的模型名可能带版本后缀
+     */
+    private Meters meters(AdvisedRequest advisedRequest) {
+        ChatOptions options = advisedRequest.chatOptions();
+        String model = options != null && options.getModel() != null && !options.getModel().isEmpty()
+                ? options.getModel() : DEFAULT_MODEL;
+        Object endpoint = advisedRequest.adviseContext().getOrDefault(ENDPOINT_KEY, UNKNOWN_ENDPOINT);
+        return meters.computeIfAbsent(model + "|" + endpoint, k -> new Meters(meterRegistry, model, endpoint.toString()));
+    }
+
+    /**
+     * 用量中没有 token 数时按文本估算
+     */
+    private static long promptTokens(Usage usage, AdvisedRequest advisedRequest) {
+        Long tokens = usage != null ? usage.getPromptTokens() : null;
+        return tokens != null && tokens > 0 ? tokens : TokenEstimator.estimate(advisedRequest);
+    }
+
+    private static long completionTokens(Usage usage, String text) {
+        Long tokens = usage != null ? usage.getGenerationTokens() : null;
+        return tokens != null && tokens > 0 ? tokens : TokenEstimator.estimate(text);
+    }
+
+    private static String text(ChatResponse response) {
+        if (response == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Generation generation : response.getResults()) {
+            if (generation.getOutput().getText() != null) {
+                text.append(generation.getOutput().getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 一次流式调用的状态，分片按顺序到达，不需要同步
+     */
+    private static class StreamState {
+
+        private final Meters meters;
+
+        private final long startNanos;
+
+        private long firstChunkNanos;
+
+        private long lastChunkNanos;
+
+        private Usage usage;
+
+        private final StringBuilder text = new StringBuilder();
+
+        StreamState(Meters meters, long startNanos) {
+            this.meters = meters;
+            this.startNanos = startNanos;
+        }
+
+        void onChunk(ChatResponse response) {
+            if (response == null) {
+                return;
+            }
+            // DashScope 每个分片的用量都是截至当前的累计值，取最后一个
+            Usage chunkUsage = response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+            if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                usage = chunkUsage;
+            }
+            String chunk = text(response);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            text.append(chunk);
+            long now = System.nanoTime();
+            if (firstChunkNanos == 0) {
+                firstChunkNanos = now;
+                meters.ttft.record(now - startNanos, TimeUnit.NANOSECONDS);
+            } else {
+                meters.gap.record(now - lastChunkNanos, TimeUnit.NANOSECONDS);
+            }
+            lastChunkNanos = now;
+        }
+    }
+
+    /**
+     * 一组模型、入口对应的指标
+     */
+    private static class Meters {
+
+        private final Timer ttft;
+
+        private final Timer gap;
+
+        private final DistributionSummary outputRate;
+
+        private final Counter promptTokens;
+
+        private final Counter completionTokens;
+
+        Meters(MeterRegistry meterRegistry, String model, String endpoint) {
+            this.ttft = Timer.builder("ai.model.ttft")
+                    .description("流式调用的首包耗时")
+                    .tags("model", model, "endpoint", endpoint)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(50))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+            this.gap = Timer.builder("ai.model.chunk.gap")
+                    .description("流式调用相邻分片的间隔")
+                    .tags("model", model, "endpoint", endpoint)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+            this.outputRate = DistributionSummary.builder("ai.model.output.rate")
+                    .description("首包之后每秒输出的 token 数")
+                    .baseUnit("tokens/s")
+                    .tags("model", model, "endpoint", endpoint)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(1000.0)
+                    .register(meterRegistry);
+            this.promptTokens = tokens(meterRegistry, model, endpoint, "prompt");
+            this.completionTokens = tokens(meterRegistry, model, endpoint, "completion");
+        }
+
+        private static Counter tokens(MeterRegistry meterRegistry, String model, String endpoint, String type) {
+            return Counter.builder("ai.model.tokens")
+                    .description("模型调用消耗的 token 数")
+                    .baseUnit("tokens")
+                    .tags("model", model, "endpoint", endpoint, "type", type)
+                    .register(meterRegistry);
+        }
+    }
+}
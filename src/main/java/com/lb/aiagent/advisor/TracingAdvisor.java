@@ -0,0 +1,146 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.config.AdvisorTracingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.chat.client.advisor.api.*;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 拦截器耗时追踪包装
+ * 包装链上的一个拦截器，名称和顺序与原拦截器一致。总耗时为进入该拦截器到返回，
+ * 自身耗时为总耗时减去调用下游（后续拦截器和模型）的时间。
+ * 流式调用中拦截器对每个分片的处理与下游交错进行，自身耗时只包含订阅前和下游结束后的处理
+ */
+public class TracingAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * Reactor 上下文中当前 Observation 的 key（ObservationThreadLocalAccessor.KEY），下游据此建立父子关系
+     */
+    static final String OBSERVATION_CONTEXT_KEY = "micrometer.observation";
+
+    private final Advisor delegate;
+
+    private final ObservationRegistry observationRegistry;
+
+    private final Timer callTotal;
+
+    private final Timer callSelf;
+
+    private final Timer streamTotal;
+
+    private final Timer streamSelf;
+
+    public TracingAdvisor(Advisor delegate, MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.delegate = delegate;
+        this.observationRegistry = observationRegistry;
+        this.callTotal = timer(meterRegistry, "ai.advisor.total", delegate.getName(), "call");
+        this.callSelf = timer(meterRegistry, "ai.advisor.self", delegate.getName(), "call");
+        this.streamTotal = timer(meterRegistry, "ai.advisor.total", delegate.getName(), "stream");
+        this.streamSelf = timer(meterRegistry, "ai.advisor.self", delegate.getName(), "stream");
+    }
+
+    /**
+     * 包装拦截器链，并在最后加上记录模型调用的 {@link ModelSpanAdvisor}
+     */
+    public static List<Advisor> wrap(List<Advisor> advisors, AdvisorTracingProperties properties,
+                                     MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        ObservationRegistry registry = properties.isSpans() ? observationRegistry : ObservationRegistry.NOOP;
+        List<Advisor> wrapped = new ArrayList<>(advisors.size() + 1);
+        for (Advisor advisor : advisors) {
+            wrapped.add(new TracingAdvisor(advisor, meterRegistry, registry));
+        }
+        wrapped.add(new ModelSpanAdvisor(meterRegistry, registry));
+        return wrapped;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String advisor, String mode) {
+        return Timer.builder(name)
+                .description("ai.advisor.total".equals(name) ? "拦截器总耗时（含下游）" : "拦截器自身耗时（不含下游）")
+                .tag("advisor", advisor)
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        if (!(delegate instanceof CallAroundAdvisor callAdvisor)) {
+            return chain.nextAroundCall(advisedRequest);
+        }
+        long[] downstream = new long[1];
+        CallAroundAdvisorChain timedChain = request -> {
+            long start = System.nanoTime();
+            try {
+                return chain.nextAroundCall(request);
+            } finally {
+                downstream[0] += System.nanoTime() - start;
+            }
+        };
+        Observation observation = this.observation();
+        long start = System.nanoTime();
+        try {
+            return observation.observe(() -> callAdvisor.aroundCall(advisedRequest, timedChain));
+        } finally {
+            long total = System.nanoTime() - start;
+            callTotal.record(total, TimeUnit.NANOSECONDS);
+            callSelf.record(total - downstream[0], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        if (!(delegate instanceof StreamAroundAdvisor streamAdvisor)) {
+            return chain.nextAroundStream(advisedRequest);
+        }
+        return Flux.deferContextual(context -> {
+            AtomicLong downstream = new AtomicLong();
+            StreamAroundAdvisorChain timedChain = request -> Flux.defer(() -> {
+                long start = System.nanoTime();
+                return chain.nextAroundStream(request)
+                        .doFinally(signal -> downstream.addAndGet(System.nanoTime() - start));
+            });
+            // 流式调用跨线程执行，父 Observation 从 Reactor 上下文获取
+            Observation observation = this.observation();
+            Observation parent = context.getOrDefault(OBSERVATION_CONTEXT_KEY, null);
+            if (parent != null) {
+                observation.parentObservation(parent);
+            }
+            observation.start();
+            long start = System.nanoTime();
+            Flux<AdvisedResponse> responses = streamAdvisor.aroundStream(advisedRequest, timedChain)
+                    .doOnError(observation::error)
+                    .doFinally(signal -> {
+                        long total = System.nanoTime() - start;
+                        streamTotal.record(total, TimeUnit.NANOSECONDS);
+                        streamSelf.record(Math.max(total - downstream.get(), 0), TimeUnit.NANOSECONDS);
+                        observation.stop();
+                    });
+            return observation.isNoop()
+                    ? responses
+                    : responses.contextWrite(ctx -> ctx.put(OBSERVATION_CONTEXT_KEY, observation));
+        });
+    }
+
+    private Observation observation() {
+        return Observation.createNotStarted("ai.advisor", observationRegistry)
+                .contextualName(delegate.getName())
+                .lowCardinalityKeyValue("advisor", delegate.getName());
+    }
+}
@@ -0,0 +1,180 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.chatmemory.VectorMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisedResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.MessageAggregator;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 向量检索记忆拦截器
+ * 在最近 N 条记忆之外，按语义相似度召回更早的相关对话轮次，一并放入上下文。
+ * 记忆过期或被清空后索引的下标不再对应，下次访问时丢弃旧索引并按现有记忆重建
+ */
+@Slf4j
+public class VectorMemoryAdvisor extends AbstractChatMemoryAdvisor<ChatMemory> {
+
+    private final VectorMemoryStore vectorMemoryStore;
+
+    public VectorMemoryAdvisor(ChatMemory chatMemory, VectorMemoryStore vectorMemoryStore) {
+        super(new IndexedChatMemory(chatMemory, vectorMemoryStore));
+        this.vectorMemoryStore = vectorMemoryStore;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        String conversationId = this.doGetConversationId(advisedRequest.adviseContext());
+
+        advisedRequest = this.before(advisedRequest);
+
+        AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+
+        this.observeAfter(advisedResponse, conversationId);
+
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        String conversationId = this.doGetConversationId(advisedRequest.adviseContext());
+
+        Flux<AdvisedResponse> advisedResponses = this.doNextWithProtectFromBlockingBefore(advisedRequest, chain,
+                this::before);
+
+        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses,
+                response -> this.observeAfter(response, conversationId));
+    }
+
+    private AdvisedRequest before(AdvisedRequest request) {
+        String conversationId = this.doGetConversationId(request.adviseContext());
+        int retrieveSize = this.doGetChatMemoryRetrieveSize(request.adviseContext());
+
+        List<Message> history = this.getChatMemoryStore().get(conversationId, Integer.MAX_VALUE);
+        int tailStart = Math.max(history.size() - retrieveSize, 0);
+
+        List<Message> advisedMessages = new ArrayList<>(request.messages());
+        if (tailStart > 0) {
+            advisedMessages.addAll(this.recall(conversationId, history, tailStart, request.userText()));
+        }
+        advisedMessages.addAll(history.subList(tailStart, history.size()));
+
+        AdvisedRequest advisedRequest = AdvisedRequest.from(request).messages(advisedMessages).build();
+
+        this.getChatMemoryStore().add(conversationId, new UserMessage(request.userText(), request.media()));
+
+        return advisedRequest;
+    }
+
+    /**
+     * 保存助手回复，并把本轮对话写入向量索引
+     */
+    private void observeAfter(AdvisedResponse advisedResponse, String conversationId) {
+        List<Message> assistantMessages = advisedResponse.response()
+                .getResults()
+                .stream()
+                .map(g -> (Message) g.getOutput())
+                .toList();
+        this.getChatMemoryStore().add(conversationId, assistantMessages);
+
+        List<Message> history = this.getChatMemoryStore().get(conversationId, Integer.MAX_VALUE);
+        this.indexHistory(conversationId, history);
+    }
+
+    /**
+     * 召回 tailStart 之前的相关对话轮次
+     */
+    private List<Message> recall(String conversationId, List<Message> history, int tailStart, String query) {
+        VectorMemoryStore.ConversationIndex index = this.indexHistory(conversationId, history);
+        List<Integer> offsets = index.search(query, tailStart);
+        List<Message> recalled = new ArrayList<>(offsets.size() * 2);
+        for (int offset : offsets) {
+            recalled.add(history.get(offset));
+            if (offset + 1 < tailStart && history.get(offset + 1).getMessageType() == MessageType.ASSISTANT) {
+                recalled.add(history.get(offset + 1));
+            }
+        }
+        log.debug("Recalled {} turns for conversation {}", offsets.size(), conversationId);
+        return recalled;
+    }
+
+    /**
+     * 把尚未索引的对话轮次写入索引（服务重启后首次访问时回填全部历史）
+     */
+    private VectorMemoryStore.ConversationIndex indexHistory(String conversationId, List<Message> history) {
+        VectorMemoryStore.ConversationIndex index = vectorMemoryStore.getOrCreate(conversationId);
+        int lastOffset = index.lastOffset();
+        // 记忆过期或被清空：历史比索引短，或者同一下标处已是另一轮对话
+        if (lastOffset >= 0 && (history.size() <= lastOffset
+                || !Objects.equals(turnText(history, lastOffset), index.lastText()))) {
+            log.info("Rebuilding vector memory index for conversation {}", conversationId);
+            vectorMemoryStore.remove(conversationId);
+            index = vectorMemoryStore.getOrCreate(conversationId);
+        }
+        for (int i = index.lastOffset() + 1; i < history.size(); i++) {
+            if (history.get(i).getMessageType() != MessageType.USER) {
+                continue;
+            }
+            String text = turnText(history, i);
+            if (text == null) {
+                // 只有用户消息、还没有回复的轮次等回复写入后再索引
+                break;
+            }
+            index.add(i, text);
+        }
+        return index;
+    }
+
+    /**
+     * 下标 i 处用户消息所在轮次的索引文本，最后一条且还没有回复时返回 null
+     */
+    private static String turnText(List<Message> history, int i) {
+        String text = history.get(i).getText();
+        if (i + 1 < history.size() && history.get(i + 1).getMessageType() == MessageType.ASSISTANT) {
+            return text + "\n" + history.get(i + 1).getText();
+        }
+        return i == history.size() - 1 ? null : text;
+    }
+
+    /**
+     * 清空会话记忆时一并丢弃向量索引
+     */
+    private static class IndexedChatMemory implements ChatMemory {
+
+        private final ChatMemory delegate;
+
+        private final VectorMemoryStore vectorMemoryStore;
+
+        private IndexedChatMemory(ChatMemory delegate, VectorMemoryStore vectorMemoryStore) {
+            this.delegate = delegate;
+            this.vectorMemoryStore = vectorMemoryStore;
+        }
+
+        @Override
+        public void add(String conversationId, List<Message> messages) {
+            delegate.add(conversationId, messages);
+        }
+
+        @Override
+        public List<Message> get(String conversationId, int lastN) {
+            return delegate.get(conversationId, lastN);
+        }
+
+        @Override
+        public void clear(String conversationId) {
+            delegate.clear(conversationId);
+            vectorMemoryStore.remove(conversationId);
+        }
+    }
+}
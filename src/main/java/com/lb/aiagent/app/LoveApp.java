@@ -1,16 +1,67 @@
 package com.lb.aiagent.app;
 
+import cn.hutool.crypto.digest.DigestUtil;
+import com.lb.aiagent.advisor.ConcurrencyLimitAdvisor;
+import com.lb.aiagent.advisor.KnowledgeRetrievalAdvisor;
+import com.lb.aiagent.advisor.ModelCallEventAdvisor;
+import com.lb.aiagent.advisor.ModelRoutingAdvisor;
 import com.lb.aiagent.advisor.MyLoggerAdvisor;
 import com.lb.aiagent.advisor.ProhibitedWordsAdvisor;
+import com.lb.aiagent.advisor.PromptCompressionAdvisor;
+import com.lb.aiagent.advisor.ResponseCacheAdvisor;
+import com.lb.aiagent.advisor.SemanticCacheAdvisor;
+import com.lb.aiagent.advisor.SingleFlightAdvisor;
+import com.lb.aiagent.advisor.StreamMetricsAdvisor;
+import com.lb.aiagent.advisor.TracingAdvisor;
+import com.lb.aiagent.advisor.VectorMemoryAdvisor;
+import com.lb.aiagent.audit.AuditLog;
+import com.lb.aiagent.cache.ResponseCache;
+import com.lb.aiagent.cache.SemanticResponseCache;
 import com.lb.aiagent.chatmemory.RedisChatMemory;
+import com.lb.aiagent.chatmemory.VectorMemoryStore;
+import com.lb.aiagent.chatmodel.DashScopeHttpChatModel;
+import com.lb.aiagent.chatmodel.HedgingChatModel;
+import com.lb.aiagent.concurrent.ConversationScheduler;
+import com.lb.aiagent.concurrent.ModelConcurrencyLimiter;
+import com.lb.aiagent.concurrent.Priority;
+import com.lb.aiagent.config.AdvisorTracingProperties;
+import com.lb.aiagent.config.ConcurrencyLimitProperties;
+import com.lb.aiagent.config.DashScopeHttpProperties;
+import com.lb.aiagent.config.HedgingProperties;
+import com.lb.aiagent.config.KnowledgeProperties;
+import com.lb.aiagent.config.ModelRoutingProperties;
+import com.lb.aiagent.config.PromptCompressionProperties;
+import com.lb.aiagent.config.ReportProperties;
+import com.lb.aiagent.config.ResponseCacheProperties;
+import com.lb.aiagent.config.SemanticCacheProperties;
+import com.lb.aiagent.config.StreamMetricsProperties;
+import com.lb.aiagent.config.VectorMemoryProperties;
+import com.lb.aiagent.jfr.ChatTurnRecorder;
+import com.lb.aiagent.rag.LocalDocumentStore;
+import com.lb.aiagent.report.ConversationReportStore;
+import com.lb.aiagent.report.ReportSnapshot;
+import com.lb.aiagent.structured.IncrementalJsonParser;
+import com.lb.aiagent.structured.StructuredOutput;
+import com.lb.aiagent.structured.StructuredOutputRegistry;
+import com.lb.aiagent.usage.ConversationUsageStore;
+import com.lb.aiagent.utils.JacksonUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY;
@@ -21,6 +72,8 @@ public class LoveApp {
 
     private ChatClient chatClient;
 
+    private final ConversationScheduler conversationScheduler;
+
     private static final String SYSTEM_PROMPT = """
             扮演深耕恋爱心理领域的专家。开场向用户表明身份，告知用户可倾诉恋爱难题。
             围绕单身、恋爱、已婚三种状态提问：单身状态询问社交圈拓展及追求心仪对象的困扰；
@@ -28,46 +81,256 @@ public class LoveApp {
             引导用户详述事情经过、对方反应及自身想法，以便给出专属解决方案。
             """;
 
-    public LoveApp(ChatModel dashscopeChatModel) {
+    private static final String REPORT_SYSTEM_PROMPT = SYSTEM_PROMPT + "每次对话后都要生成恋爱结果，标题为{用户名}的恋爱报告，内容为建议列表";
+
+    /**
+     * 恋爱报告的转换器和提示词，启动时生成一次
+     */
+    private final StructuredOutput<LoveReport> loveReportOutput;
+
+    private final RedisChatMemory redisChatMemory;
+
+    private final ReportProperties reportProperties;
+
+    private final ConversationReportStore reportStore;
+
+    /**
+     * 增量更新报告时附在系统提示词后的说明，不随用户输入写入记忆
+     */
+    private static final String INCREMENTAL_REPORT_HINT = "（上下文中第一条回复是之前生成的报告，请在其基础上结合之后的对话更新报告）";
+
+    public LoveApp(ChatModel dashscopeChatModel,
+                   VectorMemoryProperties vectorMemoryProperties,
+                   VectorMemoryStore vectorMemoryStore,
+                   KnowledgeProperties knowledgeProperties,
+                   LocalDocumentStore localDocumentStore,
+                   ResponseCacheProperties responseCacheProperties,
+                   ResponseCache responseCache,
+                   SemanticCacheProperties semanticCacheProperties,
+                   SemanticResponseCache semanticResponseCache,
+                   @Value("${ai-agent.single-flight.enabled:false}") boolean singleFlightEnabled,
+                   MeterRegistry meterRegistry,
+                   ConversationScheduler conversationScheduler,
+                   ConcurrencyLimitProperties concurrencyLimitProperties,
+                   ModelConcurrencyLimiter modelConcurrencyLimiter,
+                   HedgingProperties hedgingProperties,
+                   ModelRoutingProperties modelRoutingProperties,
+                   StructuredOutputRegistry structuredOutputRegistry,
+                   ReportProperties reportProperties,
+                   ConversationReportStore reportStore,
+                   DashScopeHttpProperties dashScopeHttpProperties,
+                   AdvisorTracingProperties advisorTracingProperties,
+                   ObservationRegistry observationRegistry,
+                   StreamMetricsProperties streamMetricsProperties,
+                   ConversationUsageStore conversationUsageStore,
+                   AuditLog auditLog,
+                   PromptCompressionProperties promptCompressionProperties) {
+        this.conversationScheduler = conversationScheduler;
+        this.loveReportOutput = structuredOutputRegistry.register(LoveReport.class, REPORT_SYSTEM_PROMPT);
+        this.reportProperties = reportProperties;
+        this.reportStore = reportStore;
 //        String fileDit = System.getProperty("user.dir") + "/chat-memory";
 //        FileBasedChatMemory fileBasedChatMemory = new FileBasedChatMemory(fileDit);
 
-        RedisChatMemory redisChatMemory = new RedisChatMemory();
-        chatClient = ChatClient.builder(dashscopeChatModel)
+        this.redisChatMemory = new RedisChatMemory();
+        // 开启向量检索记忆时，除最近 N 条外还会召回更早的相关对话
+        Advisor memoryAdvisor = vectorMemoryProperties.isEnabled()
+                ? new VectorMemoryAdvisor(redisChatMemory, vectorMemoryStore)
+                : new MessageChatMemoryAdvisor(redisChatMemory);
+        List<Advisor> advisors = new ArrayList<>(List.of(
+                memoryAdvisor,
+                // 自定义日志拦截器，请求和回答写入异步审计日志
+                new MyLoggerAdvisor(auditLog),
+                new ProhibitedWordsAdvisor()
+        ));
+        // 知识库检索，只注入与问题相关的段落，避免把长文本写进系统提示词
+        if (knowledgeProperties.isEnabled()) {
+            advisors.add(new KnowledgeRetrievalAdvisor(localDocumentStore));
+        }
+        // 首轮问候、常见问题等完全相同的请求直接返回缓存的回答
+        if (responseCacheProperties.isEnabled()) {
+            advisors.add(new ResponseCacheAdvisor(responseCache, responseCacheProperties));
+        }
+        // 措辞不同但意思相同的问题按向量相似度命中缓存
+        if (semanticCacheProperties.isEnabled()) {
+            advisors.add(new SemanticCacheAdvisor(semanticResponseCache, semanticCacheProperties));
+        }
+        // 相同请求并发到达（突发流量、客户端重试）时只调用一次模型
+        if (singleFlightEnabled) {
+            advisors.add(new SingleFlightAdvisor(meterRegistry));
+        }
+        // 按输入 token 预算压缩上下文，短问题重读一遍，排在路由之前
+        if (promptCompressionProperties.isEnabled()) {
+            advisors.add(new PromptCompressionAdvisor(promptCompressionProperties, meterRegistry));
+        }
+        // 简单问题走低成本模型，长上下文、报告生成走高配模型
+        if (modelRoutingProperties.isEnabled()) {
+            advisors.add(new ModelRoutingAdvisor(modelRoutingProperties, modelConcurrencyLimiter, meterRegistry));
+        }
+        // 按模型自适应限制并发，模型变慢时收紧上限，排不上队的请求快速失败
+        if (concurrencyLimitProperties.isEnabled()) {
+            advisors.add(new ConcurrencyLimitAdvisor(modelConcurrencyLimiter, meterRegistry));
+        }
+        // 模型调用的 JFR 事件，未开启录制时几乎没有开销
+        advisors.add(new ModelCallEventAdvisor());
+        // 首包耗时、输出速率和 token 用量，按会话累计用量用于成本核算
+        if (streamMetricsProperties.isEnabled()) {
+            advisors.add(new StreamMetricsAdvisor(meterRegistry,
+                    streamMetricsProperties.isAccounting() ? conversationUsageStore : null));
+        }
+        // 记录每个拦截器的自身耗时、总耗时和模型调用耗时
+        if (advisorTracingProperties.isEnabled()) {
+            advisors = TracingAdvisor.wrap(advisors, advisorTracingProperties, meterRegistry, observationRegistry);
+        }
+        // 共用一个连接池、按字节增量解析 SSE 的 DashScope 客户端
+        ChatModel baseChatModel = dashScopeHttpProperties.isEnabled()
+                ? new DashScopeHttpChatModel(dashScopeHttpProperties)
+                : dashscopeChatModel;
+        // 模型调用迟迟不返回时再发一次，降低长尾耗时
+        ChatModel chatModel = hedgingProperties.isEnabled()
+                ? new HedgingChatModel(baseChatModel, hedgingProperties, meterRegistry)
+                : baseChatModel;
+        chatClient = ChatClient.builder(chatModel)
                 .defaultSystem(SYSTEM_PROMPT)
-                .defaultAdvisors(
-                        new MessageChatMemoryAdvisor(redisChatMemory),
-                        // 自定义日志拦截器
-                        new MyLoggerAdvisor(),
-                        new ProhibitedWordsAdvisor()
-                )
-                .defaultAdvisors()
+                .defaultAdvisors(advisors)
                 .build();
     }
 
+    /**
+     * 同一会话的轮次按提交顺序串行执行，避免并发读写记忆
+     */
     public String doChat(String message, String chatId) {
+        return conversationScheduler.execute(chatId, message,
+                () -> ChatTurnRecorder.record(chatId, "chat", message, () -> this.chat(message, chatId)));
+    }
+
+    private String chat(String message, String chatId) {
         ChatResponse chatResponse = chatClient.prompt()
                 .user(message)
                 .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1))
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1)
+                        .param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat"))
                 .call()
                 .chatResponse();
         String text = chatResponse.getResult().getOutput().getText();
-        System.out.println(text);
+        log.debug("Chat response: {}", text);
         return text;
     }
 
+    /**
+     * 流式对话，模型每返回一段就推送一段，整段回答结束后由记忆拦截器写入记忆。
+     * 订阅取消（如客户端断开）会一直传递到模型调用
+     */
+    public Flux<String> doChatByStream(String message, String chatId) {
+        return conversationScheduler.executeStream(chatId, () -> ChatTurnRecorder.recordStream(chatId, "chat_stream",
+                message, () -> chatClient.prompt()
+                        .user(message)
+                        .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
+                                .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1)
+                                .param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat_stream"))
+                        .stream()
+                        .content()));
+    }
+
     public record LoveReport(String title, List<String> suggestions) {
     }
 
     public LoveReport doChatWithReport(String message, String chatId) {
+        return conversationScheduler.execute(chatId, null,
+                () -> ChatTurnRecorder.record(chatId, "report", message, () -> this.chatWithReport(message, chatId)));
+    }
+
+    /**
+     * 流式生成恋爱报告，边生成边解析：标题解析完成后先推送一次，之后每条建议完整生成后再推送一次。
+     * 每次推送的都是截至当前已解析的完整报告
+     */
+    public Flux<LoveReport> doChatWithReportByStream(String message, String chatId) {
+        return conversationScheduler.executeStream(chatId,
+                () -> ChatTurnRecorder.recordStream(chatId, "report_stream", message, () -> {
+            // 与 entity() 一样在用户输入后附上 JSON 格式要求
+            Flux<String> content = chatClient.prompt()
+                    .system(loveReportOutput.getSystemText())
+                    .user(message + System.lineSeparator() + loveReportOutput.getFormat())
+                    .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
+                            .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10)
+                            .param(Priority.CONTEXT_KEY, Priority.REPORT)
+                            .param(StreamMetricsAdvisor.ENDPOINT_KEY, "report_stream"))
+                    .stream()
+                    .content();
+            Flux<LoveReport> reports = IncrementalJsonParser.parse(content, LoveReport.class);
+            if (!reportProperties.isIncremental()) {
+                return reports;
+            }
+            // 流结束时记忆已写入本轮对话，保存最终报告供之后增量更新
+            AtomicReference<LoveReport> last = new AtomicReference<>();
+            return reports.doOnNext(last::set)
+                    .doOnComplete(() -> {
+                        if (last.get() != null) {
+                            this.saveReport(chatId, last.get(), DigestUtil.sha256Hex(message));
+                        }
+                    });
+        }));
+    }
+
+    private LoveReport chatWithReport(String message, String chatId) {
+        if (!reportProperties.isIncremental()) {
+            return this.generateReport(message, chatId, 10, List.of(), false);
+        }
+        // 同一会话的轮次由调度器串行执行，读取记忆到写回报告之间不会插入其他轮次
+        List<Message> history = redisChatMemory.get(chatId, Integer.MAX_VALUE);
+        String inputDigest = DigestUtil.sha256Hex(message);
+        ReportSnapshot snapshot = reportStore.get(chatId, LoveReport.class);
+        LoveReport report;
+        if (snapshot == null || !snapshot.covers(history)) {
+            // 没有报告，或记忆已过期重建（之前的消息对不上），全量生成
+            report = this.generateReport(message, chatId, 10, List.of(), false);
+        } else if (snapshot.offset() == history.size() && inputDigest.equals(snapshot.inputDigest())) {
+            // 没有新对话且输入相同，直接返回上次的报告
+            log.info("Report unchanged, chatId: {}", chatId);
+            return JacksonUtil.toObject(snapshot.report(), LoveReport.class);
+        } else {
+            // 只发送上次的报告和之后的新对话
+            List<Message> context = new ArrayList<>(history.size() - snapshot.offset() + 1);
+            context.add(new AssistantMessage(snapshot.report()));
+            context.addAll(history.subList(snapshot.offset(), history.size()));
+            log.info("Updating report incrementally with {} new messages, chatId: {}", context.size() - 1, chatId);
+            report = this.generateReport(message, chatId, 0, context, true);
+        }
+        this.saveReport(chatId, report, inputDigest);
+        return report;
+    }
+
+    /**
+     * 保存报告快照，覆盖到写入本轮对话后的全部记忆
+     */
+    private void saveReport(String chatId, LoveReport report, String inputDigest) {
+        List<Message> history = redisChatMemory.get(chatId, Integer.MAX_VALUE);
+        reportStore.put(chatId, LoveReport.class,
+                ReportSnapshot.of(JacksonUtil.toJsonString(report), inputDigest, history));
+    }
+
+    /**
+     * 调用模型生成报告
+     * @param retrieveSize 从记忆中取最近多少条消息
+     * @param context 额外放在记忆消息之前的上下文
+     * @param incremental 是否在上次报告的基础上更新，是时在系统提示词后附上说明（不写入记忆）
+     */
+    private LoveReport generateReport(String message, String chatId, int retrieveSize, List<Message> context,
+                                      boolean incremental) {
+        String systemText = incremental
+                ? loveReportOutput.getSystemText() + INCREMENTAL_REPORT_HINT
+                : loveReportOutput.getSystemText();
         return chatClient.prompt()
-                .system(SYSTEM_PROMPT + "每次对话后都要生成恋爱结果，标题为{用户名}的恋爱报告，内容为建议列表")
+                .system(systemText)
+                .messages(context)
                 .user(message)
                 .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10))
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, retrieveSize)
+                        // 报告生成开销大，模型繁忙时让位于交互式对话
+                        .param(Priority.CONTEXT_KEY, Priority.REPORT)
+                        .param(StreamMetricsAdvisor.ENDPOINT_KEY, "report"))
                 .call()
-                .entity(LoveReport.class);
+                .entity(loveReportOutput);
     }
 }
 
@@ -0,0 +1,286 @@
+package com.lb.aiagent.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lb.aiagent.config.AuditLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 对话审计日志
+ * 请求线程只把记录放入无锁环形缓冲区，缓冲区满时丢弃并计数，从不阻塞；
+ * 后台线程批量取出记录，按 JSON Lines 写入 gzip 压缩文件，文件达到上限后滚动，并删除超出保留数量的旧文件
+ */
+@Slf4j
+@Component
+public class AuditLog {
+
+    private static final String FILE_PREFIX = "audit-";
+
+    private static final String FILE_SUFFIX = ".jsonl.gz";
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * 没有记录时后台线程的轮询间隔
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final AuditLogProperties properties;
+
+    private final MpscRingBuffer<AuditRecord> buffer;
+
+    /**
+     * 每条记录写完 Jackson 默认会 flush 输出流，经 syncFlush 的 gzip 变成一次压缩块输出和文件写入，
+     * 关掉后只在刷新周期到达时 flush
+     */
+    private final ObjectWriter writer = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+            .writerFor(AuditRecord.class);
+
+    private final Counter accepted;
+
+    private final Counter dropped;
+
+    private final Counter written;
+
+    private final Counter truncated;
+
+    private final Counter writeErrors;
+
+    private final Counter flushes;
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    /**
+     * 以下字段只有后台线程访问
+     */
+    private OutputStream out;
+
+    private CountingOutputStream counting;
+
+    private long lastFlush = System.nanoTime();
+
+    private boolean dirty;
+
+    public AuditLog(AuditLogProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.accepted = counter(meterRegistry, "accepted");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.written = counter(meterRegistry, "written");
+        this.truncated = counter(meterRegistry, "truncated");
+        this.writeErrors = counter(meterRegistry, "error");
+        this.flushes = Counter.builder("ai.audit.flushes")
+                .description("审计日志文件的刷新次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.audit.buffer.size", buffer, MpscRingBuffer::size)
+                .description("审计日志缓冲区中待写入的记录数")
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            this.writerThread = Thread.ofPlatform().daemon().name("audit-log-writer").start(this::writeLoop);
+        } else {
+            this.writerThread = null;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai.audit.records")
+                .description("审计日志记录数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 记录一段文本，超长时按配置截断或只记录长度
+     * @return 缓冲区已满被丢弃时返回 false
+     */
+    public boolean record(String type, String conversationId, String source, String text) {
+        return this.record(type, conversationId, source, text, 0);
+    }
+
+    public boolean record(String type, String conversationId, String source, String text, int messages) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        int length = text == null ? 0 : text.length();
+        boolean cut = false;
+        if (length > properties.getMaxPayloadChars()) {
+            cut = true;
+            truncated.increment();
+            text = ThreadLocalRandom.current().nextDouble() < properties.getLargePayloadSampleRate()
+                    ? text.substring(0, properties.getMaxPayloadChars())
+                    : null;
+        }
+        AuditRecord record = new AuditRecord(System.currentTimeMillis(), type, conversationId, source, text, length,
+                cut, messages);
+        if (buffer.offer(record)) {
+            accepted.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            int count = buffer.drain(this::write, properties.getBatchSize());
+            if (count > 0) {
+                written.increment(count);
+                dirty = true;
+            }
+            if (dirty && System.nanoTime() - lastFlush >= properties.getFlushInterval().toNanos()) {
+                this.flush();
+            }
+            if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        // 停止后由写线程自己写完剩余记录，缓冲区始终只有这一个消费者
+        int count;
+        while ((count = buffer.drain(this::write, Integer.MAX_VALUE)) > 0) {
+            written.increment(count);
+        }
+        this.closeQuietly();
+    }
+
+    private void write(AuditRecord record) {
+        try {
+            if (out == null || counting.count >= properties.getMaxFileBytes()) {
+                this.rotate();
+            }
+            writer.writeValue(out, record);
+            out.write('\n');
+        } catch (IOException e) {
+            writeErrors.increment();
+            log.warn("Error writing audit record msg[{}]", e.getMessage());
+            this.closeQuietly();
+        }
+    }
+
+    private void flush() {
+        try {
+            if (out != null) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            writeErrors.increment();
+            log.warn("Error flushing audit log msg[{}]", e.getMessage());
+            this.closeQuietly();
+        }
+        dirty = false;
+        lastFlush = System.nanoTime();
+    }
+
+    private void rotate() throws IOException {
+        this.closeQuietly();
+        Path dir = Path.of(properties.getDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve(FILE_PREFIX + LocalDateTime.now().format(FILE_TIME) + FILE_SUFFIX);
+        // syncFlush 使 flush() 把已写入的记录压缩输出，进程异常退出时最多丢失一个刷新周期
+        counting = new CountingOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), 64 * 1024));
+        out = counting;
+        this.deleteOldFiles(dir);
+    }
+
+    private void deleteOldFiles(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(p -> p.getFileName().toString().startsWith(FILE_PREFIX)
+                            && p.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < files.size() - properties.getMaxFiles(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void closeQuietly() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Error closing audit log msg[{}]", e.getMessage());
+        }
+        out = null;
+        counting = null;
+    }
+
+    /**
+     * 停止后台线程，等待它写完缓冲区中剩余的记录
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (writerThread.isAlive()) {
+            // 不在当前线程接着写，避免与写线程同时消费缓冲区；写线程是守护线程，不阻止进程退出
+            log.warn("Audit log writer did not finish within 10s, {} records may be lost", buffer.size());
+        }
+    }
+
+    /**
+     * 统计写入的未压缩字节数，用于按大小滚动
+     */
+    private class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushes.increment();
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.lb.aiagent.audit;
+
+/**
+ * 一条审计记录，按 JSON Lines 写入文件
+ * @param timestamp 毫秒时间戳
+ * @param type request、response 或 context
+ * @param conversationId 会话 id
+ * @param source 产生记录的拦截器
+ * @param text 文本，超长时为截断后的内容，未被抽样保留时为 null
+ * @param length 原文长度
+ * @param truncated 是否截断或省略了内容
+ * @param messages 上下文消息条数，仅 context 类型
+ */
+public record AuditRecord(long timestamp, String type, String conversationId, String source, String text,
+                          int length, boolean truncated, int messages) {
+}
@@ -0,0 +1,95 @@
+package com.lb.aiagent.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形队列，多生产者、单消费者
+ * 每个槽位带一个序号：生产者 CAS 抢占写位置后写入元素并发布序号，消费者按序号判断槽位是否可读。
+ * 队列满时 offer 立即返回 false，不阻塞也不自旋等待
+ */
+public class MpscRingBuffer<T> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<T> elements;
+
+    /**
+     * 槽位序号：等于写位置时可写，等于写位置 + 1 时可读
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 只有消费者线程读写
+     */
+    private volatile long head;
+
+    public MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 入队
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(T element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // 该槽位上一轮的元素还没被消费
+                return false;
+            }
+            // 其他生产者已抢占该位置，重试
+        }
+    }
+
+    /**
+     * 出队最多 max 个元素，只能由消费者线程调用
+     * @return 出队的元素个数
+     */
+    public int drain(Consumer<T> consumer, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            T element = elements.get(index);
+            elements.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            count++;
+            consumer.accept(element);
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素个数的近似值
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, capacity()));
+    }
+}
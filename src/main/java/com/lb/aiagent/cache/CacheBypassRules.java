@@ -0,0 +1,41 @@
+package com.lb.aiagent.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+
+/**
+ * 回答缓存的跳过规则，个性化的请求不走缓存
+ */
+public class CacheBypassRules {
+
+    /**
+     * 请求参数中设置为 true 时跳过缓存
+     */
+    public static final String CACHE_BYPASS_KEY = "response_cache_bypass";
+
+    private CacheBypassRules() {
+    }
+
+    /**
+     * 是否跳过缓存：显式跳过、带附件、带工具调用、非首轮、输入过长
+     * @param request 请求
+     * @param firstTurnOnly 是否只缓存首轮
+     * @param maxQueryLength 用户输入最大长度
+     */
+    public static boolean bypass(AdvisedRequest request, boolean firstTurnOnly, int maxQueryLength) {
+        if (Boolean.TRUE.equals(request.adviseContext().get(CACHE_BYPASS_KEY))) {
+            return true;
+        }
+        if (CollUtil.isNotEmpty(request.media())) {
+            return true;
+        }
+        // 工具返回的是实时数据，同样的问题每次结果可能不同
+        if (CollUtil.isNotEmpty(request.functionNames()) || CollUtil.isNotEmpty(request.functionCallbacks())) {
+            return true;
+        }
+        if (firstTurnOnly && CollUtil.isNotEmpty(request.messages())) {
+            return true;
+        }
+        return request.userText() == null || request.userText().length() > maxQueryLength;
+    }
+}
@@ -0,0 +1,21 @@
+package com.lb.aiagent.cache;
+
+/**
+ * 缓存的回答
+ * @param text 回答文本
+ * @param latencyMs 生成该回答时的模型耗时，命中时计入节省的耗时
+ * @param expireAt 过期时间戳（毫秒）
+ */
+public record CachedResponse(String text, long latencyMs, long expireAt) {
+
+    public boolean isExpired(long now) {
+        return now >= expireAt;
+    }
+
+    /**
+     * 估算占用字节数
+     */
+    public long weight() {
+        return text.length() * 2L + 64;
+    }
+}
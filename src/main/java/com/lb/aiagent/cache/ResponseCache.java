@@ -0,0 +1,171 @@
+package com.lb.aiagent.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.lb.aiagent.config.ResponseCacheProperties;
+import com.lb.aiagent.utils.JacksonUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 两级回答缓存：进程内按字节数限制的 LRU + Redis
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    public static final String RESPONSE_CACHE_KEY = "CHAT:RESPONSE:CACHE:";
+
+    private final ResponseCacheProperties properties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final LinkedHashMap<String, CachedResponse> local = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long localBytes;
+
+    private final ReentrantLock localLock = new ReentrantLock();
+
+    private final Counter localHits;
+
+    private final Counter redisHits;
+
+    private final Counter misses;
+
+    private final Counter bypasses;
+
+    private final Counter evictions;
+
+    private final Timer savedLatency;
+
+    public ResponseCache(ResponseCacheProperties properties, StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.localHits = Counter.builder("ai.response.cache.requests").tag("result", "hit_local").register(meterRegistry);
+        this.redisHits = Counter.builder("ai.response.cache.requests").tag("result", "hit_redis").register(meterRegistry);
+        this.misses = Counter.builder("ai.response.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.bypasses = Counter.builder("ai.response.cache.requests").tag("result", "bypass").register(meterRegistry);
+        this.evictions = Counter.builder("ai.response.cache.evictions").register(meterRegistry);
+        this.savedLatency = Timer.builder("ai.response.cache.saved.latency")
+                .description("命中缓存时节省的模型耗时")
+                .register(meterRegistry);
+        meterRegistry.gauge("ai.response.cache.local.bytes", this, cache -> cache.localBytes);
+    }
+
+    /**
+     * 查询缓存
+     * @param key 缓存键
+     * @return 命中的回答，未命中返回 null
+     */
+    public CachedResponse get(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse cached;
+        localLock.lock();
+        try {
+            cached = local.get(key);
+            if (cached != null && cached.isExpired(now)) {
+                this.removeLocal(key);
+                cached = null;
+            }
+        } finally {
+            localLock.unlock();
+        }
+        if (cached != null) {
+            localHits.increment();
+            savedLatency.record(cached.latencyMs(), TimeUnit.MILLISECONDS);
+            return cached;
+        }
+        if (properties.isRedisEnabled()) {
+            cached = this.getFromRedis(key);
+            if (cached != null && !cached.isExpired(now)) {
+                this.putLocal(key, cached);
+                redisHits.increment();
+                savedLatency.record(cached.latencyMs(), TimeUnit.MILLISECONDS);
+                return cached;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param text 回答文本
+     * @param latencyMs 模型耗时
+     */
+    public void put(String key, String text, long latencyMs) {
+        if (StrUtil.isBlank(text) || text.length() > properties.getMaxResponseLength()) {
+            return;
+        }
+        Duration ttl = properties.getTtl();
+        CachedResponse cached = new CachedResponse(text, latencyMs, System.currentTimeMillis() + ttl.toMillis());
+        this.putLocal(key, cached);
+        if (properties.isRedisEnabled()) {
+            try {
+                stringRedisTemplate.opsForValue().set(RESPONSE_CACHE_KEY + key,
+                        JacksonUtil.toJsonString(cached), ttl.toSeconds(), TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Error writing response cache msg[{}]", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录一次跳过缓存
+     */
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    private CachedResponse getFromRedis(String key) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(RESPONSE_CACHE_KEY + key);
+            return StrUtil.isBlank(json) ? null : JacksonUtil.toObject(json, CachedResponse.class);
+        } catch (Exception e) {
+            // Redis 不可用时退化为只用本地缓存
+            log.warn("Error reading response cache msg[{}]", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putLocal(String key, CachedResponse cached) {
+        long maxBytes = properties.getLocalMaxBytes();
+        if (cached.weight() > maxBytes) {
+            return;
+        }
+        localLock.lock();
+        try {
+            this.removeLocal(key);
+            local.put(key, cached);
+            localBytes += cached.weight();
+            // 按访问顺序从最久未使用的开始淘汰，直到总字节数回到上限以内
+            Iterator<Map.Entry<String, CachedResponse>> iterator = local.entrySet().iterator();
+            while (localBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, CachedResponse> eldest = iterator.next();
+                localBytes -= eldest.getValue().weight();
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    private void removeLocal(String key) {
+        CachedResponse removed = local.remove(key);
+        if (removed != null) {
+            localBytes -= removed.weight();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.lb.aiagent.cache;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.ChatOptions;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 回答缓存键
+ * 由系统提示词、规范化后的用户输入、上下文消息和模型参数拼接后取 SHA-256
+ */
+public class ResponseCacheKey {
+
+    private static final char SEPARATOR = '\u0001';
+
+    private ResponseCacheKey() {
+    }
+
+    /**
+     * 计算请求的缓存键
+     * @param request 请求（需在记忆拦截器之后，保证上下文消息已填充）
+     * @return 十六进制摘要
+     */
+    public static String of(AdvisedRequest request) {
+        StringBuilder material = new StringBuilder(256);
+        material.append(request.systemText()).append(SEPARATOR);
+        appendParams(material, request.systemParams());
+        material.append(normalize(request.userText())).append(SEPARATOR);
+        appendParams(material, request.userParams());
+        for (Message message : request.messages()) {
+            material.append(message.getMessageType().name()).append(':')
+                    .append(message.getText()).append(SEPARATOR);
+        }
+        ChatOptions options = request.chatOptions();
+        if (options != null) {
+            material.append(options.getModel()).append(SEPARATOR)
+                    .append(options.getTemperature()).append(SEPARATOR)
+                    .append(options.getTopP()).append(SEPARATOR)
+                    .append(options.getMaxTokens());
+        }
+        return DigestUtil.sha256Hex(material.toString());
+    }
+
+    /**
+     * 规范化用户输入：去掉首尾空白和结尾标点，合并连续空白，英文转小写
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean whitespace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = sb.length() > 0;
+                continue;
+            }
+            if (whitespace) {
+                sb.append(' ');
+                whitespace = false;
+            }
+            sb.append(Character.toLowerCase(c));
+        }
+        int end = sb.length();
+        while (end > 0 && isTrailingPunctuation(sb.charAt(end - 1))) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    private static boolean isTrailingPunctuation(char c) {
+        return c == '?' || c == '？' || c == '!' || c == '！' || c == '.' || c == '。' || c == '~' || c == '～';
+    }
+
+    private static void appendParams(StringBuilder material, Map<String, Object> params) {
+        if (params != null && !params.isEmpty()) {
+            material.append(new TreeMap<>(params));
+        }
+        material.append(SEPARATOR);
+    }
+}
@@ -0,0 +1,213 @@
+package com.lb.aiagent.cache;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.lb.aiagent.chatmemory.HnswIndex;
+import com.lb.aiagent.config.SemanticCacheProperties;
+import com.lb.aiagent.embedding.EmbeddingProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 语义回答缓存
+ * 规范化后的用户输入转成向量，在进程内 HNSW 索引中查找相似问题，相似度超过阈值时直接返回缓存的回答。
+ * 按作用域（系统提示词、模板参数 + 模型）分别建索引，系统提示词变化后旧作用域自然不再命中，闲置超过有效期后被清理。
+ */
+@Slf4j
+@Component
+public class SemanticResponseCache {
+
+    private final EmbeddingProvider embeddingProvider;
+
+    private final SemanticCacheProperties properties;
+
+    private final Map<String, ScopeIndex> scopes = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Timer lookupTimer;
+
+    private final Timer savedLatency;
+
+    public SemanticResponseCache(EmbeddingProvider embeddingProvider, SemanticCacheProperties properties, MeterRegistry meterRegistry) {
+        this.embeddingProvider = embeddingProvider;
+        this.properties = properties;
+        this.hits = Counter.builder("ai.semantic.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ai.semantic.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.lookupTimer = Timer.builder("ai.semantic.cache.lookup")
+                .description("向量化 + 索引查询耗时")
+                .register(meterRegistry);
+        this.savedLatency = Timer.builder("ai.semantic.cache.saved.latency")
+                .description("命中缓存时节省的模型耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 计算请求的作用域：系统提示词、系统参数、用户参数和模型都相同的请求才会互相命中
+     */
+    public static String scopeOf(AdvisedRequest request) {
+        StringBuilder material = new StringBuilder();
+        material.append(request.systemText()).append('\u0001');
+        appendParams(material, request.systemParams());
+        // 用户参数会渲染进用户输入的模板，参数不同时问题的实际含义不同
+        appendParams(material, request.userParams());
+        ChatOptions options = request.chatOptions();
+        if (options != null) {
+            material.append('\u0001').append(options.getModel());
+        }
+        return DigestUtil.sha256Hex(material.toString());
+    }
+
+    private static void appendParams(StringBuilder material, Map<String, Object> params) {
+        if (params != null && !params.isEmpty()) {
+            material.append(new TreeMap<>(params));
+        }
+        material.append('\u0001');
+    }
+
+    /**
+     * 查找相似问题的回答
+     * @param scope 作用域
+     * @param query 用户输入
+     * @return 命中的回答，未命中返回 null
+     */
+    public CachedResponse get(String scope, String query) {
+        long start = System.nanoTime();
+        CachedResponse cached = null;
+        ScopeIndex index = scopes.get(scope);
+        if (index != null) {
+            cached = index.find(this.embed(query), System.currentTimeMillis());
+        }
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        savedLatency.record(cached.latencyMs(), TimeUnit.MILLISECONDS);
+        return cached;
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String scope, String query, String text, long latencyMs) {
+        if (StrUtil.isBlank(text)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        this.evictIdleScopes(now);
+        CachedResponse cached = new CachedResponse(text, latencyMs, now + properties.getTtl().toMillis());
+        scopes.computeIfAbsent(scope, k -> new ScopeIndex()).add(this.embed(query), cached, now);
+    }
+
+    /**
+     * 清除某个作用域的缓存
+     */
+    public void invalidate(String scope) {
+        scopes.remove(scope);
+    }
+
+    public void clear() {
+        scopes.clear();
+    }
+
+    private float[] embed(String query) {
+        return embeddingProvider.embed(ResponseCacheKey.normalize(query));
+    }
+
+    private void evictIdleScopes(long now) {
+        long ttl = properties.getTtl().toMillis();
+        scopes.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > ttl);
+    }
+
+    /**
+     * 单个作用域的索引，HNSW 不支持删除，过期条目在查询时跳过，条目数达到上限时重建
+     */
+    private class ScopeIndex {
+
+        private HnswIndex index = new HnswIndex(embeddingProvider.dimensions(), 16, 64);
+
+        private List<CachedResponse> entries = new ArrayList<>();
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        CachedResponse find(float[] vector, long now) {
+            lastAccess = now;
+            lock.readLock().lock();
+            try {
+                for (HnswIndex.SearchResult result : index.search(vector, 3, properties.getEfSearch())) {
+                    if (result.similarity() < properties.getSimilarityThreshold()) {
+                        break;
+                    }
+                    CachedResponse cached = entries.get(result.node());
+                    if (!cached.isExpired(now)) {
+                        return cached;
+                    }
+                }
+                return null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(float[] vector, CachedResponse cached, long now) {
+            lastAccess = now;
+            lock.writeLock().lock();
+            try {
+                if (entries.size() >= properties.getMaxEntries()) {
+                    this.rebuild(now);
+                }
+                index.add(vector);
+                entries.add(cached);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 丢弃过期条目，仍然过多时只保留最新的一半
+         */
+        private void rebuild(long now) {
+            int keepFrom = 0;
+            int alive = 0;
+            for (CachedResponse entry : entries) {
+                if (!entry.isExpired(now)) {
+                    alive++;
+                }
+            }
+            if (alive >= properties.getMaxEntries() / 2) {
+                keepFrom = entries.size() - properties.getMaxEntries() / 2;
+            }
+            HnswIndex newIndex = new HnswIndex(embeddingProvider.dimensions(), 16, 64);
+            List<CachedResponse> newEntries = new ArrayList<>();
+            for (int i = keepFrom; i < entries.size(); i++) {
+                CachedResponse entry = entries.get(i);
+                if (!entry.isExpired(now)) {
+                    newIndex.add(index.vector(i));
+                    newEntries.add(entry);
+                }
+            }
+            log.info("Rebuilt semantic cache index {} -> {} entries", entries.size(), newEntries.size());
+            index = newIndex;
+            entries = newEntries;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.lb.aiagent.chatmemory;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.lb.aiagent.jfr.MemoryEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.springframework.ai.chat.memory.ChatMemory;
@@ -19,6 +20,7 @@ public class FileBasedChatMemory implements ChatMemory {
 
     private final String BASE_DIR;
     private static final Kryo kryo = new Kryo();
+    private static final String JFR_STORE = "file";
 
     static {
         kryo.setRegistrationRequired(false);
@@ -62,21 +64,40 @@ public class FileBasedChatMemory implements ChatMemory {
         if (!file.exists()) {
             return new ArrayList<>();
         }
+        MemoryEvent event = MemoryEvent.begin(JFR_STORE, MemoryEvent.LOAD, conversationId);
+        List<Message> messages = new ArrayList<>();
         try (Input input = new Input(new FileInputStream(file))) {
-            return kryo.readObject(input, ArrayList.class);
+            messages = kryo.readObject(input, ArrayList.class);
+            return messages;
         } catch (Exception e) {
             log.error("Error loading conversation msg[" + e.getMessage() + "]", e);
-            return new ArrayList<>();
+            return messages;
+        } finally {
+            commit(event, messages.size(), file);
         }
     }
 
     private void saveConversation(String conversationId, List<Message> messages) {
         File file = this.getConversationFile(conversationId);
+        MemoryEvent event = MemoryEvent.begin(JFR_STORE, MemoryEvent.SAVE, conversationId);
         try (Output output = new Output(new FileOutputStream(file))) {
             kryo.writeObject(output, messages);
         } catch (Exception e) {
             log.error("Error saving conversation msg[" + e.getMessage() + "]", e);
         }
+        commit(event, messages.size(), file);
+    }
+
+    /**
+     * 提交 JFR 事件，字节数为文件大小
+     */
+    private static void commit(MemoryEvent event, int messages, File file) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.messages = messages;
+            event.bytes = file.length();
+            event.commit();
+        }
     }
 
     /**
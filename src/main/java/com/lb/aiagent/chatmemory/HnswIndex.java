@@ -0,0 +1,330 @@
+package com.lb.aiagent.chatmemory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW 近似最近邻索引
+ * 向量连续存放在一个 float 数组中，要求输入向量已 L2 归一化，距离为 1 - 点积。
+ * 每个会话一个索引，数量可能上万，用堆内数组而不是直接内存：扩容后旧数组随 GC 回收，不会耗尽直接内存上限；
+ * 初始容量较小，按需倍增
+ * 用读写锁保护，查询可并发；不用 synchronized，避免虚拟线程等锁时钉住载体线程
+ */
+public class HnswIndex {
+
+    private final int dimensions;
+
+    /**
+     * 第 1 层及以上每个节点的最大邻居数
+     */
+    private final int m;
+
+    /**
+     * 第 0 层每个节点的最大邻居数
+     */
+    private final int maxM0;
+
+    private final int efConstruction;
+
+    private final double levelMultiplier;
+
+    /**
+     * 默认初始容量（节点数），一个会话的记忆通常只有几十轮
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * 向量存储，第 i 个向量位于 [i * dimensions, (i + 1) * dimensions)
+     */
+    private float[] vectors;
+
+    private int capacity;
+
+    private int size;
+
+    /**
+     * links[node][level][0] 为邻居数量，其后为邻居节点编号
+     */
+    private int[][][] links;
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HnswIndex(int dimensions, int m, int efConstruction) {
+        this(dimensions, m, efConstruction, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public HnswIndex(int dimensions, int m, int efConstruction, int initialCapacity) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.capacity = Math.max(initialCapacity, 1);
+        this.vectors = new float[this.capacity * dimensions];
+        this.links = new int[this.capacity][][];
+    }
+
+    /**
+     * 插入向量
+     * @param vector 归一化后的向量
+     * @return 节点编号（从 0 开始连续递增）
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Vector dimension mismatch: " + vector.length + " != " + dimensions);
+        }
+        lock.writeLock().lock();
+        try {
+            return this.addLocked(vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int addLocked(float[] vector) {
+        this.ensureCapacity(size + 1);
+        int node = size;
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        int level = this.randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = this.greedySearch(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = this.searchLayer(vector, current, efConstruction, l);
+            int maxNeighbors = l == 0 ? maxM0 : m;
+            List<Candidate> neighbors = candidates.subList(0, Math.min(m, candidates.size()));
+            for (Candidate neighbor : neighbors) {
+                this.link(node, neighbor.node, l, maxNeighbors);
+                this.link(neighbor.node, node, l, maxNeighbors);
+            }
+            current = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+        return node;
+    }
+
+    /**
+     * 查询最相似的 k 个节点
+     * @param query 归一化后的查询向量
+     * @param k 返回数量
+     * @param ef 查询候选集大小
+     * @return 按相似度降序排列的结果
+     */
+    public List<SearchResult> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = this.greedySearch(query, current, l);
+            }
+            List<Candidate> candidates = this.searchLayer(query, current, Math.max(ef, k), 0);
+            int n = Math.min(k, candidates.size());
+            List<SearchResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Candidate candidate = candidates.get(i);
+                results.add(new SearchResult(candidate.node, 1 - candidate.distance));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取节点向量（拷贝到新数组）
+     */
+    public float[] vector(int node) {
+        lock.readLock().lock();
+        try {
+            return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 单层贪心搜索，返回该层离查询最近的节点
+     */
+    private int greedySearch(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = this.distance(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float d = this.distance(query, neighbors[i]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层 beam 搜索
+     * @return 按距离升序排列的候选集
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+        Candidate first = new Candidate(start, this.distance(query, start));
+        visited.set(start);
+        candidates.add(first);
+        results.add(first);
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (closest.distance > results.peek().distance && results.size() >= ef) {
+                break;
+            }
+            int[] neighbors = links[closest.node].length > level ? links[closest.node][level] : null;
+            if (neighbors == null) {
+                continue;
+            }
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float d = this.distance(query, neighbor);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        return sorted;
+    }
+
+    /**
+     * 添加一条 from -> to 的边，超出上限时保留距离最近的邻居
+     */
+    private void link(int from, int to, int level, int maxNeighbors) {
+        int[] neighbors = links[from][level];
+        int count = neighbors[0];
+        for (int i = 1; i <= count; i++) {
+            if (neighbors[i] == to) {
+                return;
+            }
+        }
+        if (count < maxNeighbors) {
+            neighbors[count + 1] = to;
+            neighbors[0] = count + 1;
+            return;
+        }
+        // 已满，替换掉距离最远的邻居
+        int fromBase = from * dimensions;
+        int farthest = -1;
+        float farthestDistance = this.distance(fromBase, to);
+        for (int i = 1; i <= count; i++) {
+            float d = this.distance(fromBase, neighbors[i]);
+            if (d > farthestDistance) {
+                farthestDistance = d;
+                farthest = i;
+            }
+        }
+        if (farthest > 0) {
+            neighbors[farthest] = to;
+        }
+    }
+
+    private float distance(float[] query, int node) {
+        int base = node * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[i] * vectors[base + i];
+        }
+        return 1 - dot;
+    }
+
+    private float distance(int base, int node) {
+        int other = node * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += vectors[base + i] * vectors[other + i];
+        }
+        return 1 - dot;
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(1 - r) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        float[] newVectors = Arrays.copyOf(vectors, newCapacity * dimensions);
+        int[][][] newLinks = new int[newCapacity][][];
+        System.arraycopy(links, 0, newLinks, 0, size);
+        this.vectors = newVectors;
+        this.links = newLinks;
+        this.capacity = newCapacity;
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+
+    /**
+     * 查询结果
+     * @param node 节点编号
+     * @param similarity 余弦相似度
+     */
+    public record SearchResult(int node, float similarity) {
+    }
+}
@@ -2,6 +2,7 @@ package com.lb.aiagent.chatmemory;
 
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.spring.SpringUtil;
+import com.lb.aiagent.jfr.MemoryEvent;
 import com.lb.aiagent.model.dto.RedisMessageDTO;
 import com.lb.aiagent.utils.JacksonUtil;
 import com.lb.aiagent.utils.MapUtil;
@@ -11,6 +12,7 @@ import org.springframework.ai.chat.messages.*;
 import org.springframework.ai.model.Media;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +25,8 @@ public class RedisChatMemory implements ChatMemory {
 
     public static final String CHAT_MEMORY_KEY = "CHAT:MEMORY:KEY:CONVERSATIONID:";
 
+    private static final String JFR_STORE = "redis";
+
     @Override
     public void add(String conversationId, List<Message> messages) {
         List<Message> conversationMessages = this.getOrCreateConversation(conversationId);
@@ -42,24 +46,42 @@ public class RedisChatMemory implements ChatMemory {
     }
 
     private List<Message> getOrCreateConversation(String conversationId) {
+        MemoryEvent event = MemoryEvent.begin(JFR_STORE, MemoryEvent.LOAD, conversationId);
         String messageStr = stringRedisTemplate.opsForValue().get(CHAT_MEMORY_KEY + conversationId);
         if (StrUtil.isBlank(messageStr)) {
+            this.commit(event, 0, messageStr);
             return new ArrayList<>();
         }
         List<RedisMessageDTO> dtoList = JacksonUtil.toList(messageStr, RedisMessageDTO.class);
         List<Message> messages = new ArrayList<>(dtoList.size());
         for (RedisMessageDTO dto : dtoList) {
-            Message message = this.coverMessage(dto.getMessageType(), JacksonUtil.toJsonString(dto.getMessage()));
+            Message message = this.coverMessage(dto.getMessageType(), JacksonUtil.convert(dto.getMessage(), Map.class));
             messages.add(message);
         }
+        this.commit(event, messages.size(), messageStr);
         return messages;
     }
 
     private void saveConversation(String conversationId, List<Message> messages) {
+        MemoryEvent event = MemoryEvent.begin(JFR_STORE, MemoryEvent.SAVE, conversationId);
         List<RedisMessageDTO> dtoList = this.messageCoverDTO(messages);
+        String messageStr = JacksonUtil.toJsonString(dtoList);
         stringRedisTemplate.opsForValue().set(CHAT_MEMORY_KEY + conversationId,
-                JacksonUtil.toJsonString(dtoList),
+                messageStr,
                 60 * 60, TimeUnit.SECONDS);
+        this.commit(event, messages.size(), messageStr);
+    }
+
+    /**
+     * 提交 JFR 事件，未开启录制时不计算字节数
+     */
+    private void commit(MemoryEvent event, int messages, String messageStr) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.messages = messages;
+            event.bytes = messageStr == null ? 0 : messageStr.getBytes(StandardCharsets.UTF_8).length;
+            event.commit();
+        }
     }
 
     private List<RedisMessageDTO> messageCoverDTO(List<Message> messages) {
@@ -88,7 +110,10 @@ public class RedisChatMemory implements ChatMemory {
     }
 
     public Message coverMessage(String messageType, String messageStr) {
-        Map map = JacksonUtil.toObject(messageStr, Map.class);
+        return this.coverMessage(messageType, JacksonUtil.toObject(messageStr, Map.class));
+    }
+
+    public Message coverMessage(String messageType, Map map) {
         String content = MapUtil.get(map, "content", String.class);
         List<Media> medias = MapUtil.getList(map, "media", Media.class);
         Map<String, Object> metadata = MapUtil.get(map, "metadata", Map.class);
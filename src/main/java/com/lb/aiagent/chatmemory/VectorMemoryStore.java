@@ -0,0 +1,176 @@
+package com.lb.aiagent.chatmemory;
+
+import com.lb.aiagent.config.VectorMemoryProperties;
+import com.lb.aiagent.embedding.EmbeddingProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话向量索引仓库
+ * 每个会话一个 HNSW 索引，节点对应一轮对话（用户消息 + 助手回复），记录该轮用户消息在记忆中的下标
+ */
+@Component
+public class VectorMemoryStore {
+
+    private final EmbeddingProvider embeddingProvider;
+
+    private final VectorMemoryProperties properties;
+
+    private final Map<String, ConversationIndex> indexes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public VectorMemoryStore(EmbeddingProvider embeddingProvider, VectorMemoryProperties properties) {
+        this.embeddingProvider = embeddingProvider;
+        this.properties = properties;
+        int maxConversations = properties.getMaxConversations();
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversationIndex> eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    /**
+     * 获取会话索引，不存在时返回 null
+     */
+    public ConversationIndex get(String conversationId) {
+        lock.lock();
+        try {
+            return indexes.get(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取或创建会话索引
+     */
+    public ConversationIndex getOrCreate(String conversationId) {
+        lock.lock();
+        try {
+            return indexes.computeIfAbsent(conversationId, k -> new ConversationIndex(
+                    new HnswIndex(embeddingProvider.dimensions(), properties.getM(), properties.getEfConstruction())));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String conversationId) {
+        lock.lock();
+        try {
+            indexes.remove(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 单个会话的索引
+     */
+    public class ConversationIndex {
+
+        private final HnswIndex index;
+
+        /**
+         * 节点编号 -> 该轮用户消息在记忆中的下标
+         */
+        private final List<Integer> offsets = new ArrayList<>();
+
+        /**
+         * 最后一个已索引轮次的文本，用于判断记忆是否已被清空后重新写入
+         */
+        private String lastText;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private ConversationIndex(HnswIndex index) {
+            this.index = index;
+        }
+
+        /**
+         * 索引一轮对话
+         * @param offset 用户消息在记忆中的下标
+         * @param text 该轮对话文本
+         */
+        public void add(int offset, String text) {
+            // 向量化可能是远程调用，放在锁外
+            float[] vector = embeddingProvider.embed(text);
+            lock.lock();
+            try {
+                // 同一轮只索引一次（并发回填时可能重复）
+                if (!offsets.isEmpty() && offsets.get(offsets.size() - 1) >= offset) {
+                    return;
+                }
+                index.add(vector);
+                offsets.add(offset);
+                lastText = text;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 已索引的最大用户消息下标，没有时返回 -1
+         */
+        public int lastOffset() {
+            lock.lock();
+            try {
+                return offsets.isEmpty() ? -1 : offsets.get(offsets.size() - 1);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 最后一个已索引轮次的文本，没有时返回 null
+         */
+        public String lastText() {
+            lock.lock();
+            try {
+                return lastText;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 召回与查询相关、且位于 beforeOffset 之前的对话轮次
+         * @param query 查询文本
+         * @param beforeOffset 只返回下标小于该值的轮次
+         * @return 按下标升序排列的用户消息下标
+         */
+        public List<Integer> search(String query, int beforeOffset) {
+            int topK = properties.getTopK();
+            float[] vector = embeddingProvider.embed(query);
+            List<Integer> result = new ArrayList<>(topK);
+            lock.lock();
+            try {
+                // 多取一些，过滤掉已在最近记忆窗口中的轮次
+                List<HnswIndex.SearchResult> hits = index.search(vector, topK * 2, properties.getEfSearch());
+                for (HnswIndex.SearchResult hit : hits) {
+                    if (hit.similarity() < properties.getMinSimilarity()) {
+                        continue;
+                    }
+                    int offset = offsets.get(hit.node());
+                    if (offset < beforeOffset) {
+                        result.add(offset);
+                    }
+                    if (result.size() >= topK) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            result.sort(null);
+            return result;
+        }
+    }
+}
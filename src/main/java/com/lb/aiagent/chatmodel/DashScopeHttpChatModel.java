@@ -0,0 +1,216 @@
+package com.lb.aiagent.chatmodel;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lb.aiagent.config.DashScopeHttpProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于 JDK HttpClient 的 DashScope ChatModel
+ * 整个实例共用一个 HTTP/2 客户端（连接复用、长连接），回调在虚拟线程上执行；
+ * 同步调用直接从响应流解析 JSON，流式调用按字节增量解析 SSE，都不把响应体拼成字符串
+ */
+@Slf4j
+public class DashScopeHttpChatModel implements ChatModel {
+
+    private static final String GENERATION_PATH = "/api/v1/services/aigc/text-generation/generation";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final DashScopeHttpProperties properties;
+
+    private final HttpClient httpClient;
+
+    private final URI endpoint;
+
+    public DashScopeHttpChatModel(DashScopeHttpProperties properties) {
+        this.properties = properties;
+        this.endpoint = URI.create(properties.getBaseUrl() + GENERATION_PATH);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        HttpRequest request = this.buildRequest(prompt, false);
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new TransientAiException("DashScope request failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientAiException("DashScope request interrupted");
+        }
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw this.error(response.statusCode(), body.readAllBytes());
+            }
+            return this.toChatResponse(OBJECT_MAPPER.readTree(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read DashScope response", e);
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            HttpRequest request = this.buildRequest(prompt, true);
+            return Mono.fromFuture(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofPublisher()))
+                    .flatMapMany(response -> {
+                        Flux<List<ByteBuffer>> body = JdkFlowAdapter.flowPublisherToFlux(response.body());
+                        if (response.statusCode() != 200) {
+                            return this.readAll(body).flatMapMany(bytes -> Flux.error(this.error(response.statusCode(), bytes)));
+                        }
+                        SseDecoder decoder = new SseDecoder();
+                        return body.concatMapIterable(buffers -> {
+                            List<byte[]> events = new ArrayList<>();
+                            for (ByteBuffer buffer : buffers) {
+                                events.addAll(decoder.feed(buffer));
+                            }
+                            return events;
+                        }).map(this::parseEvent);
+                    });
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return DashScopeChatOptions.builder().withModel(properties.getModel()).build();
+    }
+
+    private HttpRequest buildRequest(Prompt prompt, boolean stream) {
+        ChatOptions options = prompt.getOptions();
+        String model = options != null && options.getModel() != null ? options.getModel() : properties.getModel();
+
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        root.put("model", model);
+        ArrayNode messages = root.putObject("input").putArray("messages");
+        for (Message message : prompt.getInstructions()) {
+            messages.addObject()
+                    .put("role", message.getMessageType().getValue())
+                    .put("content", message.getText());
+        }
+        ObjectNode parameters = root.putObject("parameters");
+        parameters.put("result_format", "message");
+        if (stream) {
+            // 每个分片只返回新增内容
+            parameters.put("incremental_output", true);
+        }
+        if (options != null) {
+            if (options.getTemperature() != null) {
+                parameters.put("temperature", options.getTemperature());
+            }
+            if (options.getTopP() != null) {
+                parameters.put("top_p", options.getTopP());
+            }
+            if (options.getMaxTokens() != null) {
+                parameters.put("max_tokens", options.getMaxTokens());
+            }
+        }
+        byte[] body;
+        try {
+            body = OBJECT_MAPPER.writeValueAsBytes(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+                .timeout(properties.getRequestTimeout())
+                .header("Authorization", "Bearer " + properties.getApiKey())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (stream) {
+            builder.header("Accept", "text/event-stream").header("X-DashScope-SSE", "enable");
+        }
+        return builder.build();
+    }
+
+    private ChatResponse parseEvent(byte[] data) {
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed DashScope event", e);
+        }
+        // 流中途出错时以带 code 的事件返回
+        if (node.hasNonNull("code") && !node.has("output")) {
+            throw new NonTransientAiException("DashScope error " + node.path("code").asText() + ": "
+                    + node.path("message").asText());
+        }
+        return this.toChatResponse(node);
+    }
+
+    private ChatResponse toChatResponse(JsonNode node) {
+        List<Generation> generations = new ArrayList<>(1);
+        for (JsonNode choice : node.path("output").path("choices")) {
+            String content = choice.path("message").path("content").asText("");
+            String finishReason = choice.path("finish_reason").asText(null);
+            if ("null".equals(finishReason)) {
+                finishReason = null;
+            }
+            generations.add(new Generation(new AssistantMessage(content),
+                    ChatGenerationMetadata.from(finishReason, null)));
+        }
+        JsonNode usage = node.path("usage");
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .withId(node.path("request_id").asText(""))
+                .withUsage(new DefaultUsage(usage.path("input_tokens").asLong(), usage.path("output_tokens").asLong()))
+                .build();
+        return new ChatResponse(generations, metadata);
+    }
+
+    private Mono<byte[]> readAll(Flux<List<ByteBuffer>> body) {
+        return body.reduce(new ByteArrayOutputStream(), (out, buffers) -> {
+            for (ByteBuffer buffer : buffers) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                out.writeBytes(bytes);
+            }
+            return out;
+        }).map(ByteArrayOutputStream::toByteArray);
+    }
+
+    /**
+     * 限流和服务端错误可以重试，其余错误不可重试
+     */
+    private RuntimeException error(int status, byte[] body) {
+        String message = "DashScope HTTP " + status + ": " + new String(body, StandardCharsets.UTF_8);
+        log.warn(message);
+        return status == 429 || status >= 500 ? new TransientAiException(message) : new NonTransientAiException(message);
+    }
+}
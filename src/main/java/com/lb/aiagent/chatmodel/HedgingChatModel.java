@@ -0,0 +1,255 @@
+package com.lb.aiagent.chatmodel;
+
+import com.lb.aiagent.concurrent.LatencyPercentiles;
+import com.lb.aiagent.config.HedgingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对冲请求
+ * 模型调用超过近期耗时的指定分位数仍未返回（流式为首包）时，再发一次相同请求，先返回的胜出，另一个取消。
+ * 对冲次数受预算限制：每个请求积累 budgetRatio 次对冲额度，额度不足时不对冲。
+ * 同步调用耗时和流式首包耗时分开统计；对冲胜出时记录原请求已等待的时长，避免耗时分布被对冲结果拉低。
+ * <p>
+ * 装饰在 ChatModel 上而不是做成拦截器，因为拦截器链同一请求只能向下调用一次；
+ * 取消同步调用会中断所在的虚拟线程，阻塞中的 socket 读写随之关闭
+ */
+@Slf4j
+public class HedgingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+
+    private final HedgingProperties properties;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ReentrantLock budgetLock = new ReentrantLock();
+
+    private double budget;
+
+    private final Mode callMode;
+
+    private final Mode streamMode;
+
+    public HedgingChatModel(ChatModel delegate, HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.callMode = new Mode("call", meterRegistry);
+        this.streamMode = new Mode("stream", meterRegistry);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        this.onRequest(callMode);
+        long start = System.nanoTime();
+        Duration delay = this.hedgeDelay(callMode);
+        ExecutorCompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Attempt>> attempts = new ArrayList<>(2);
+        attempts.add(completion.submit(() -> this.attempt(prompt, false)));
+        try {
+            Future<Attempt> done = completion.poll(delay.toNanos(), TimeUnit.NANOSECONDS);
+            if (done == null && this.tryAcquireBudget(callMode)) {
+                callMode.hedges.increment();
+                log.debug("Hedging model call after {}", delay);
+                attempts.add(completion.submit(() -> this.attempt(prompt, true)));
+            }
+            ExecutionException failure = null;
+            for (int remaining = attempts.size(); remaining > 0; remaining--) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                try {
+                    Attempt winner = done.get();
+                    if (winner.hedge()) {
+                        callMode.hedgeWins.increment();
+                        // 原请求至少耗时这么久
+                        callMode.latencies.record(System.nanoTime() - start);
+                    } else {
+                        callMode.latencies.record(winner.latencyNanos());
+                    }
+                    return winner.response();
+                } catch (ExecutionException e) {
+                    // 一个失败时等另一个
+                    failure = e;
+                    done = null;
+                }
+            }
+            throw failure.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException : new RuntimeException(failure.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Model call interrupted", e);
+        } finally {
+            // 取消仍在进行的请求
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            this.onRequest(streamMode);
+            long start = System.nanoTime();
+            Duration delay = this.hedgeDelay(streamMode);
+            Flux<ChatResponse> primary = this.timed(delegate.stream(prompt), start, false);
+            Flux<ChatResponse> hedge = Mono.delay(delay)
+                    .flatMapMany(tick -> {
+                        if (!this.tryAcquireBudget(streamMode)) {
+                            return Flux.never();
+                        }
+                        streamMode.hedges.increment();
+                        log.debug("Hedging model stream after {}", delay);
+                        return this.hedgeStream(prompt, start);
+                    });
+            // 先发出任何信号的一方胜出，另一方被取消：原请求在首包前出错或空完成时立即结束，不再等对冲；
+            // 延迟未到时对冲请求还没有发出
+            return Flux.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * 对冲请求在首包前出错或空完成时不参与竞争，继续等原请求，与同步调用一个失败时等另一个一致
+     */
+    private Flux<ChatResponse> hedgeStream(Prompt prompt, long start) {
+        boolean[] emitted = {false};
+        return this.timed(delegate.stream(prompt), start, true)
+                .doOnNext(response -> emitted[0] = true)
+                .onErrorResume(e -> {
+                    if (emitted[0]) {
+                        return Flux.error(e);
+                    }
+                    log.debug("Hedged model stream failed before first token", e);
+                    return Flux.never();
+                })
+                .switchIfEmpty(Flux.never());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    /**
+     * 当前对冲延迟：近期耗时的分位数，样本不足时取初始值
+     * @param stream true 取流式首包耗时，false 取同步调用耗时
+     */
+    Duration hedgeDelay(boolean stream) {
+        return this.hedgeDelay(stream ? streamMode : callMode);
+    }
+
+    private Duration hedgeDelay(Mode mode) {
+        if (mode.latencies.count() < properties.getMinSamples()) {
+            return properties.getInitialDelay();
+        }
+        Duration delay = Duration.ofNanos(mode.latencies.percentile(properties.getPercentile()));
+        return delay.compareTo(properties.getMinDelay()) < 0 ? properties.getMinDelay() : delay;
+    }
+
+    private Attempt attempt(Prompt prompt, boolean hedge) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.call(prompt);
+        return new Attempt(response, System.nanoTime() - start, hedge);
+    }
+
+    /**
+     * 首包到达时按原请求的开始时间记录首包耗时（对冲胜出时即原请求已等待的时长）；对冲方的首包说明它胜出
+     */
+    private Flux<ChatResponse> timed(Flux<ChatResponse> flux, long start, boolean hedge) {
+        boolean[] first = {true};
+        return flux.doOnNext(response -> {
+            if (first[0]) {
+                first[0] = false;
+                streamMode.latencies.record(System.nanoTime() - start);
+                if (hedge) {
+                    streamMode.hedgeWins.increment();
+                }
+            }
+        });
+    }
+
+    private void onRequest(Mode mode) {
+        mode.calls.increment();
+        budgetLock.lock();
+        try {
+            budget = Math.min(properties.getBudgetBurst(), budget + properties.getBudgetRatio());
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private boolean tryAcquireBudget(Mode mode) {
+        budgetLock.lock();
+        try {
+            if (budget >= 1) {
+                budget -= 1;
+                return true;
+            }
+        } finally {
+            budgetLock.unlock();
+        }
+        mode.budgetExhausted.increment();
+        return false;
+    }
+
+    /**
+     * 同步调用或流式调用各自的耗时窗口和指标，指标以 mode 标签区分
+     */
+    private final class Mode {
+
+        private final LatencyPercentiles latencies;
+
+        private final Counter calls;
+
+        private final Counter hedges;
+
+        private final Counter hedgeWins;
+
+        private final Counter budgetExhausted;
+
+        private Mode(String name, MeterRegistry meterRegistry) {
+            this.latencies = new LatencyPercentiles(properties.getWindowSize());
+            this.calls = Counter.builder("ai.model.hedge.calls")
+                    .description("经过对冲装饰的模型调用数")
+                    .tag("mode", name)
+                    .register(meterRegistry);
+            this.hedges = Counter.builder("ai.model.hedge.requests")
+                    .description("发出的对冲请求数")
+                    .tag("mode", name)
+                    .register(meterRegistry);
+            this.hedgeWins = Counter.builder("ai.model.hedge.wins")
+                    .description("对冲请求先于原请求返回的次数")
+                    .tag("mode", name)
+                    .register(meterRegistry);
+            this.budgetExhausted = Counter.builder("ai.model.hedge.budget.exhausted")
+                    .description("因预算不足未发出对冲的次数")
+                    .tag("mode", name)
+                    .register(meterRegistry);
+            Gauge.builder("ai.model.hedge.delay", this, mode -> HedgingChatModel.this.hedgeDelay(mode).toMillis())
+                    .description("当前对冲延迟（毫秒）")
+                    .tag("mode", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record Attempt(ChatResponse response, long latencyNanos, boolean hedge) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.lb.aiagent.chatmodel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 增量 SSE 解码
+ * 直接在字节上按行切分，只保留 data 字段，不把响应拼成字符串；一个事件的多行 data 以换行连接。
+ * 非线程安全，每个响应一个实例
+ */
+class SseDecoder {
+
+    private static final byte[] DATA = {'d', 'a', 't', 'a', ':'};
+
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    private byte[] data = new byte[1024];
+
+    private int dataLength;
+
+    private boolean hasData;
+
+    private boolean lastWasCr;
+
+    /**
+     * 喂入一段字节
+     * @return 本段中完成的事件的 data 内容
+     */
+    List<byte[]> feed(ByteBuffer buffer) {
+        List<byte[]> events = null;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n' && lastWasCr) {
+                // \r\n 已在 \r 处结束该行
+                lastWasCr = false;
+                continue;
+            }
+            lastWasCr = b == '\r';
+            if (b != '\n' && b != '\r') {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[lineLength++] = b;
+                continue;
+            }
+            byte[] event = this.endLine();
+            if (event != null) {
+                if (events == null) {
+                    events = new ArrayList<>(2);
+                }
+                events.add(event);
+            }
+        }
+        return events == null ? List.of() : events;
+    }
+
+    /**
+     * 处理一整行，空行表示事件结束
+     */
+    private byte[] endLine() {
+        if (lineLength == 0) {
+            if (!hasData) {
+                return null;
+            }
+            byte[] event = Arrays.copyOf(data, dataLength);
+            dataLength = 0;
+            hasData = false;
+            return event;
+        }
+        if (this.startsWith(DATA)) {
+            int start = DATA.length;
+            if (start < lineLength && line[start] == ' ') {
+                start++;
+            }
+            int length = lineLength - start;
+            int required = dataLength + length + 1;
+            if (required > data.length) {
+                data = Arrays.copyOf(data, Math.max(required, data.length * 2));
+            }
+            if (hasData) {
+                data[dataLength++] = '\n';
+            }
+            System.arraycopy(line, start, data, dataLength, length);
+            dataLength += length;
+            hasData = true;
+        }
+        // id、event、retry 和注释行忽略
+        lineLength = 0;
+        return null;
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        if (lineLength < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,350 @@
+package com.lb.aiagent.concurrent;
+
+import com.lb.aiagent.config.ConcurrencyLimitProperties;
+import com.lb.aiagent.exception.BusinessException;
+import com.lb.aiagent.exception.ErrorCode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制（AIMD）
+ * 每次调用结束用耗时修正上限：耗时超过基线（耗时的慢速指数移动平均）的 tolerance 倍或调用失败时乘性减小，
+ * 否则在并发利用率过半时加一。超出上限的请求进入有界等待队列，队列满时立即拒绝。
+ * <p>
+ * 等待队列按优先级分开，空出的并发按权重做步进调度（stride scheduling），低优先级也一定会轮到；
+ * 每个优先级最多占用上限的 maxShare，队列满时新来的高优先级请求挤掉最后排队的低优先级请求。
+ */
+public class AdaptiveLimiter {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final String name;
+
+    private final ConcurrencyLimitProperties.Limit settings;
+
+    private final Map<Priority, ConcurrencyLimitProperties.PriorityClass> priorityClasses;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<Priority, Deque<CompletableFuture<Permit>>> waiters = new EnumMap<>(Priority.class);
+
+    private final int[] inFlightByPriority = new int[PRIORITIES.length];
+
+    /**
+     * 步进调度的虚拟时间，每放行一个请求该优先级前进 1 / weight，放行虚拟时间最小的优先级
+     */
+    private final double[] pass = new double[PRIORITIES.length];
+
+    private double virtualTime;
+
+    private int queued;
+
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * 耗时基线（纳秒），-1 表示还没有样本
+     */
+    private double baselineNanos = -1;
+
+    public AdaptiveLimiter(String name, ConcurrencyLimitProperties.Limit settings,
+                           Map<Priority, ConcurrencyLimitProperties.PriorityClass> priorityClasses) {
+        this.name = name;
+        this.settings = settings;
+        this.priorityClasses = priorityClasses;
+        this.limit = settings.getInitialLimit();
+        for (Priority priority : PRIORITIES) {
+            waiters.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 以交互式优先级申请许可
+     */
+    public CompletableFuture<Permit> acquire() {
+        return this.acquire(Priority.INTERACTIVE);
+    }
+
+    /**
+     * 申请许可
+     * @param priority 优先级
+     * @return 获得许可时完成的 future；队列已满或被挤出队列时以 BusinessException 失败，排队超时以 TimeoutException 失败
+     */
+    public CompletableFuture<Permit> acquire(Priority priority) {
+        CompletableFuture<Permit> victim = null;
+        lock.lock();
+        try {
+            Deque<CompletableFuture<Permit>> queue = waiters.get(priority);
+            if (queue.isEmpty() && this.admissible(priority)) {
+                return CompletableFuture.completedFuture(this.grant(priority));
+            }
+            if (queued >= settings.getMaxQueueSize()) {
+                victim = this.evictLowerThan(priority);
+                if (victim == null) {
+                    return CompletableFuture.failedFuture(rejected());
+                }
+            }
+            if (queue.isEmpty()) {
+                // 从空闲变为排队的优先级不能攒下之前的份额
+                pass[priority.ordinal()] = Math.max(pass[priority.ordinal()], virtualTime);
+            }
+            CompletableFuture<Permit> waiter = new CompletableFuture<>();
+            queue.add(waiter);
+            queued++;
+            waiter.orTimeout(settings.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((permit, e) -> {
+                        // 超时、被挤出或被取消，移出队列
+                        if (e != null) {
+                            this.removeWaiter(priority, waiter);
+                        }
+                    });
+            return waiter;
+        } finally {
+            lock.unlock();
+            // 在锁外完成 future，避免回调在持锁时执行
+            if (victim != null) {
+                victim.completeExceptionally(rejected());
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight(Priority priority) {
+        lock.lock();
+        try {
+            return inFlightByPriority[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize(Priority priority) {
+        lock.lock();
+        try {
+            return waiters.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 总并发未满，且该优先级未超过自己的占比
+     */
+    private boolean admissible(Priority priority) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        ConcurrencyLimitProperties.PriorityClass priorityClass = priorityClasses.get(priority);
+        double maxShare = priorityClass == null ? 1.0 : priorityClass.getMaxShare();
+        int maxInFlight = Math.max(1, (int) (limit * maxShare));
+        return inFlightByPriority[priority.ordinal()] < maxInFlight;
+    }
+
+    private Permit grant(Priority priority) {
+        inFlight++;
+        inFlightByPriority[priority.ordinal()]++;
+        return new Permit(priority);
+    }
+
+    /**
+     * 挤掉最后排队的、优先级低于 priority 的请求
+     * @return 被挤掉的等待者，没有时返回 null
+     */
+    private CompletableFuture<Permit> evictLowerThan(Priority priority) {
+        for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+            CompletableFuture<Permit> victim = waiters.get(PRIORITIES[i]).pollLast();
+            if (victim != null) {
+                queued--;
+                return victim;
+            }
+        }
+        return null;
+    }
+
+    private static BusinessException rejected() {
+        return new BusinessException(ErrorCode.TOO_MANY_REQUEST, "模型繁忙，请稍后再试");
+    }
+
+    private void removeWaiter(Priority priority, CompletableFuture<Permit> waiter) {
+        lock.lock();
+        try {
+            if (waiters.get(priority).remove(waiter)) {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRelease(Priority priority, long latencyNanos, boolean dropped, boolean ignored) {
+        List<Grant> grants;
+        lock.lock();
+        try {
+            int wasInFlight = inFlight;
+            inFlight--;
+            inFlightByPriority[priority.ordinal()]--;
+            if (!ignored) {
+                this.updateLimit(latencyNanos, dropped, wasInFlight);
+            }
+            grants = this.grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+        for (Grant grant : grants) {
+            // 已超时或取消的等待者 complete 返回 false，归还许可
+            if (!grant.waiter().complete(grant.permit())) {
+                grant.permit().ignore();
+            }
+        }
+    }
+
+    private void updateLimit(long latencyNanos, boolean dropped, int wasInFlight) {
+        if (dropped) {
+            limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+            return;
+        }
+        baselineNanos = baselineNanos < 0 ? latencyNanos : baselineNanos * 0.95 + latencyNanos * 0.05;
+        if (latencyNanos > baselineNanos * settings.getLatencyTolerance()) {
+            limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+        } else if (wasInFlight * 2 >= limit) {
+            limit = Math.min(settings.getMaxLimit(), limit + 1);
+        }
+    }
+
+    /**
+     * 按步进调度从等待队列中放行，返回的 future 由调用方在锁外完成
+     */
+    private List<Grant> grantWaiters() {
+        List<Grant> grants = new ArrayList<>();
+        while (inFlight < (int) limit) {
+            Priority next = null;
+            for (Priority priority : PRIORITIES) {
+                if (!waiters.get(priority).isEmpty() && this.admissible(priority)
+                        && (next == null || pass[priority.ordinal()] < pass[next.ordinal()])) {
+                    next = priority;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            CompletableFuture<Permit> waiter = waiters.get(next).poll();
+            queued--;
+            grants.add(new Grant(waiter, this.grant(next)));
+            virtualTime = pass[next.ordinal()];
+            ConcurrencyLimitProperties.PriorityClass priorityClass = priorityClasses.get(next);
+            pass[next.ordinal()] += 1.0 / (priorityClass == null ? 1 : Math.max(1, priorityClass.getWeight()));
+        }
+        return grants;
+    }
+
+    private record Grant(CompletableFuture<Permit> waiter, Permit permit) {
+    }
+
+    /**
+     * 并发许可，必须且只能释放一次
+     */
+    public class Permit {
+
+        private final Priority priority;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * 通过 sample 记录的耗时，-1 表示未记录
+         */
+        private volatile long sampledNanos = -1;
+
+        private Permit(Priority priority) {
+            this.priority = priority;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        /**
+         * 记录耗时样本但不释放许可，释放时用它修正上限（如流式调用的首包耗时）
+         */
+        public void sample(long latencyNanos) {
+            this.sampledNanos = latencyNanos;
+        }
+
+        /**
+         * 调用成功，用 sample 记录的耗时修正上限，没有记录时用从获得许可到现在的耗时
+         */
+        public void success() {
+            long sampled = sampledNanos;
+            this.success(sampled >= 0 ? sampled : System.nanoTime() - start);
+        }
+
+        /**
+         * 调用成功，用指定耗时修正上限
+         */
+        public void success(long latencyNanos) {
+            this.release(latencyNanos, false, false);
+        }
+
+        /**
+         * 调用失败（超时、限流等），减小上限
+         */
+        public void dropped() {
+            this.release(0, true, false);
+        }
+
+        /**
+         * 释放但不作为样本（如调用方取消）
+         */
+        public void ignore() {
+            this.release(0, false, true);
+        }
+
+        private void release(long latencyNanos, boolean dropped, boolean ignored) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            AdaptiveLimiter.this.onRelease(priority, latencyNanos, dropped, ignored);
+        }
+    }
+}
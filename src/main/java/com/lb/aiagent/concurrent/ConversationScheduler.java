@@ -0,0 +1,247 @@
+package com.lb.aiagent.concurrent;
+
+import com.lb.aiagent.config.ConversationSchedulerProperties;
+import com.lb.aiagent.exception.BusinessException;
+import com.lb.aiagent.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 会话亲和调度器
+ * 每个会话一个轻量邮箱，同一会话的轮次严格按提交顺序串行执行，不同会话在虚拟线程上完全并行。
+ * 邮箱为空时即回收，不为空闲会话保留任何线程。
+ */
+@Slf4j
+@Component
+public class ConversationScheduler {
+
+    private final ConversationSchedulerProperties properties;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Timer queueWait;
+
+    private final Counter rejected;
+
+    private final Counter merged;
+
+    public ConversationScheduler(ConversationSchedulerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.queueWait = Timer.builder("ai.conversation.queue.wait")
+                .description("轮次在会话邮箱中的排队时间")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ai.conversation.queue.rejected").register(meterRegistry);
+        this.merged = Counter.builder("ai.conversation.queue.merged").register(meterRegistry);
+        meterRegistry.gaugeMapSize("ai.conversation.mailboxes", List.of(), mailboxes);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按会话顺序执行一轮对话并等待结果
+     * @param chatId 会话 id
+     * @param dedupeKey 去重键（通常为用户消息），合并窗口内相同键的提交共享一次执行
+     * @param task 对话任务
+     * @return 任务结果
+     */
+    public <T> T execute(String chatId, String dedupeKey, Supplier<T> task) {
+        if (!properties.isEnabled()) {
+            return task.get();
+        }
+        CompletableFuture<T> future = this.submit(chatId, dedupeKey, task);
+        try {
+            return future.get(properties.getTurnTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Turn timed out for chatId: {}", chatId);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "对话处理超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "对话处理被中断");
+        }
+    }
+
+    /**
+     * 按会话顺序提交一轮对话
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String chatId, String dedupeKey, Supplier<T> task) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(chatId, Mailbox::new);
+            mailbox.lock.lock();
+            try {
+                if (mailbox.closed) {
+                    // 邮箱刚被回收，重新获取
+                    continue;
+                }
+                long now = System.nanoTime();
+                Task<?> duplicate = mailbox.findDuplicate(dedupeKey, now - properties.getMergeWindow().toNanos());
+                if (duplicate != null) {
+                    merged.increment();
+                    log.info("Merged duplicate submit for chatId: {}", chatId);
+                    return (CompletableFuture<T>) duplicate.future;
+                }
+                if (mailbox.queue.size() >= properties.getMaxQueueDepth()) {
+                    rejected.increment();
+                    throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "当前会话还有消息在处理，请稍后再试");
+                }
+                Task<T> submitted = new Task<>(dedupeKey, task, now);
+                mailbox.queue.add(submitted);
+                if (!mailbox.running) {
+                    mailbox.running = true;
+                    executor.execute(() -> this.drain(mailbox));
+                }
+                return submitted.future;
+            } finally {
+                mailbox.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 按会话顺序执行流式对话，上一轮结束后才订阅上游，本轮流结束（完成、出错或取消）后下一轮才开始
+     */
+    public <T> Flux<T> executeStream(String chatId, Supplier<Flux<T>> stream) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(stream);
+        }
+        return Flux.defer(() -> {
+            CompletableFuture<CompletableFuture<Void>> started = new CompletableFuture<>();
+            this.submit(chatId, null, () -> {
+                CompletableFuture<Void> finished = new CompletableFuture<>();
+                // 排队期间订阅已取消（fromFuture 会取消 started），直接跳过本轮
+                if (started.complete(finished)) {
+                    // 占住会话直到流结束，阻塞的是虚拟线程；超时兜底，避免 finished 漏完成时会话永久卡住
+                    finished.completeOnTimeout(null, properties.getTurnTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                            .join();
+                }
+                return null;
+            });
+            // stream.get() 同步抛出异常时也要结束本轮，否则会话一直被占住
+            // 值已就绪但尚未交给下游时取消，Reactor 会丢弃该值，此时也要结束本轮
+            return Mono.fromFuture(started)
+                    .doOnCancel(() -> started.thenAccept(finished -> finished.complete(null)))
+                    .doOnDiscard(CompletableFuture.class, finished -> finished.complete(null))
+                    .flatMapMany(finished -> Flux.defer(stream).doFinally(signal -> finished.complete(null)));
+        });
+    }
+
+    private void drain(Mailbox mailbox) {
+        while (true) {
+            Task<?> task;
+            mailbox.lock.lock();
+            try {
+                task = mailbox.queue.poll();
+                mailbox.current = task;
+                if (task == null) {
+                    mailbox.running = false;
+                    mailbox.closed = true;
+                    mailboxes.remove(mailbox.chatId, mailbox);
+                    return;
+                }
+            } finally {
+                mailbox.lock.unlock();
+            }
+            queueWait.record(System.nanoTime() - task.submittedAt, TimeUnit.NANOSECONDS);
+            task.run();
+        }
+    }
+
+    private static final class Mailbox {
+
+        private final String chatId;
+
+        private final Deque<Task<?>> queue = new ArrayDeque<>();
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Task<?> current;
+
+        private boolean running;
+
+        private boolean closed;
+
+        private Mailbox(String chatId) {
+            this.chatId = chatId;
+        }
+
+        /**
+         * 查找合并窗口内、键相同且尚未结束的轮次
+         */
+        private Task<?> findDuplicate(String dedupeKey, long notBefore) {
+            if (dedupeKey == null) {
+                return null;
+            }
+            if (current != null && current.matches(dedupeKey, notBefore)) {
+                return current;
+            }
+            for (Task<?> task : queue) {
+                if (task.matches(dedupeKey, notBefore)) {
+                    return task;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Task<T> {
+
+        private final String dedupeKey;
+
+        private final Supplier<T> supplier;
+
+        private final long submittedAt;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(String dedupeKey, Supplier<T> supplier, long submittedAt) {
+            this.dedupeKey = dedupeKey;
+            this.supplier = supplier;
+            this.submittedAt = submittedAt;
+        }
+
+        private boolean matches(String key, long notBefore) {
+            return Objects.equals(dedupeKey, key) && submittedAt >= notBefore && !future.isDone();
+        }
+
+        private void run() {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
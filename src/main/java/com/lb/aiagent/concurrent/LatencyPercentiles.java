@@ -0,0 +1,99 @@
+package com.lb.aiagent.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最近 N 次耗时的滑动窗口分位数
+ * 样本存放在环形数组中，分位数按需计算并缓存，新增一定数量样本后才重新排序
+ */
+public class LatencyPercentiles {
+
+    /**
+     * 新增多少个样本后重新计算分位数
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final long[] samples;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int count;
+
+    private int next;
+
+    private int sinceSorted = Integer.MAX_VALUE;
+
+    private long[] sorted = new long[0];
+
+    private long lastRecordNanos;
+
+    public LatencyPercentiles(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        lock.lock();
+        try {
+            samples[next] = nanos;
+            lastRecordNanos = System.nanoTime();
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (sinceSorted != Integer.MAX_VALUE) {
+                sinceSorted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 窗口内的样本数
+     */
+    public int count() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 距最近一次记录的时长（纳秒），没有样本时返回 Long.MAX_VALUE
+     */
+    public long sinceLastRecord() {
+        lock.lock();
+        try {
+            return count == 0 ? Long.MAX_VALUE : System.nanoTime() - lastRecordNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 分位数
+     * @param quantile 0 ~ 1
+     * @return 耗时（纳秒），没有样本时返回 -1
+     */
+    public long percentile(double quantile) {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return -1;
+            }
+            if (sinceSorted >= RECOMPUTE_INTERVAL) {
+                sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                sinceSorted = 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.lb.aiagent.concurrent;
+
+import com.lb.aiagent.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按模型区分的自适应并发限制器，每个模型独立计算上限
+ */
+@Component
+public class ModelConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ModelConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取模型的限制器
+     * @param model 模型名
+     */
+    public AdaptiveLimiter forModel(String model) {
+        return limiters.computeIfAbsent(model, this::create);
+    }
+
+    private AdaptiveLimiter create(String model) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(model, properties.forModel(model), properties.getPriorities());
+        Gauge.builder("ai.model.concurrency.limit", limiter, AdaptiveLimiter::getLimit)
+                .tag("model", model).register(meterRegistry);
+        Gauge.builder("ai.model.concurrency.inflight", limiter, AdaptiveLimiter::getInFlight)
+                .tag("model", model).register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("ai.model.concurrency.queue", limiter, l -> l.getQueueSize(priority))
+                    .tag("model", model).tag("priority", tag).register(meterRegistry);
+            Gauge.builder("ai.model.concurrency.inflight.priority", limiter, l -> l.getInFlight(priority))
+                    .tag("model", model).tag("priority", tag).register(meterRegistry);
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,47 @@
+package com.lb.aiagent.concurrent;
+
+import java.util.Map;
+
+/**
+ * 模型调用优先级
+ */
+public enum Priority {
+
+    /**
+     * 交互式对话，用户在等待
+     */
+    INTERACTIVE,
+
+    /**
+     * 报告生成，上下文长、结构化输出，单次开销大
+     */
+    REPORT,
+
+    /**
+     * 批处理、后台任务
+     */
+    BACKGROUND;
+
+    /**
+     * 拦截器上下文中的优先级参数名
+     */
+    public static final String CONTEXT_KEY = "model_priority";
+
+    /**
+     * 从拦截器上下文读取优先级，未指定或无法识别时按交互式处理
+     */
+    public static Priority of(Map<String, Object> context) {
+        Object value = context.get(CONTEXT_KEY);
+        if (value instanceof Priority priority) {
+            return priority;
+        }
+        if (value instanceof String name) {
+            try {
+                return Priority.valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return INTERACTIVE;
+            }
+        }
+        return INTERACTIVE;
+    }
+}
@@ -0,0 +1,93 @@
+package com.lb.aiagent.concurrent;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同键的并发请求合并为一次执行
+ * 第一个到达的请求执行调用，其余请求等待并共享结果；调用结束后立即移除，之后的请求重新执行
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final Map<K, Flux<?>> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 执行或加入正在进行的调用
+     * @param key 请求键
+     * @param supplier 实际调用
+     * @return 调用结果，shared 为 true 表示复用了其他请求的结果
+     */
+    public Result<V> execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, future);
+        if (existing != null) {
+            return new Result<>(join(existing), true);
+        }
+        try {
+            V value = supplier.get();
+            future.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    /**
+     * 流式调用合并：同一键只订阅一次上游，数据多播给所有订阅者，晚到的订阅者会先收到已产生的数据。
+     * 所有订阅者取消后上游也随之取消。上游在首次订阅时才创建，不在 map 的锁内执行
+     * @param key 请求键
+     * @param supplier 上游流
+     * @param onShared 复用了其他请求的流时回调
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(K key, Supplier<Flux<T>> supplier, Runnable onShared) {
+        return Flux.defer(() -> {
+            Flux<T> existing = (Flux<T>) streams.get(key);
+            if (existing != null) {
+                onShared.run();
+                return existing;
+            }
+            Flux<T>[] created = new Flux[1];
+            created[0] = Flux.defer(supplier)
+                    // 只移除自己，不误删结束后新建的同键流
+                    .doFinally(signal -> streams.remove(key, created[0]))
+                    .replay()
+                    .refCount();
+            existing = (Flux<T>) streams.putIfAbsent(key, created[0]);
+            if (existing != null) {
+                onShared.run();
+                return existing;
+            }
+            return created[0];
+        });
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 调用结果
+     * @param value 结果
+     * @param shared 是否复用了其他请求的结果
+     */
+    public record Result<V>(V value, boolean shared) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 拦截器链耗时追踪配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.tracing")
+public class AdvisorTracingProperties {
+
+    /**
+     * 是否记录每个拦截器的耗时和模型调用的耗时、报文大小
+     */
+    private boolean enabled = false;
+
+    /**
+     * 是否同时为每个拦截器创建 Observation（引入 micrometer-tracing 桥接后即为链路追踪的 span）
+     */
+    private boolean spans = false;
+}
@@ -0,0 +1,61 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 对话审计日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.audit")
+public class AuditLogProperties {
+
+    /**
+     * 是否启用，关闭时请求和回答只在 DEBUG 级别输出到普通日志
+     */
+    private boolean enabled = false;
+
+    /**
+     * 日志目录
+     */
+    private String dir = "./audit-log";
+
+    /**
+     * 环形缓冲区容量（向上取整为 2 的幂），写满后新记录直接丢弃并计数
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 后台线程每批最多写入的记录数
+     */
+    private int batchSize = 512;
+
+    /**
+     * 没有新记录时最长多久把压缩流刷到磁盘
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 单个文件写入的未压缩字节数上限，超过后滚动到新文件
+     */
+    private long maxFileBytes = 64L * 1024 * 1024;
+
+    /**
+     * 最多保留的文件数，超出时删除最旧的
+     */
+    private int maxFiles = 50;
+
+    /**
+     * 单条文本最多保留的字符数，超出部分截断
+     */
+    private int maxPayloadChars = 4000;
+
+    /**
+     * 超长文本保留（截断后）内容的比例，其余只记录长度
+     */
+    private double largePayloadSampleRate = 1.0;
+}
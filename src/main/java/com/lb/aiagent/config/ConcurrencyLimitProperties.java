@@ -0,0 +1,110 @@
+package com.lb.aiagent.config;
+
+import com.lb.aiagent.concurrent.Priority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 模型调用自适应并发限制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认限制，未在 models 中单独配置的模型使用
+     */
+    private Limit defaults = new Limit();
+
+    /**
+     * 按模型名单独配置
+     */
+    private Map<String, Limit> models = new HashMap<>();
+
+    /**
+     * 各优先级的调度权重和并发占比，所有模型共用
+     */
+    private Map<Priority, PriorityClass> priorities = defaultPriorities();
+
+    /**
+     * 获取模型的限制配置
+     */
+    public Limit forModel(String model) {
+        return models.getOrDefault(model, defaults);
+    }
+
+    private static Map<Priority, PriorityClass> defaultPriorities() {
+        Map<Priority, PriorityClass> priorities = new EnumMap<>(Priority.class);
+        priorities.put(Priority.INTERACTIVE, new PriorityClass(6, 1.0));
+        priorities.put(Priority.REPORT, new PriorityClass(3, 0.6));
+        priorities.put(Priority.BACKGROUND, new PriorityClass(1, 0.3));
+        return priorities;
+    }
+
+    @Data
+    public static class PriorityClass {
+
+        /**
+         * 排队时按权重分配空出的并发
+         */
+        private int weight = 1;
+
+        /**
+         * 该优先级最多占用并发上限的比例，超出部分排队，给高优先级留出余量
+         */
+        private double maxShare = 1.0;
+
+        public PriorityClass() {
+        }
+
+        public PriorityClass(int weight, double maxShare) {
+            this.weight = weight;
+            this.maxShare = maxShare;
+        }
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 2;
+
+        private int maxLimit = 200;
+
+        /**
+         * 等待队列长度，队列满时立即拒绝
+         */
+        private int maxQueueSize = 50;
+
+        /**
+         * 排队最长等待时间
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        /**
+         * 单次耗时超过基线的多少倍视为过载
+         */
+        private double latencyTolerance = 2.0;
+
+        /**
+         * 过载时上限乘以该系数
+         */
+        private double backoffRatio = 0.9;
+    }
+}
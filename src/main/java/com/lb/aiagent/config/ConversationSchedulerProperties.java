@@ -0,0 +1,36 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 会话顺序调度配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.conversation-scheduler")
+public class ConversationSchedulerProperties {
+
+    /**
+     * 是否启用，关闭后同一会话的多轮请求可能并行执行
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单个会话最多排队的轮次（不含正在执行的）
+     */
+    private int maxQueueDepth = 4;
+
+    /**
+     * 该时间窗口内重复提交的相同消息合并为一次执行
+     */
+    private Duration mergeWindow = Duration.ofSeconds(3);
+
+    /**
+     * 单轮最长占用会话的时间，超时后同步调用方不再等待，流式轮次释放会话让下一轮开始
+     */
+    private Duration turnTimeout = Duration.ofMinutes(3);
+}
@@ -0,0 +1,37 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 基于 JDK HttpClient 的 DashScope 调用配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.dashscope-http")
+public class DashScopeHttpProperties {
+
+    /**
+     * 是否用 JDK HttpClient 实现替换 Spring AI Alibaba 的 DashScopeChatModel
+     */
+    private boolean enabled = false;
+
+    private String baseUrl = "https://dashscope.aliyuncs.com";
+
+    private String apiKey;
+
+    /**
+     * 请求未指定模型时使用的模型
+     */
+    private String model = "qwen-plus";
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 单次请求超时，流式请求为整个流的时长
+     */
+    private Duration requestTimeout = Duration.ofSeconds(120);
+}
@@ -0,0 +1,28 @@
+package com.lb.aiagent.config;
+
+import com.lb.aiagent.embedding.EmbeddingProvider;
+import com.lb.aiagent.embedding.LocalHashEmbeddingProvider;
+import com.lb.aiagent.embedding.SpringAiEmbeddingProvider;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EmbeddingConfig {
+
+    /**
+     * 向量化提供者，ai-agent.embedding.provider=local 时使用本地哈希向量（默认），
+     * dashscope 时使用容器中的 EmbeddingModel
+     */
+    @Bean
+    public EmbeddingProvider embeddingProvider(@Value("${ai-agent.embedding.provider:local}") String provider,
+                                               @Value("${ai-agent.embedding.dimensions:256}") int dimensions,
+                                               ObjectProvider<EmbeddingModel> embeddingModel) {
+        if ("dashscope".equalsIgnoreCase(provider)) {
+            return new SpringAiEmbeddingProvider(embeddingModel.getObject());
+        }
+        return new LocalHashEmbeddingProvider(dimensions);
+    }
+}
@@ -0,0 +1,56 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模型对冲请求配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.hedging")
+public class HedgingProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 超过该分位数的耗时仍未返回（流式为首包）时发出对冲请求
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 对冲延迟下限，避免耗时很短时几乎每个请求都对冲
+     */
+    private Duration minDelay = Duration.ofMillis(500);
+
+    /**
+     * 样本不足时使用的对冲延迟
+     */
+    private Duration initialDelay = Duration.ofSeconds(5);
+
+    /**
+     * 统计分位数的最近样本数
+     */
+    private int windowSize = 1000;
+
+    /**
+     * 样本数达到该值后才按分位数计算延迟
+     */
+    private int minSamples = 20;
+
+    /**
+     * 对冲请求最多占请求总数的比例
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 预算最多累积的对冲次数，允许短时突发
+     */
+    private int budgetBurst = 10;
+}
@@ -1,28 +1,26 @@
 package com.lb.aiagent.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lb.aiagent.utils.JacksonUtil;
 import org.springframework.boot.jackson.JsonComponent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
-import java.text.SimpleDateFormat;
-import java.util.TimeZone;
-
 @JsonComponent
 public class JsonConfig {
 
+    /**
+     * 日期格式、时区等与 JacksonUtil 共用一套配置（见 JacksonUtil.configure）。
+     * 只有接口返回时把 Long 转为字符串，避免前端丢失精度；存入 Redis 等处的数据仍保持数字
+     */
     @Bean
     public ObjectMapper jacksonObjectMapper(Jackson2ObjectMapperBuilder builder) {
-        ObjectMapper mapper = builder.createXmlMapper(false).build();
+        ObjectMapper mapper = JacksonUtil.configure(builder.createXmlMapper(false).build());
         SimpleModule module = new SimpleModule();
         module.addSerializer(Long.class, ToStringSerializer.instance);
         module.addSerializer(Long.TYPE, ToStringSerializer.instance);
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        mapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
-        mapper.setTimeZone(TimeZone.getTimeZone("GMT+8"));
         mapper.registerModule(module);
         return mapper;
     }
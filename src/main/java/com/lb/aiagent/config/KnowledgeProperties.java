@@ -0,0 +1,49 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地知识库配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.knowledge")
+public class KnowledgeProperties {
+
+    /**
+     * 是否启用知识库检索
+     */
+    private boolean enabled = false;
+
+    /**
+     * 索引段文件目录
+     */
+    private String indexDir = System.getProperty("user.dir") + "/knowledge-index";
+
+    /**
+     * 首次启动（索引为空）时导入的文档
+     */
+    private String documents = "classpath*:knowledge/*.md";
+
+    /**
+     * 内存段达到多少段落后落盘
+     */
+    private int flushThreshold = 10000;
+
+    /**
+     * 单个段落最大字符数
+     */
+    private int maxPassageLength = 300;
+
+    /**
+     * 每次注入的段落数
+     */
+    private int topK = 3;
+
+    /**
+     * 最低 BM25 得分，低于该值的段落不注入
+     */
+    private float minScore = 1.0f;
+}
@@ -0,0 +1,82 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模型分级路由配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.routing")
+public class ModelRoutingProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 模型分级，按成本从低到高排列；请求路由到第一个满足条件的级别，最后一级兜底
+     */
+    private List<Tier> tiers = new ArrayList<>();
+
+    /**
+     * 统计耗时的最近样本数，同步调用耗时和流式首包耗时分开统计
+     */
+    private int latencyWindowSize = 200;
+
+    /**
+     * 样本数达到该值后才按耗时判断是否降级
+     */
+    private int latencyMinSamples = 20;
+
+    /**
+     * 耗时统计超过该时长没有更新时不再作为降级依据，让拥堵的级别恢复后能重新获得流量
+     */
+    private Duration latencyStaleAfter = Duration.ofMinutes(1);
+
+    @Data
+    public static class Tier {
+
+        /**
+         * 级别名称，用于日志和指标
+         */
+        private String name;
+
+        /**
+         * 模型名
+         */
+        private String model;
+
+        /**
+         * 能处理的最大提示词 token 数（估算值）
+         */
+        private int maxPromptTokens = Integer.MAX_VALUE;
+
+        /**
+         * 能处理的最大上下文消息数
+         */
+        private int maxHistory = Integer.MAX_VALUE;
+
+        /**
+         * 是否处理报告生成等结构化输出请求
+         */
+        private boolean structuredOutput = true;
+
+        /**
+         * 近期同步调用耗时中位数超过该值时视为拥堵，改用其他级别
+         */
+        private Duration maxLatency;
+
+        /**
+         * 近期流式调用首包耗时中位数超过该值时视为拥堵，未配置时使用 maxLatency
+         */
+        private Duration maxFirstTokenLatency;
+    }
+}
@@ -0,0 +1,44 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提示词压缩配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.prompt-compression")
+public class PromptCompressionProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 单次请求的输入 token 预算（估算值，含系统提示词、上下文和用户输入）
+     */
+    private int maxInputTokens = 3000;
+
+    /**
+     * 最近的若干条上下文消息不缩短、不丢弃
+     */
+    private int keepRecentMessages = 2;
+
+    /**
+     * 超出预算时，较早的消息超过该 token 数会被缩短为首尾两段
+     */
+    private int oldMessageMaxTokens = 200;
+
+    /**
+     * 是否去掉内容重复的上下文消息（只保留最近一次）
+     */
+    private boolean dedupe = true;
+
+    /**
+     * 用户输入不超过该 token 数时重读问题，0 表示不重读（默认），开启后短问题的输入会增加
+     */
+    private int reReadMaxTokens = 0;
+}
@@ -0,0 +1,26 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 恋爱报告配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.report")
+public class ReportProperties {
+
+    /**
+     * 是否增量更新报告：只把上次的报告和之后的新对话发给模型，没有新对话时直接返回上次的报告
+     */
+    private boolean incremental = false;
+
+    /**
+     * 报告保存时长
+     */
+    private Duration ttl = Duration.ofHours(24);
+}
@@ -0,0 +1,51 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 精确匹配回答缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.cache.exact")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 缓存有效期
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 进程内缓存最大占用字节数（按字符数 * 2 估算）
+     */
+    private long localMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 是否启用 Redis 二级缓存
+     */
+    private boolean redisEnabled = true;
+
+    /**
+     * 只缓存会话首轮（没有历史记忆）的请求，后续轮次通常是个性化内容
+     */
+    private boolean firstTurnOnly = true;
+
+    /**
+     * 用户输入超过该长度不缓存（长文本多为个人经历描述）
+     */
+    private int maxQueryLength = 200;
+
+    /**
+     * 回答超过该长度不缓存
+     */
+    private int maxResponseLength = 8000;
+}
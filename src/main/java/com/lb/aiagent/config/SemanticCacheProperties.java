@@ -0,0 +1,51 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 语义回答缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.cache.semantic")
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 命中所需的最低余弦相似度
+     */
+    private float similarityThreshold = 0.92f;
+
+    /**
+     * 单条缓存有效期
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 每个作用域（系统提示词 + 模型）最多缓存条数，超出时重建索引并丢弃过期和最旧的条目
+     */
+    private int maxEntries = 50000;
+
+    /**
+     * 只缓存会话首轮的请求
+     */
+    private boolean firstTurnOnly = true;
+
+    /**
+     * 用户输入超过该长度不缓存
+     */
+    private int maxQueryLength = 200;
+
+    /**
+     * HNSW 查询时候选集大小
+     */
+    private int efSearch = 32;
+}
@@ -0,0 +1,31 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模型调用首包耗时、输出速率和 token 用量统计配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.stream-metrics")
+public class StreamMetricsProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 是否按会话累计 token 用量并保存到 Redis，用于成本核算
+     */
+    private boolean accounting = true;
+
+    /**
+     * 会话用量的保存时长，每次累计时刷新
+     */
+    private Duration accountingTtl = Duration.ofDays(30);
+}
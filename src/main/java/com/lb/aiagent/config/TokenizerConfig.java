@@ -0,0 +1,51 @@
+package com.lb.aiagent.config;
+
+import com.lb.aiagent.tokenizer.BpeTokenizer;
+import com.lb.aiagent.tokenizer.CachingTokenCounter;
+import com.lb.aiagent.tokenizer.TokenCounter;
+import com.lb.aiagent.utils.TokenEstimator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Slf4j
+@Configuration
+public class TokenizerConfig {
+
+    /**
+     * token 计数，启用本地分词器时按通义千问词表精确计数并缓存结果，否则按字符数估算。
+     * 同时设置到 TokenEstimator，路由、提示词压缩等拦截器和记忆层通过它计数
+     */
+    @Bean
+    public TokenCounter tokenCounter(TokenizerProperties properties, MeterRegistry meterRegistry) {
+        TokenCounter counter = TokenEstimator::heuristic;
+        if (properties.isEnabled()) {
+            Path path = Path.of(properties.getVocabPath());
+            try {
+                BpeTokenizer tokenizer = BpeTokenizer.load(path);
+                CachingTokenCounter caching = new CachingTokenCounter(tokenizer, properties.getCacheSize(),
+                        properties.getCacheMinChars());
+                FunctionCounter.builder("ai.tokenizer.cache", caching, CachingTokenCounter::hitCount)
+                        .description("token 计数缓存命中次数")
+                        .tag("result", "hit")
+                        .register(meterRegistry);
+                FunctionCounter.builder("ai.tokenizer.cache", caching, CachingTokenCounter::missCount)
+                        .description("token 计数缓存未命中次数")
+                        .tag("result", "miss")
+                        .register(meterRegistry);
+                counter = caching;
+                log.info("Loaded tokenizer vocabulary {} with {} tokens", path, tokenizer.vocabularySize());
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Error loading tokenizer vocabulary {}, falling back to estimation msg[{}]", path,
+                        e.getMessage());
+            }
+        }
+        TokenEstimator.use(counter);
+        return counter;
+    }
+}
@@ -0,0 +1,34 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地分词器配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.tokenizer")
+public class TokenizerProperties {
+
+    /**
+     * 是否启用，关闭或词表不可用时按字符数估算 token 数
+     */
+    private boolean enabled = false;
+
+    /**
+     * 通义千问 tiktoken 格式词表（qwen.tiktoken）路径
+     */
+    private String vocabPath = "./tokenizer/qwen.tiktoken";
+
+    /**
+     * 缓存的消息计数条数
+     */
+    private int cacheSize = 10000;
+
+    /**
+     * 不短于该字符数的文本才进缓存
+     */
+    private int cacheMinChars = 64;
+}
@@ -0,0 +1,49 @@
+package com.lb.aiagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量检索记忆配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai-agent.memory.vector")
+public class VectorMemoryProperties {
+
+    /**
+     * 是否启用（启用后替换默认的 MessageChatMemoryAdvisor）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每次召回的相关历史轮数
+     */
+    private int topK = 3;
+
+    /**
+     * 召回的最低相似度
+     */
+    private float minSimilarity = 0.3f;
+
+    /**
+     * 内存中最多保留的会话索引数，超出按 LRU 淘汰
+     */
+    private int maxConversations = 10000;
+
+    /**
+     * HNSW 每层邻居数
+     */
+    private int m = 16;
+
+    /**
+     * HNSW 构建时候选集大小
+     */
+    private int efConstruction = 100;
+
+    /**
+     * HNSW 查询时候选集大小
+     */
+    private int efSearch = 50;
+}
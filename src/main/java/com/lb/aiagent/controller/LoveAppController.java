@@ -0,0 +1,87 @@
+package com.lb.aiagent.controller;
+
+import com.lb.aiagent.app.LoveApp;
+import com.lb.aiagent.common.BaseResponse;
+import com.lb.aiagent.common.ResultUtils;
+import com.lb.aiagent.exception.BusinessException;
+import com.lb.aiagent.exception.ErrorCode;
+import com.lb.aiagent.exception.ThrowUtils;
+import com.lb.aiagent.usage.ConversationUsage;
+import com.lb.aiagent.usage.ConversationUsageStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@Slf4j
+@RestController
+@RequestMapping("/love_app")
+@Tag(name = "恋爱大师")
+public class LoveAppController {
+
+    /**
+     * 流式推送时最多缓冲的分片数，客户端消费过慢时超出即报错终止，避免无限堆积
+     */
+    private static final int STREAM_BUFFER_SIZE = 256;
+
+    @Resource
+    private LoveApp loveApp;
+
+    @Resource
+    private ConversationUsageStore conversationUsageStore;
+
+    @Operation(summary = "同步对话")
+    @GetMapping("/chat/sync")
+    public BaseResponse<String> doChatSync(@RequestParam String message, @RequestParam String chatId) {
+        ThrowUtils.throwIf(message.isBlank() || chatId.isBlank(), ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(loveApp.doChat(message, chatId));
+    }
+
+    @Operation(summary = "流式对话（SSE）")
+    @GetMapping(value = "/chat/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> doChatSse(@RequestParam String message, @RequestParam String chatId) {
+        ThrowUtils.throwIf(message.isBlank() || chatId.isBlank(), ErrorCode.PARAMS_ERROR);
+        // defer 使拦截器中同步抛出的异常（如违禁词）也以错误事件返回
+        return Flux.defer(() -> loveApp.doChatByStream(message, chatId))
+                .onBackpressureBuffer(STREAM_BUFFER_SIZE)
+                .map(chunk -> ServerSentEvent.builder(chunk).event("message").build())
+                .concatWithValues(ServerSentEvent.builder("[DONE]").event("done").build())
+                .doOnCancel(() -> log.info("SSE client disconnected, chatId: {}", chatId))
+                .onErrorResume(e -> {
+                    log.error("SSE chat error, chatId: " + chatId, e);
+                    String msg = e instanceof BusinessException ? e.getMessage() : ErrorCode.SYSTEM_ERROR.getMessage();
+                    return Flux.just(ServerSentEvent.builder(msg).event("error").build());
+                });
+    }
+
+    @Operation(summary = "流式生成恋爱报告（SSE）")
+    @GetMapping(value = "/chat/report/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> doChatWithReportSse(@RequestParam String message, @RequestParam String chatId) {
+        ThrowUtils.throwIf(message.isBlank() || chatId.isBlank(), ErrorCode.PARAMS_ERROR);
+        // 每个 report 事件都是截至当前已解析的完整报告，客户端直接覆盖渲染
+        return Flux.defer(() -> loveApp.doChatWithReportByStream(message, chatId))
+                .onBackpressureLatest()
+                .map(report -> ServerSentEvent.<Object>builder(report).event("report").build())
+                .concatWithValues(ServerSentEvent.<Object>builder("[DONE]").event("done").build())
+                .doOnCancel(() -> log.info("SSE client disconnected, chatId: {}", chatId))
+                .onErrorResume(e -> {
+                    log.error("SSE report error, chatId: " + chatId, e);
+                    String msg = e instanceof BusinessException ? e.getMessage() : ErrorCode.SYSTEM_ERROR.getMessage();
+                    return Flux.just(ServerSentEvent.<Object>builder(msg).event("error").build());
+                });
+    }
+
+    @Operation(summary = "会话累计 token 用量")
+    @GetMapping("/usage")
+    public BaseResponse<ConversationUsage> getUsage(@RequestParam String chatId) {
+        ThrowUtils.throwIf(chatId.isBlank(), ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(conversationUsageStore.get(chatId));
+    }
+}
@@ -6,7 +6,23 @@ import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 
 public class HttpAiInvoke {
+
+    public static final String GENERATION_URL = "https://dashscope.aliyuncs.com/api/v1/services/aigc/text-generation/generation";
+
     public static void main(String[] args) {
+        // 发送 POST 请求
+        HttpResponse response = call(GENERATION_URL, TestApiKey.API_KEY, "帮用Java写一个王者荣耀", false);
+
+        // 输出响应
+        System.out.println("Status: " + response.getStatus());
+        System.out.println("Response: " + response.body());
+    }
+
+    /**
+     * @param url 文本生成接口地址
+     * @param stream 是否以 SSE 方式返回
+     */
+    public static HttpResponse call(String url, String apiKey, String question, boolean stream) {
         // 构造请求 JSON
         JSONObject input = new JSONObject();
         JSONArray messages = new JSONArray();
@@ -20,28 +36,29 @@ public class HttpAiInvoke {
         // 添加 user 消息
         JSONObject userMessage = new JSONObject();
         userMessage.set("role", "user");
-        userMessage.set("content", "帮用Java写一个王者荣耀");
+        userMessage.set("content", question);
         messages.add(userMessage);
 
         input.set("messages", messages);
 
         JSONObject parameters = new JSONObject();
         parameters.set("result_format", "message");
+        if (stream) {
+            parameters.set("incremental_output", true);
+        }
 
         JSONObject requestBody = new JSONObject();
         requestBody.set("model", "qwen-plus");
         requestBody.set("input", input);
         requestBody.set("parameters", parameters);
 
-        // 发送 POST 请求
-        HttpResponse response = HttpRequest.post("https://dashscope.aliyuncs.com/api/v1/services/aigc/text-generation/generation")
-                .header("Authorization", "Bearer " + TestApiKey.API_KEY)
+        HttpRequest request = HttpRequest.post(url)
+                .header("Authorization", "Bearer " + apiKey)
                 .header("Content-Type", "application/json")
-                .body(requestBody.toString())
-                .execute();
-
-        // 输出响应
-        System.out.println("Status: " + response.getStatus());
-        System.out.println("Response: " + response.body());
+                .body(requestBody.toString());
+        if (stream) {
+            request.header("X-DashScope-SSE", "enable");
+        }
+        return request.execute();
     }
-}
\ No newline at end of file
+}
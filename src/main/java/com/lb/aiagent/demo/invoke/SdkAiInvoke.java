@@ -10,26 +10,47 @@ import com.alibaba.dashscope.exception.ApiException;
 import com.alibaba.dashscope.exception.InputRequiredException;
 import com.alibaba.dashscope.exception.NoApiKeyException;
 import com.alibaba.dashscope.utils.JsonUtils;
+import io.reactivex.Flowable;
 
 public class SdkAiInvoke {
     public static GenerationResult callWithMessage() throws ApiException, NoApiKeyException, InputRequiredException {
-        Generation gen = new Generation();
+        return callWithMessage(new Generation(), TestApiKey.API_KEY, "你是谁？");
+    }
+
+    /**
+     * @param gen 可复用的 Generation，new Generation(protocol, baseUrl) 可指定接口地址
+     */
+    public static GenerationResult callWithMessage(Generation gen, String apiKey, String question)
+            throws ApiException, NoApiKeyException, InputRequiredException {
+        return gen.call(buildParam(apiKey, question, false));
+    }
+
+    /**
+     * 流式调用，每个结果只包含新增的内容
+     */
+    public static Flowable<GenerationResult> streamWithMessage(Generation gen, String apiKey, String question)
+            throws ApiException, NoApiKeyException, InputRequiredException {
+        return gen.streamCall(buildParam(apiKey, question, true));
+    }
+
+    private static GenerationParam buildParam(String apiKey, String question, boolean incrementalOutput) {
         Message systemMsg = Message.builder()
                 .role(Role.SYSTEM.getValue())
                 .content("You are a helpful assistant.")
                 .build();
         Message userMsg = Message.builder()
                 .role(Role.USER.getValue())
-                .content("你是谁？")
+                .content(question)
                 .build();
-        GenerationParam param = GenerationParam.builder()
-                .apiKey(System.getenv(TestApiKey.API_KEY))
+        return GenerationParam.builder()
+                .apiKey(apiKey)
                 .model("qwen-plus")
                 .messages(Arrays.asList(systemMsg, userMsg))
                 .resultFormat(GenerationParam.ResultFormat.MESSAGE)
+                .incrementalOutput(incrementalOutput)
                 .build();
-        return gen.call(param);
     }
+
     public static void main(String[] args) {
         try {
             GenerationResult result = callWithMessage();
@@ -40,4 +61,4 @@ public class SdkAiInvoke {
         }
         System.exit(0);
     }
-}
\ No newline at end of file
+}
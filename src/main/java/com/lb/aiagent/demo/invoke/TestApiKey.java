@@ -0,0 +1,9 @@
+package com.lb.aiagent.demo.invoke;
+
+/**
+ * 示例代码使用的 API Key，从环境变量 DASHSCOPE_API_KEY 读取，不要把真实的 Key 提交到仓库
+ */
+public interface TestApiKey {
+
+    String API_KEY = System.getenv("DASHSCOPE_API_KEY");
+}
@@ -0,0 +1,40 @@
+package com.lb.aiagent.embedding;
+
+/**
+ * 文本向量化提供者
+ * 返回的向量统一做 L2 归一化，调用方可直接用点积计算余弦相似度
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * 文本转向量
+     * @param text 文本
+     * @return 归一化后的向量
+     */
+    float[] embed(String text);
+
+    /**
+     * 向量维度
+     */
+    int dimensions();
+
+    /**
+     * L2 归一化（原地修改）
+     * @param vector 向量
+     * @return 同一个向量
+     */
+    static float[] normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0) {
+            return vector;
+        }
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inv;
+        }
+        return vector;
+    }
+}
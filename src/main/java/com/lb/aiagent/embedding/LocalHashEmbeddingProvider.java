@@ -0,0 +1,73 @@
+package com.lb.aiagent.embedding;
+
+/**
+ * 本地哈希向量化（确定性，不依赖外部服务）
+ * 中文按单字 + 相邻二元组、英文数字按单词做特征哈希，用于测试和离线环境
+ */
+public class LocalHashEmbeddingProvider implements EmbeddingProvider {
+
+    private final int dimensions;
+
+    public LocalHashEmbeddingProvider(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        if (text == null || text.isEmpty()) {
+            return vector;
+        }
+        int prevCjk = -1;
+        int wordHash = 0;
+        int wordLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 0x2E80) {
+                wordHash = 31 * wordHash + Character.toLowerCase(c);
+                wordLength++;
+                prevCjk = -1;
+                continue;
+            }
+            if (wordLength > 0) {
+                this.accumulate(vector, wordHash, 1.0f);
+                wordHash = 0;
+                wordLength = 0;
+            }
+            if (Character.isIdeographic(c)) {
+                this.accumulate(vector, c, 1.0f);
+                if (prevCjk >= 0) {
+                    this.accumulate(vector, prevCjk * 65599 + c, 1.5f);
+                }
+                prevCjk = c;
+            } else {
+                prevCjk = -1;
+            }
+        }
+        if (wordLength > 0) {
+            this.accumulate(vector, wordHash, 1.0f);
+        }
+        return EmbeddingProvider.normalize(vector);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private void accumulate(float[] vector, int feature, float weight) {
+        int h = mix(feature);
+        int index = Math.floorMod(h, dimensions);
+        // 用哈希的高位决定符号，减小碰撞带来的偏差
+        vector[index] += (h >>> 31) == 0 ? weight : -weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
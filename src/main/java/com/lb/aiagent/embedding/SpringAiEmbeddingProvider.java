@@ -0,0 +1,28 @@
+package com.lb.aiagent.embedding;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+/**
+ * 基于 Spring AI EmbeddingModel 的向量化（如 DashScope text-embedding）
+ */
+public class SpringAiEmbeddingProvider implements EmbeddingProvider {
+
+    private final EmbeddingModel embeddingModel;
+
+    private final int dimensions;
+
+    public SpringAiEmbeddingProvider(EmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+        this.dimensions = embeddingModel.dimensions();
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return EmbeddingProvider.normalize(embeddingModel.embed(text));
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+}
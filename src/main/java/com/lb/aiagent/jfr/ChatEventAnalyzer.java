@@ -0,0 +1,216 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JFR 录制文件分析：按会话汇总对话轮次、模型调用、记忆读写和违禁词扫描事件，
+ * 并统计每个会话的轮次期间发生的 GC 停顿，以及同步轮次所在线程上的监视器锁等待。
+ * 用法：java -cp ai-agent.jar -Dloader.main=com.lb.aiagent.jfr.ChatEventAnalyzer
+ * org.springframework.boot.loader.launch.PropertiesLauncher recording.jfr [top]
+ */
+public class ChatEventAnalyzer {
+
+    private static final String GC_PAUSE = "jdk.GCPhasePause";
+
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ChatEventAnalyzer <recording.jfr> [top]");
+            return;
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Map<String, ConversationStats> stats = analyze(Path.of(args[0]));
+        System.out.print(format(stats, top));
+    }
+
+    /**
+     * 分析录制文件
+     * @return 会话 id -> 汇总，按轮次总耗时降序排列
+     */
+    public static Map<String, ConversationStats> analyze(Path recording) throws IOException {
+        Map<String, ConversationStats> stats = new HashMap<>();
+        List<Interval> turns = new ArrayList<>();
+        List<Interval> gcPauses = new ArrayList<>();
+        Map<Long, List<Interval>> monitorWaits = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+            String name = event.getEventType().getName();
+            switch (name) {
+                case ChatTurnEvent.NAME -> {
+                    ConversationStats s = stats(stats, event);
+                    s.turns++;
+                    s.turnTime = s.turnTime.plus(event.getDuration());
+                    if (event.getDuration().compareTo(s.maxTurn) > 0) {
+                        s.maxTurn = event.getDuration();
+                    }
+                    if (!event.getBoolean("success")) {
+                        s.failedTurns++;
+                    }
+                    turns.add(new Interval(event.getStartTime(), event.getEndTime(), threadId(event), s));
+                }
+                case ModelCallEvent.NAME -> {
+                    ConversationStats s = stats(stats, event);
+                    s.modelCalls++;
+                    s.modelTime = s.modelTime.plus(event.getDuration());
+                }
+                case MemoryEvent.NAME -> {
+                    ConversationStats s = stats(stats, event);
+                    s.memoryOps++;
+                    s.memoryTime = s.memoryTime.plus(event.getDuration());
+                    if (MemoryEvent.LOAD.equals(event.getString("operation"))) {
+                        s.memoryLoadBytes += event.getLong("bytes");
+                    } else {
+                        s.memorySaveBytes += event.getLong("bytes");
+                    }
+                }
+                case ModerationScanEvent.NAME -> {
+                    ConversationStats s = stats(stats, event);
+                    s.scans++;
+                    s.scanTime = s.scanTime.plus(event.getDuration());
+                    if (event.getBoolean("hit")) {
+                        s.scanHits++;
+                    }
+                    String version = event.getString("dictionaryVersion");
+                    if (version != null) {
+                        s.dictionaryVersions.add(version);
+                    }
+                }
+                case GC_PAUSE -> gcPauses.add(new Interval(event.getStartTime(), event.getEndTime(), -1, null));
+                case MONITOR_ENTER -> monitorWaits.computeIfAbsent(threadId(event), k -> new ArrayList<>())
+                        .add(new Interval(event.getStartTime(), event.getEndTime(), threadId(event), null));
+                default -> {
+                }
+            }
+        }
+        gcPauses.sort(Comparator.comparing(Interval::start));
+        monitorWaits.values().forEach(waits -> waits.sort(Comparator.comparing(Interval::start)));
+        for (Interval turn : turns) {
+            turn.stats().gcPauseInTurns = turn.stats().gcPauseInTurns.plus(overlap(turn, gcPauses));
+            List<Interval> waits = monitorWaits.get(turn.threadId());
+            if (waits != null && turn.threadId() >= 0) {
+                turn.stats().monitorWaitInTurns = turn.stats().monitorWaitInTurns.plus(overlap(turn, waits));
+            }
+        }
+        Map<String, ConversationStats> sorted = new LinkedHashMap<>();
+        stats.values().stream()
+                .sorted(Comparator.comparing(ConversationStats::getTurnTime).reversed())
+                .forEach(s -> sorted.put(s.getConversationId(), s));
+        return sorted;
+    }
+
+    /**
+     * 输出汇总表
+     * @param top 最多输出的会话数
+     */
+    public static String format(Map<String, ConversationStats> stats, int top) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-36s %5s %5s %10s %10s %5s %10s %5s %10s %10s %10s %5s %10s %10s%n",
+                "conversation", "turns", "fail", "turn(ms)", "max(ms)", "model", "model(ms)", "mem", "mem(ms)",
+                "load(KB)", "save(KB)", "scans", "gc(ms)", "lock(ms)"));
+        stats.values().stream().limit(top).forEach(s -> sb.append(String.format(
+                "%-36s %5d %5d %10d %10d %5d %10d %5d %10d %10.1f %10.1f %5d %10d %10d%n",
+                s.getConversationId(), s.getTurns(), s.getFailedTurns(), s.getTurnTime().toMillis(),
+                s.getMaxTurn().toMillis(), s.getModelCalls(), s.getModelTime().toMillis(), s.getMemoryOps(),
+                s.getMemoryTime().toMillis(), s.getMemoryLoadBytes() / 1024.0, s.getMemorySaveBytes() / 1024.0,
+                s.getScans(), s.getGcPauseInTurns().toMillis(), s.getMonitorWaitInTurns().toMillis())));
+        Set<String> versions = new LinkedHashSet<>();
+        stats.values().forEach(s -> versions.addAll(s.getDictionaryVersions()));
+        sb.append(String.format("conversations=%d, dictionary versions=%s%n", stats.size(), versions));
+        return sb.toString();
+    }
+
+    private static ConversationStats stats(Map<String, ConversationStats> stats, RecordedEvent event) {
+        String conversationId = event.getString("conversationId");
+        String key = conversationId == null ? "-" : conversationId;
+        return stats.computeIfAbsent(key, ConversationStats::new);
+    }
+
+    private static long threadId(RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        return thread == null ? -1 : thread.getJavaThreadId();
+    }
+
+    /**
+     * 轮次与一组区间重叠的总时长，intervals 按开始时间升序
+     */
+    private static Duration overlap(Interval turn, List<Interval> intervals) {
+        Duration total = Duration.ZERO;
+        for (Interval interval : intervals) {
+            if (!interval.start().isBefore(turn.end())) {
+                break;
+            }
+            Instant start = interval.start().isAfter(turn.start()) ? interval.start() : turn.start();
+            Instant end = interval.end().isBefore(turn.end()) ? interval.end() : turn.end();
+            if (start.isBefore(end)) {
+                total = total.plus(Duration.between(start, end));
+            }
+        }
+        return total;
+    }
+
+    private record Interval(Instant start, Instant end, long threadId, ConversationStats stats) {
+    }
+
+    /**
+     * 单个会话的汇总
+     */
+    @Data
+    public static class ConversationStats {
+
+        private final String conversationId;
+
+        private int turns;
+
+        private int failedTurns;
+
+        private Duration turnTime = Duration.ZERO;
+
+        private Duration maxTurn = Duration.ZERO;
+
+        private int modelCalls;
+
+        private Duration modelTime = Duration.ZERO;
+
+        private int memoryOps;
+
+        private Duration memoryTime = Duration.ZERO;
+
+        private long memoryLoadBytes;
+
+        private long memorySaveBytes;
+
+        private int scans;
+
+        private int scanHits;
+
+        private Duration scanTime = Duration.ZERO;
+
+        private Set<String> dictionaryVersions = new LinkedHashSet<>();
+
+        /**
+         * 轮次期间的 GC 停顿总时长
+         */
+        private Duration gcPauseInTurns = Duration.ZERO;
+
+        /**
+         * 同步轮次所在线程上等待监视器锁的总时长
+         */
+        private Duration monitorWaitInTurns = Duration.ZERO;
+    }
+}
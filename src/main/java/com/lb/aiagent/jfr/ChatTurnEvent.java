@@ -0,0 +1,33 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一轮对话，从开始执行（已出调度队列）到回答返回；流式为最后一个分片推送完成
+ */
+@Name(ChatTurnEvent.NAME)
+@Label("Chat Turn")
+@Category({"AI Agent", "Chat"})
+@Description("One chat turn executed by LoveApp")
+@StackTrace(false)
+public class ChatTurnEvent extends Event {
+
+    public static final String NAME = "com.lb.aiagent.ChatTurn";
+
+    @Label("Conversation Id")
+    public String conversationId;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Message Length")
+    public int messageLength;
+
+    @Label("Success")
+    public boolean success;
+}
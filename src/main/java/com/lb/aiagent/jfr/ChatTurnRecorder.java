@@ -0,0 +1,55 @@
+package com.lb.aiagent.jfr;
+
+import reactor.core.publisher.Flux;
+
+import java.util.function.Supplier;
+
+/**
+ * 记录对话轮次的 {@link ChatTurnEvent}
+ */
+public class ChatTurnRecorder {
+
+    private ChatTurnRecorder() {
+    }
+
+    /**
+     * 执行同步轮次并记录事件
+     */
+    public static <T> T record(String conversationId, String endpoint, String message, Supplier<T> turn) {
+        ChatTurnEvent event = new ChatTurnEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            T result = turn.get();
+            success = true;
+            return result;
+        } finally {
+            commit(event, conversationId, endpoint, message, success);
+        }
+    }
+
+    /**
+     * 记录流式轮次，从订阅开始到流结束（完成、出错或取消）
+     */
+    public static <T> Flux<T> recordStream(String conversationId, String endpoint, String message, Supplier<Flux<T>> turn) {
+        return Flux.defer(() -> {
+            ChatTurnEvent event = new ChatTurnEvent();
+            event.begin();
+            return turn.get()
+                    .doOnComplete(() -> event.success = true)
+                    .doFinally(signal -> commit(event, conversationId, endpoint, message, event.success));
+        });
+    }
+
+    private static void commit(ChatTurnEvent event, String conversationId, String endpoint, String message,
+                               boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.conversationId = conversationId;
+            event.endpoint = endpoint;
+            event.messageLength = message == null ? 0 : message.length();
+            event.success = success;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 会话记忆的一次读取或写入
+ */
+@Name(MemoryEvent.NAME)
+@Label("Chat Memory Operation")
+@Category({"AI Agent", "Memory"})
+@Description("Load or save of a conversation in a ChatMemory store")
+@StackTrace(false)
+public class MemoryEvent extends Event {
+
+    public static final String NAME = "com.lb.aiagent.Memory";
+
+    public static final String LOAD = "load";
+
+    public static final String SAVE = "save";
+
+    @Label("Conversation Id")
+    public String conversationId;
+
+    @Label("Store")
+    @Description("redis or file")
+    public String store;
+
+    @Label("Operation")
+    @Description("load or save")
+    public String operation;
+
+    @Label("Messages")
+    public int messages;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    public static MemoryEvent begin(String store, String operation, String conversationId) {
+        MemoryEvent event = new MemoryEvent();
+        event.store = store;
+        event.operation = operation;
+        event.conversationId = conversationId;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,39 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次模型调用，流式为从订阅到最后一个分片
+ */
+@Name(ModelCallEvent.NAME)
+@Label("Model Call")
+@Category({"AI Agent", "Model"})
+@Description("Call from the advisor chain to the chat model")
+@StackTrace(false)
+public class ModelCallEvent extends Event {
+
+    public static final String NAME = "com.lb.aiagent.ModelCall";
+
+    @Label("Conversation Id")
+    public String conversationId;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Stream")
+    public boolean stream;
+
+    @Label("Prompt Length")
+    public int promptLength;
+
+    @Label("Response Length")
+    public int responseLength;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,41 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次违禁词扫描
+ */
+@Name(ModerationScanEvent.NAME)
+@Label("Moderation Scan")
+@Category({"AI Agent", "Moderation"})
+@Description("Prohibited words scan of a request or response")
+@StackTrace(false)
+public class ModerationScanEvent extends Event {
+
+    public static final String NAME = "com.lb.aiagent.ModerationScan";
+
+    @Label("Conversation Id")
+    public String conversationId;
+
+    @Label("Phase")
+    @Description("request or response")
+    public String phase;
+
+    @Label("Dictionary Version")
+    @Description("Hash of the prohibited words list used for the scan")
+    public String dictionaryVersion;
+
+    @Label("Dictionary Size")
+    public int dictionarySize;
+
+    @Label("Text Length")
+    public int textLength;
+
+    @Label("Hit")
+    public boolean hit;
+}
@@ -0,0 +1,236 @@
+package com.lb.aiagent.rag;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * BM25 倒排索引
+ * 新文档写入内存段，内存段达到阈值后落盘为内存映射段（seg-N.bin），启动时自动加载已有段
+ */
+@Slf4j
+public class Bm25Index {
+
+    private final Path dir;
+
+    private final int flushThreshold;
+
+    private final Params params;
+
+    private final List<MappedSegment> sealed = new ArrayList<>();
+
+    private MemorySegment active = new MemorySegment();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 复用的得分累加器，避免每次查询按文档总数分配数组
+     */
+    private final Queue<ScoreAccumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    public Bm25Index(Path dir, int flushThreshold) {
+        this(dir, flushThreshold, new Params(1.2f, 0.75f));
+    }
+
+    public Bm25Index(Path dir, int flushThreshold, Params params) {
+        this.dir = dir;
+        this.flushThreshold = flushThreshold;
+        this.params = params;
+        this.load();
+    }
+
+    /**
+     * 添加一段文本
+     * @param source 来源（文档名）
+     * @param text 段落正文
+     */
+    public void add(String source, String text) {
+        lock.writeLock().lock();
+        try {
+            active.add(source, text);
+            if (active.docCount() >= flushThreshold) {
+                this.flushLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把内存段落盘
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            this.flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索
+     * @param query 查询文本
+     * @param topK 返回数量
+     * @return 按得分降序排列的结果
+     */
+    public List<Hit> search(String query, int topK) {
+        // 查询词去重，BM25 不计查询内词频
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(ChineseTokenizer.tokenize(query)));
+        if (terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        ScoreAccumulator accumulator = accumulators.poll();
+        if (accumulator == null) {
+            accumulator = new ScoreAccumulator();
+        }
+        lock.readLock().lock();
+        try {
+            List<Segment> segments = this.segments();
+            int docCount = 0;
+            long totalLength = 0;
+            for (Segment segment : segments) {
+                docCount += segment.docCount();
+                totalLength += segment.totalLength();
+            }
+            if (docCount == 0) {
+                return List.of();
+            }
+            accumulator.ensureCapacity(docCount);
+            float avgLength = (float) totalLength / docCount;
+            for (String term : terms) {
+                int df = 0;
+                for (Segment segment : segments) {
+                    df += segment.docFreq(term);
+                }
+                if (df == 0) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                int docBase = 0;
+                for (Segment segment : segments) {
+                    segment.score(term, idf, params, avgLength, docBase, accumulator);
+                    docBase += segment.docCount();
+                }
+            }
+            return this.topK(accumulator, segments, topK);
+        } finally {
+            lock.readLock().unlock();
+            accumulator.reset();
+            accumulators.offer(accumulator);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int docCount = 0;
+            for (Segment segment : this.segments()) {
+                docCount += segment.docCount();
+            }
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> topK(ScoreAccumulator accumulator, List<Segment> segments, int topK) {
+        PriorityQueue<Scored> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Scored::score));
+        for (int i = 0; i < accumulator.touchedCount(); i++) {
+            int doc = accumulator.touchedDoc(i);
+            float score = accumulator.score(doc);
+            if (heap.size() < topK) {
+                heap.add(new Scored(doc, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Scored(doc, score));
+            }
+        }
+        Hit[] hits = new Hit[heap.size()];
+        // 小顶堆弹出顺序为升序，倒序填充
+        for (int i = hits.length - 1; i >= 0; i--) {
+            Scored scored = heap.poll();
+            int local = scored.doc();
+            for (Segment segment : segments) {
+                if (local < segment.docCount()) {
+                    hits[i] = new Hit(segment.source(local), segment.text(local), scored.score());
+                    break;
+                }
+                local -= segment.docCount();
+            }
+        }
+        return List.of(hits);
+    }
+
+    private List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>(sealed.size() + 1);
+        segments.addAll(sealed);
+        segments.add(active);
+        return segments;
+    }
+
+    private void flushLocked() {
+        if (active.docCount() == 0) {
+            return;
+        }
+        Path file = dir.resolve(String.format("seg-%06d.bin", sealed.size()));
+        try {
+            Files.createDirectories(dir);
+            active.writeTo(file);
+            sealed.add(new MappedSegment(file));
+            active = new MemorySegment();
+            log.info("Flushed knowledge segment {}", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush segment " + file, e);
+        }
+    }
+
+    private void load() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segmentFiles = files
+                    .filter(p -> p.getFileName().toString().matches("seg-\\d+\\.bin"))
+                    .sorted()
+                    .toList();
+            for (Path file : segmentFiles) {
+                sealed.add(new MappedSegment(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load segments from " + dir, e);
+        }
+    }
+
+    /**
+     * BM25 参数
+     */
+    public record Params(float k1, float b) {
+
+        float score(float idf, int tf, int docLength, float avgLength) {
+            float norm = k1 * (1 - b + b * docLength / avgLength);
+            return idf * tf * (k1 + 1) / (tf + norm);
+        }
+    }
+
+    private record Scored(int doc, float score) {
+    }
+
+    /**
+     * 检索结果
+     */
+    public record Hit(String source, String text, float score) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.lb.aiagent.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 中英文混合分词
+ * 中文连续片段切成相邻二元组（单字片段保留单字），英文数字按单词切分并转小写
+ */
+public class ChineseTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "我们", "你们", "他们", "什么", "怎么", "一个", "这个", "那个", "没有", "就是", "可以", "自己",
+            "the", "a", "an", "and", "or", "of", "to", "in", "is", "are", "be", "it", "i", "you");
+
+    private ChineseTokenizer() {
+    }
+
+    /**
+     * 分词
+     * @param text 文本
+     * @return 词项列表（保留重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c)) {
+                int start = i;
+                while (i < length && Character.isIdeographic(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    terms.add(String.valueOf(c));
+                    continue;
+                }
+                for (int j = start; j + 1 < i; j++) {
+                    add(terms, text.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))
+                        && !Character.isIdeographic(text.charAt(i))) {
+                    i++;
+                }
+                add(terms, text.substring(start, i).toLowerCase());
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    private static void add(List<String> terms, String term) {
+        if (!STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+}
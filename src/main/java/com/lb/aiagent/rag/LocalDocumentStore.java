@@ -0,0 +1,135 @@
+package com.lb.aiagent.rag;
+
+import cn.hutool.core.util.StrUtil;
+import com.lb.aiagent.config.KnowledgeProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地文档库
+ * 文档按段落切分后写入 BM25 索引，支持运行时增量添加
+ */
+@Slf4j
+@Component
+public class LocalDocumentStore {
+
+    private final KnowledgeProperties properties;
+
+    private Bm25Index index;
+
+    public LocalDocumentStore(KnowledgeProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        index = new Bm25Index(Path.of(properties.getIndexDir()), properties.getFlushThreshold());
+        if (index.size() > 0) {
+            log.info("Loaded knowledge index with {} passages", index.size());
+            return;
+        }
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(properties.getDocuments());
+            for (Resource resource : resources) {
+                this.addDocument(resource.getFilename(), resource.getContentAsString(StandardCharsets.UTF_8));
+            }
+            log.info("Imported {} knowledge documents, {} passages", resources.length, index.size());
+        } catch (IOException e) {
+            log.error("Error importing knowledge documents msg[" + e.getMessage() + "]", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (index != null) {
+            index.flush();
+        }
+    }
+
+    /**
+     * 添加文档
+     * @param source 文档名
+     * @param content 文档内容
+     */
+    public void addDocument(String source, String content) {
+        for (String passage : this.split(content)) {
+            index.add(source, passage);
+        }
+    }
+
+    /**
+     * 检索相关段落
+     * @param query 查询文本
+     * @return 按得分降序排列、且高于最低得分的段落
+     */
+    public List<Bm25Index.Hit> search(String query) {
+        if (index == null || StrUtil.isBlank(query)) {
+            return List.of();
+        }
+        return index.search(query, properties.getTopK()).stream()
+                .filter(hit -> hit.score() >= properties.getMinScore())
+                .toList();
+    }
+
+    /**
+     * 按空行切分段落，短段落合并、长段落按句子切开，每段不超过 maxPassageLength
+     */
+    private List<String> split(String content) {
+        int maxLength = properties.getMaxPassageLength();
+        List<String> passages = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : content.split("\\n\\s*\\n")) {
+            paragraph = paragraph.strip();
+            if (paragraph.isEmpty()) {
+                continue;
+            }
+            for (String sentence : this.splitLong(paragraph, maxLength)) {
+                if (current.length() > 0 && current.length() + sentence.length() + 1 > maxLength) {
+                    passages.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append('\n');
+                }
+                current.append(sentence);
+            }
+        }
+        if (current.length() > 0) {
+            passages.add(current.toString());
+        }
+        return passages;
+    }
+
+    private List<String> splitLong(String paragraph, int maxLength) {
+        if (paragraph.length() <= maxLength) {
+            return List.of(paragraph);
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < paragraph.length(); i++) {
+            char c = paragraph.charAt(i);
+            boolean sentenceEnd = c == '。' || c == '！' || c == '？' || c == '；' || c == '\n';
+            if ((sentenceEnd && i + 1 - start >= maxLength / 2) || i + 1 - start >= maxLength) {
+                parts.add(paragraph.substring(start, i + 1).strip());
+                start = i + 1;
+            }
+        }
+        if (start < paragraph.length()) {
+            parts.add(paragraph.substring(start).strip());
+        }
+        return parts;
+    }
+}
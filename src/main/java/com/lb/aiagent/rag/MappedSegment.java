@@ -0,0 +1,119 @@
+package com.lb.aiagent.rag;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 只读的内存映射段
+ * 文件布局：[倒排表 int...][文档长度 int...][文本偏移 int...][文本 bytes][词典][尾部元信息 36 字节]
+ * 词典常驻堆内（词项 -> 文档频率 + 倒排表位置），倒排表和文本按需从映射区读取
+ */
+class MappedSegment implements Segment {
+
+    static final int MAGIC = 0x424D3235;
+
+    private static final int FOOTER_SIZE = 36;
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * 词项 -> (文档频率 << 32 | 倒排表起始 int 下标)
+     */
+    private final Map<String, Long> dictionary;
+
+    private final int docCount;
+
+    private final long totalLength;
+
+    private final int docLengthsPos;
+
+    private final int textOffsetsPos;
+
+    private final int textsPos;
+
+    MappedSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (footer < 0 || buffer.getInt(footer + 32) != MAGIC) {
+            throw new IOException("Invalid segment file: " + file);
+        }
+        this.docCount = buffer.getInt(footer);
+        int termCount = buffer.getInt(footer + 4);
+        this.totalLength = buffer.getLong(footer + 8);
+        this.docLengthsPos = buffer.getInt(footer + 16);
+        this.textOffsetsPos = buffer.getInt(footer + 20);
+        this.textsPos = buffer.getInt(footer + 24);
+        int pos = buffer.getInt(footer + 28);
+        this.dictionary = new HashMap<>(termCount * 2);
+        for (int i = 0; i < termCount; i++) {
+            int length = buffer.getShort(pos);
+            byte[] term = new byte[length];
+            buffer.get(pos + 2, term);
+            pos += 2 + length;
+            long df = buffer.getInt(pos);
+            long postings = buffer.getInt(pos + 4);
+            pos += 8;
+            dictionary.put(new String(term, StandardCharsets.UTF_8), df << 32 | postings);
+        }
+    }
+
+    @Override
+    public int docCount() {
+        return docCount;
+    }
+
+    @Override
+    public long totalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public int docFreq(String term) {
+        Long info = dictionary.get(term);
+        return info == null ? 0 : (int) (info >>> 32);
+    }
+
+    @Override
+    public void score(String term, float idf, Bm25Index.Params params, float avgLength, int docBase, ScoreAccumulator accumulator) {
+        Long info = dictionary.get(term);
+        if (info == null) {
+            return;
+        }
+        int df = (int) (info >>> 32);
+        int pos = (int) (info & 0xFFFFFFFFL) * Integer.BYTES;
+        for (int i = 0; i < df; i++, pos += 8) {
+            int doc = buffer.getInt(pos);
+            int tf = buffer.getInt(pos + 4);
+            int length = buffer.getInt(docLengthsPos + doc * Integer.BYTES);
+            accumulator.add(docBase + doc, params.score(idf, tf, length, avgLength));
+        }
+    }
+
+    @Override
+    public String source(int doc) {
+        String raw = this.raw(doc);
+        return raw.substring(0, raw.indexOf('\0'));
+    }
+
+    @Override
+    public String text(int doc) {
+        String raw = this.raw(doc);
+        return raw.substring(raw.indexOf('\0') + 1);
+    }
+
+    private String raw(int doc) {
+        int start = buffer.getInt(textOffsetsPos + doc * Integer.BYTES);
+        int end = buffer.getInt(textOffsetsPos + (doc + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(textsPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package com.lb.aiagent.rag;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的可写段，新增文档先写入这里，达到阈值后落盘为 {@link MappedSegment}
+ */
+class MemorySegment implements Segment {
+
+    /**
+     * 词项 -> 倒排表，[0] 为已用长度，其后为 (文档编号, 词频) 对
+     */
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    private int[] docLengths = new int[64];
+
+    private final List<String> sources = new ArrayList<>();
+
+    private final List<String> texts = new ArrayList<>();
+
+    private long totalLength;
+
+    void add(String source, String text) {
+        int doc = texts.size();
+        List<String> terms = ChineseTokenizer.tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int[] list = postings.computeIfAbsent(entry.getKey(), k -> new int[5]);
+            int used = list[0];
+            if (used + 2 >= list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                postings.put(entry.getKey(), list);
+            }
+            list[used + 1] = doc;
+            list[used + 2] = entry.getValue();
+            list[0] = used + 2;
+        }
+        if (doc == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+        docLengths[doc] = terms.size();
+        totalLength += terms.size();
+        sources.add(source);
+        texts.add(text);
+    }
+
+    @Override
+    public int docCount() {
+        return texts.size();
+    }
+
+    @Override
+    public long totalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public int docFreq(String term) {
+        int[] list = postings.get(term);
+        return list == null ? 0 : list[0] / 2;
+    }
+
+    @Override
+    public void score(String term, float idf, Bm25Index.Params params, float avgLength, int docBase, ScoreAccumulator accumulator) {
+        int[] list = postings.get(term);
+        if (list == null) {
+            return;
+        }
+        for (int i = 1; i < list[0]; i += 2) {
+            int doc = list[i];
+            accumulator.add(docBase + doc, params.score(idf, list[i + 1], docLengths[doc], avgLength));
+        }
+    }
+
+    @Override
+    public String source(int doc) {
+        return sources.get(doc);
+    }
+
+    @Override
+    public String text(int doc) {
+        return texts.get(doc);
+    }
+
+    /**
+     * 写出为段文件，格式见 {@link MappedSegment}
+     */
+    void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            // 倒排表
+            Map<String, Integer> postingPositions = new HashMap<>(postings.size() * 2);
+            int intIndex = 0;
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                int[] list = entry.getValue();
+                postingPositions.put(entry.getKey(), intIndex);
+                for (int i = 1; i <= list[0]; i++) {
+                    out.writeInt(list[i]);
+                }
+                intIndex += list[0];
+            }
+            // 文档长度
+            int docLengthsPos = out.size();
+            int docCount = texts.size();
+            for (int i = 0; i < docCount; i++) {
+                out.writeInt(docLengths[i]);
+            }
+            // 文本偏移与文本（来源 + '\0' + 正文）
+            byte[][] encoded = new byte[docCount][];
+            int textOffsetsPos = out.size();
+            int offset = 0;
+            for (int i = 0; i < docCount; i++) {
+                encoded[i] = (sources.get(i) + '\0' + texts.get(i)).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(offset);
+                offset += encoded[i].length;
+            }
+            out.writeInt(offset);
+            int textsPos = out.size();
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+            // 词典
+            int dictPos = out.size();
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(term.length);
+                out.write(term);
+                out.writeInt(entry.getValue()[0] / 2);
+                out.writeInt(postingPositions.get(entry.getKey()));
+            }
+            // 尾部元信息
+            out.writeInt(docCount);
+            out.writeInt(postings.size());
+            out.writeLong(totalLength);
+            out.writeInt(docLengthsPos);
+            out.writeInt(textOffsetsPos);
+            out.writeInt(textsPos);
+            out.writeInt(dictPos);
+            out.writeInt(MappedSegment.MAGIC);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
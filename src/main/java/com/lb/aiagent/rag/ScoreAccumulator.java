@@ -0,0 +1,50 @@
+package com.lb.aiagent.rag;
+
+import java.util.Arrays;
+
+/**
+ * 查询得分累加器，只记录被命中的文档，查询结束后按命中列表清零以便复用
+ */
+class ScoreAccumulator {
+
+    private float[] scores = new float[1024];
+
+    private int[] touched = new int[256];
+
+    private int touchedCount;
+
+    void ensureCapacity(int docCount) {
+        if (scores.length < docCount) {
+            scores = Arrays.copyOf(scores, Math.max(docCount, scores.length * 2));
+        }
+    }
+
+    void add(int doc, float score) {
+        if (scores[doc] == 0) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = doc;
+        }
+        scores[doc] += score;
+    }
+
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int touchedDoc(int i) {
+        return touched[i];
+    }
+
+    float score(int doc) {
+        return scores[doc];
+    }
+
+    void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0;
+        }
+        touchedCount = 0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.lb.aiagent.rag;
+
+/**
+ * 倒排索引段
+ */
+interface Segment {
+
+    int docCount();
+
+    long totalLength();
+
+    /**
+     * 包含该词项的文档数
+     */
+    int docFreq(String term);
+
+    /**
+     * 按 BM25 累加该词项对段内各文档的得分
+     * @param docBase 段内第一个文档的全局编号
+     */
+    void score(String term, float idf, Bm25Index.Params params, float avgLength, int docBase, ScoreAccumulator accumulator);
+
+    String source(int doc);
+
+    String text(int doc);
+}
@@ -0,0 +1,61 @@
+package com.lb.aiagent.report;
+
+import cn.hutool.core.util.StrUtil;
+import com.lb.aiagent.config.ReportProperties;
+import com.lb.aiagent.utils.JacksonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按会话保存最近一次生成的报告及其覆盖到的记忆位置
+ */
+@Slf4j
+@Component
+public class ConversationReportStore {
+
+    public static final String REPORT_KEY = "CHAT:REPORT:KEY:CONVERSATIONID:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ReportProperties properties;
+
+    public ConversationReportStore(StringRedisTemplate stringRedisTemplate, ReportProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 读取会话的报告，不存在或读取失败时返回 null
+     * @param type 报告类型，不同类型的报告分开保存
+     */
+    public ReportSnapshot get(String conversationId, Class<?> type) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(this.key(conversationId, type));
+            return StrUtil.isBlank(json) ? null : JacksonUtil.toObject(json, ReportSnapshot.class);
+        } catch (Exception e) {
+            // 读取失败时按没有报告处理，重新全量生成
+            log.warn("Error reading report snapshot msg[{}]", e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String conversationId, Class<?> type, ReportSnapshot snapshot) {
+        try {
+            stringRedisTemplate.opsForValue().set(this.key(conversationId, type), JacksonUtil.toJsonString(snapshot),
+                    properties.getTtl().toSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Error writing report snapshot msg[{}]", e.getMessage());
+        }
+    }
+
+    public void remove(String conversationId, Class<?> type) {
+        stringRedisTemplate.delete(this.key(conversationId, type));
+    }
+
+    private String key(String conversationId, Class<?> type) {
+        return REPORT_KEY + type.getSimpleName() + ":" + conversationId;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lb.aiagent.report;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 会话最近一次生成的报告
+ * @param report 报告 JSON
+ * @param offset 报告覆盖到的记忆消息数，记忆中此后的消息为新对话
+ * @param inputDigest 生成报告时用户输入的摘要
+ * @param historyDigest 报告覆盖到的记忆消息的摘要，用于发现记忆过期后重新增长的情况
+ */
+public record ReportSnapshot(String report, int offset, String inputDigest, String historyDigest) {
+
+    /**
+     * 按生成报告后的完整记忆创建快照
+     */
+    public static ReportSnapshot of(String report, String inputDigest, List<Message> history) {
+        return new ReportSnapshot(report, history.size(), inputDigest, digest(history, history.size()));
+    }
+
+    /**
+     * 当前记忆的前 offset 条是否仍是报告覆盖过的那些消息
+     */
+    public boolean covers(List<Message> history) {
+        return offset <= history.size() && historyDigest != null
+                && historyDigest.equals(digest(history, offset));
+    }
+
+    private static String digest(List<Message> history, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            Message message = history.get(i);
+            builder.append(message.getMessageType()).append(':').append(message.getText()).append('\n');
+        }
+        return DigestUtil.sha256Hex(builder.toString());
+    }
+}
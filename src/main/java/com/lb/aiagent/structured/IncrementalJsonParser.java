@@ -0,0 +1,172 @@
+package com.lb.aiagent.structured;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 增量 JSON 解析
+ * 模型流式返回的文本分片逐段喂给 Jackson 非阻塞解析器，每当一个完整的标量值（字符串、数字等）解析完成就更新对象树，
+ * 调用方可据此推送部分结果。根对象之前的内容（如 ```json 代码块标记）和之后的内容会被忽略
+ */
+public class IncrementalJsonParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final JsonParser parser;
+
+    private final ByteArrayFeeder feeder;
+
+    /**
+     * 当前所在的对象或数组
+     */
+    private final Deque<JsonNode> stack = new ArrayDeque<>();
+
+    private ObjectNode root;
+
+    private String fieldName;
+
+    private boolean started;
+
+    private boolean finished;
+
+    public IncrementalJsonParser() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 喂入一段文本
+     * @param chunk 文本分片
+     * @return 是否有新的值解析完成
+     */
+    public boolean feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return false;
+        }
+        if (!started) {
+            // 跳过根对象之前的内容
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return false;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return this.drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed JSON in model output", e);
+        }
+    }
+
+    /**
+     * 根对象是否已完整解析
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 当前已解析部分的副本，还没有开始解析时返回空对象
+     */
+    public ObjectNode snapshot() {
+        return root == null ? JsonNodeFactory.instance.objectNode() : root.deepCopy();
+    }
+
+    /**
+     * 当前已解析部分转换为目标类型，缺少的字段为 null
+     */
+    public <T> T snapshot(Class<T> type) {
+        return OBJECT_MAPPER.convertValue(this.snapshot(), type);
+    }
+
+    /**
+     * 把模型的流式文本转换为逐步完善的对象流，每解析出一个完整的值推送一次
+     * @param chunks 模型返回的文本分片
+     * @param type 目标类型
+     */
+    public static <T> Flux<T> parse(Flux<String> chunks, Class<T> type) {
+        return Flux.defer(() -> {
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            return chunks.concatMapIterable(chunk -> parser.feed(chunk)
+                    ? List.of(parser.snapshot(type)) : List.of());
+        });
+    }
+
+    private boolean drain() throws IOException {
+        boolean changed = false;
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            switch (token) {
+                case START_OBJECT -> this.push(JsonNodeFactory.instance.objectNode());
+                case START_ARRAY -> this.push(JsonNodeFactory.instance.arrayNode());
+                case END_OBJECT, END_ARRAY -> {
+                    stack.pop();
+                    finished = stack.isEmpty();
+                }
+                case FIELD_NAME -> fieldName = parser.currentName();
+                case VALUE_STRING -> changed |= this.attach(JsonNodeFactory.instance.textNode(parser.getText()));
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> changed |= this.attach(
+                        JsonNodeFactory.instance.numberNode(parser.getDecimalValue()));
+                case VALUE_TRUE, VALUE_FALSE -> changed |= this.attach(
+                        JsonNodeFactory.instance.booleanNode(token == JsonToken.VALUE_TRUE));
+                case VALUE_NULL -> changed |= this.attach(JsonNodeFactory.instance.nullNode());
+                default -> {
+                }
+            }
+        }
+        if (finished) {
+            feeder.endOfInput();
+        }
+        return changed;
+    }
+
+    private void push(JsonNode node) {
+        if (stack.isEmpty()) {
+            // 只接受对象作为根
+            root = node instanceof ObjectNode objectNode ? objectNode : JsonNodeFactory.instance.objectNode();
+            stack.push(root);
+            return;
+        }
+        this.attach(node);
+        stack.push(node);
+    }
+
+    private boolean attach(JsonNode node) {
+        JsonNode parent = stack.peek();
+        if (parent instanceof ObjectNode objectNode) {
+            objectNode.set(fieldName, node);
+            return true;
+        }
+        if (parent instanceof ArrayNode arrayNode) {
+            arrayNode.add(node);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lb.aiagent.structured;
+
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.converter.StructuredOutputConverter;
+
+/**
+ * 预编译的结构化输出
+ * JSON Schema 和格式说明在构造时生成一次，系统提示词也提前拼好，之后每次调用直接复用
+ * @param <T> 目标类型
+ */
+public class StructuredOutput<T> implements StructuredOutputConverter<T> {
+
+    private final Class<T> type;
+
+    private final BeanOutputConverter<T> converter;
+
+    private final String format;
+
+    private final String systemText;
+
+    StructuredOutput(Class<T> type, String systemText) {
+        this.type = type;
+        this.converter = new BeanOutputConverter<>(type);
+        this.format = converter.getFormat();
+        this.systemText = systemText;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 渲染好的系统提示词
+     */
+    public String getSystemText() {
+        return systemText;
+    }
+
+    /**
+     * 附加在用户输入之后的 JSON 格式要求（缓存值）
+     */
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public T convert(String text) {
+        return converter.convert(text);
+    }
+}
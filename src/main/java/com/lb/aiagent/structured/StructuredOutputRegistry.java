@@ -0,0 +1,44 @@
+package com.lb.aiagent.structured;
+
+import com.lb.aiagent.exception.ErrorCode;
+import com.lb.aiagent.exception.ThrowUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 结构化输出注册表
+ * 启动时为每种输出类型生成一次转换器和提示词，调用时按类型取用，避免每次 entity() 都重新生成 JSON Schema
+ */
+@Component
+public class StructuredOutputRegistry {
+
+    private final Map<Class<?>, StructuredOutput<?>> outputs = new ConcurrentHashMap<>();
+
+    /**
+     * 注册输出类型，已用相同提示词注册时返回已有的。
+     * 同一类型只能对应一个系统提示词，用不同提示词重复注册会抛出异常，避免调用方拿到别人的提示词
+     * @param type 目标类型（record 或 JavaBean）
+     * @param systemText 生成该类型时使用的系统提示词
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StructuredOutput<T> register(Class<T> type, String systemText) {
+        StructuredOutput<T> output = (StructuredOutput<T>) outputs.computeIfAbsent(type,
+                k -> new StructuredOutput<>(type, systemText));
+        ThrowUtils.throwIf(!Objects.equals(output.getSystemText(), systemText), ErrorCode.SYSTEM_ERROR,
+                "结构化输出类型已使用其他系统提示词注册：" + type.getName());
+        return output;
+    }
+
+    /**
+     * 获取已注册的输出类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StructuredOutput<T> get(Class<T> type) {
+        StructuredOutput<T> output = (StructuredOutput<T>) outputs.get(type);
+        ThrowUtils.throwIf(output == null, ErrorCode.SYSTEM_ERROR, "未注册的结构化输出类型：" + type.getName());
+        return output;
+    }
+}
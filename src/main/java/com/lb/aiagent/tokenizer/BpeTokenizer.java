@@ -0,0 +1,414 @@
+package com.lb.aiagent.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 字节级 BPE 分词器，兼容通义千问的 tiktoken 格式词表（qwen.tiktoken，每行为 "base64 编码的字节序列 编号"）。
+ * 先按正则切分文本，再对每段的 UTF-8 字节按编号从小到大合并。
+ * 词表的字节序列拼接存放在一个数组中，查找用开放寻址哈希表直接比较字节，编码过程中不为每段、每个 token 创建对象。
+ * 不处理 &lt;|im_start|&gt; 等特殊 token，它们按普通文本切分。实例不可变，可在多线程间共享
+ */
+public class BpeTokenizer implements TokenCounter {
+
+    /**
+     * 通义千问的预切分规则
+     */
+    private static final Pattern PRE_TOKENIZE = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+                    + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * 所有 token 的字节序列首尾相接
+     */
+    private final byte[] data;
+
+    /**
+     * 第 i 个 token 的字节序列为 data[offsets[i], offsets[i + 1])
+     */
+    private final int[] offsets;
+
+    private final int[] ids;
+
+    /**
+     * 开放寻址哈希表，存放 token 下标 + 1，0 表示空位
+     */
+    private final int[] table;
+
+    private final int mask;
+
+    /**
+     * 编号 -> token 下标，用于解码
+     */
+    private final int[] idToIndex;
+
+    private BpeTokenizer(byte[] data, int[] offsets, int[] ids, int size) {
+        this.data = data;
+        this.offsets = offsets;
+        this.ids = ids;
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        int maxId = 0;
+        for (int i = 0; i < size; i++) {
+            maxId = Math.max(maxId, ids[i]);
+        }
+        this.idToIndex = new int[maxId + 1];
+        Arrays.fill(idToIndex, -1);
+        for (int i = 0; i < size; i++) {
+            int start = offsets[i];
+            int length = offsets[i + 1] - start;
+            if (this.indexOf(data, start, length) >= 0) {
+                throw new IllegalArgumentException("Duplicate token in vocabulary, id " + ids[i]);
+            }
+            int slot = hash(data, start, length) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+            idToIndex[ids[i]] = i;
+        }
+        // 字节级 BPE 要求每个单字节都在词表中，否则有些文本无法编码
+        byte[] single = new byte[1];
+        for (int b = 0; b < 256; b++) {
+            single[0] = (byte) b;
+            if (this.indexOf(single, 0, 1) < 0) {
+                throw new IllegalArgumentException("Vocabulary is missing byte " + b);
+            }
+        }
+    }
+
+    public static BpeTokenizer load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    /**
+     * 读取 tiktoken 格式的词表
+     */
+    public static BpeTokenizer load(InputStream in) throws IOException {
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] data = new byte[1 << 20];
+        int[] offsets = new int[1 << 16];
+        int[] ids = new int[1 << 16];
+        int size = 0;
+        int length = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space <= 0) {
+                throw new IOException("Invalid vocabulary line: " + line);
+            }
+            byte[] token = decoder.decode(line.substring(0, space));
+            if (size + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            if (length + token.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + token.length));
+            }
+            System.arraycopy(token, 0, data, length, token.length);
+            offsets[size] = length;
+            ids[size] = Integer.parseInt(line.substring(space + 1).trim());
+            length += token.length;
+            size++;
+        }
+        offsets[size] = length;
+        return new BpeTokenizer(Arrays.copyOf(data, length), Arrays.copyOf(offsets, size + 1),
+                Arrays.copyOf(ids, size), size);
+    }
+
+    public int vocabularySize() {
+        return ids.length;
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return this.encode(text, null);
+    }
+
+    /**
+     * 编码为 token 编号
+     */
+    public int[] encode(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return new int[0];
+        }
+        Output output = new Output(text.length());
+        this.encode(text, output);
+        return Arrays.copyOf(output.ids, output.size);
+    }
+
+    /**
+     * 把 token 编号还原为文本
+     */
+    public String decode(int[] tokens) {
+        byte[] bytes = new byte[tokens.length * 4];
+        int length = 0;
+        for (int id : tokens) {
+            int index = id >= 0 && id < idToIndex.length ? idToIndex[id] : -1;
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown token id " + id);
+            }
+            int start = offsets[index];
+            int tokenLength = offsets[index + 1] - start;
+            if (length + tokenLength > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + tokenLength));
+            }
+            System.arraycopy(data, start, bytes, length, tokenLength);
+            length += tokenLength;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param output 为 null 时只计数
+     * @return token 数
+     */
+    private int encode(CharSequence text, Output output) {
+        Scratch scratch = new Scratch();
+        Matcher matcher = PRE_TOKENIZE.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            int length = scratch.utf8(text, matcher.start(), matcher.end());
+            count += this.encodePiece(scratch, length, output);
+        }
+        return count;
+    }
+
+    /**
+     * 对一段字节做 BPE 合并。
+     * 每个位置是一个符号，用双向链表连接；候选合并按 (编号, 位置) 放入最小堆，
+     * 每次取编号最小、位置最靠左的一对合并，与 tiktoken 的合并顺序一致。
+     * pairRank 记录每个符号与其右邻当前可合并的编号，堆中与之不符的候选已过期，出堆时直接跳过
+     */
+    private int encodePiece(Scratch scratch, int length, Output output) {
+        byte[] bytes = scratch.bytes;
+        int whole = this.indexOf(bytes, 0, length);
+        if (whole >= 0) {
+            if (output != null) {
+                output.add(ids[whole]);
+            }
+            return 1;
+        }
+        int[] next = scratch.next;
+        int[] prev = scratch.prev;
+        int[] pairRank = scratch.pairRank;
+        for (int i = 0; i < length; i++) {
+            next[i] = i + 1;
+            prev[i] = i - 1;
+        }
+        next[length - 1] = -1;
+        pairRank[length - 1] = -1;
+        scratch.heapSize = 0;
+        for (int i = 0; i + 1 < length; i++) {
+            this.pushPair(scratch, i, i + 2);
+        }
+        int symbols = length;
+        while (scratch.heapSize > 0) {
+            long top = scratch.pop();
+            int left = (int) top;
+            int rank = (int) (top >>> 32);
+            // 左侧符号已被合并掉，或右邻已变化
+            if (prev[left] == -2 || pairRank[left] != rank) {
+                continue;
+            }
+            int right = next[left];
+            int end = next[right] < 0 ? length : next[right];
+            // 合并 left 与 right
+            next[left] = next[right];
+            if (next[right] >= 0) {
+                prev[next[right]] = left;
+            }
+            prev[right] = -2;
+            symbols--;
+            if (prev[left] >= 0) {
+                this.pushPair(scratch, prev[left], end);
+            }
+            if (next[left] >= 0) {
+                int nextEnd = next[next[left]] < 0 ? length : next[next[left]];
+                this.pushPair(scratch, left, nextEnd);
+            } else {
+                pairRank[left] = -1;
+            }
+        }
+        if (output != null) {
+            for (int i = 0; i >= 0; i = next[i]) {
+                int end = next[i] < 0 ? length : next[i];
+                output.add(ids[this.indexOf(bytes, i, end - i)]);
+            }
+        }
+        return symbols;
+    }
+
+    private void pushPair(Scratch scratch, int start, int end) {
+        int index = this.indexOf(scratch.bytes, start, end - start);
+        if (index >= 0) {
+            scratch.pairRank[start] = ids[index];
+            scratch.push(((long) ids[index] << 32) | start);
+        } else {
+            scratch.pairRank[start] = -1;
+        }
+    }
+
+    /**
+     * 查找字节序列对应的 token 下标，不存在时返回 -1
+     */
+    private int indexOf(byte[] bytes, int start, int length) {
+        int slot = hash(bytes, start, length) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            int tokenStart = offsets[index];
+            if (offsets[index + 1] - tokenStart == length
+                    && Arrays.equals(data, tokenStart, tokenStart + length, bytes, start, start + length)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(byte[] bytes, int start, int length) {
+        int h = 0x811c9dc5;
+        for (int i = start; i < start + length; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 单次编码复用的缓冲区，按最长的一段扩容
+     */
+    private static final class Scratch {
+
+        private byte[] bytes = new byte[64];
+
+        private int[] next = new int[64];
+
+        private int[] prev = new int[64];
+
+        private int[] pairRank = new int[64];
+
+        /**
+         * 每次合并最多新增两个候选，容量为字节数的 3 倍
+         */
+        private long[] heap = new long[192];
+
+        private int heapSize;
+
+        /**
+         * 把 text[start, end) 编码为 UTF-8 写入 bytes
+         * @return 字节数
+         */
+        int utf8(CharSequence text, int start, int end) {
+            int required = (end - start) * 3;
+            if (required > bytes.length) {
+                int capacity = Math.max(required, bytes.length * 2);
+                bytes = new byte[capacity];
+                next = new int[capacity];
+                prev = new int[capacity];
+                pairRank = new int[capacity];
+                heap = new long[capacity * 3];
+            }
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (cp >> 18));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (cp & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符按 '?' 处理，与 String.getBytes 一致
+                    bytes[length++] = '?';
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return length;
+        }
+
+        void push(long value) {
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    /**
+     * 编码结果
+     */
+    private static final class Output {
+
+        private int[] ids;
+
+        private int size;
+
+        Output(int capacity) {
+            this.ids = new int[Math.max(capacity, 16)];
+        }
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.lb.aiagent.tokenizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带 LRU 缓存的 token 计数。
+ * 每轮对话都会重新计算整段上下文，历史消息的文本不变，按文本缓存计数结果；
+ * 短文本直接计算比查缓存更快，不进缓存
+ */
+public class CachingTokenCounter implements TokenCounter {
+
+    private final TokenCounter delegate;
+
+    private final int minChars;
+
+    private final Map<String, Integer> cache;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public CachingTokenCounter(TokenCounter delegate, int maxEntries, int minChars) {
+        this.delegate = delegate;
+        this.minChars = minChars;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        if (text == null || text.length() < minChars || !(text instanceof String key)) {
+            return delegate.count(text);
+        }
+        Integer cached;
+        lock.lock();
+        try {
+            cached = cache.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // 计数放在锁外，并发计算同一文本时结果相同，后写入的覆盖即可
+        int count = delegate.count(key);
+        lock.lock();
+        try {
+            cache.put(key, count);
+        } finally {
+            lock.unlock();
+        }
+        return count;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.lb.aiagent.tokenizer;
+
+/**
+ * Token 计数
+ */
+@FunctionalInterface
+public interface TokenCounter {
+
+    /**
+     * 计算文本的 token 数
+     */
+    int count(CharSequence text);
+}
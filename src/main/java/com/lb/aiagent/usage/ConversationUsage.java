@@ -0,0 +1,16 @@
+package com.lb.aiagent.usage;
+
+/**
+ * 会话累计的 token 用量
+ * @param promptTokens 提示词 token 数
+ * @param completionTokens 回答 token 数
+ * @param calls 模型调用次数
+ */
+public record ConversationUsage(long promptTokens, long completionTokens, long calls) {
+
+    public static final ConversationUsage EMPTY = new ConversationUsage(0, 0, 0);
+
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
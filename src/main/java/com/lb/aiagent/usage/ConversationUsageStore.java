@@ -0,0 +1,69 @@
+package com.lb.aiagent.usage;
+
+import cn.hutool.core.convert.Convert;
+import com.lb.aiagent.config.StreamMetricsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 按会话累计 token 用量
+ * 保存在 Redis 哈希中（prompt、completion、calls 三个字段），用 HINCRBY 累加，多实例并发写入不会丢失。
+ * 写入在虚拟线程中异步执行，不占用模型回答的返回路径
+ */
+@Slf4j
+@Component
+public class ConversationUsageStore {
+
+    public static final String USAGE_KEY = "CHAT:USAGE:KEY:CONVERSATIONID:";
+
+    private static final String PROMPT = "prompt";
+
+    private static final String COMPLETION = "completion";
+
+    private static final String CALLS = "calls";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final StreamMetricsProperties properties;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ConversationUsageStore(StringRedisTemplate stringRedisTemplate, StreamMetricsProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 累加一次模型调用的用量
+     */
+    public void add(String conversationId, long promptTokens, long completionTokens) {
+        executor.execute(() -> {
+            try {
+                String key = USAGE_KEY + conversationId;
+                HashOperations<String, Object, Object> hash = stringRedisTemplate.opsForHash();
+                hash.increment(key, PROMPT, promptTokens);
+                hash.increment(key, COMPLETION, completionTokens);
+                hash.increment(key, CALLS, 1);
+                stringRedisTemplate.expire(key, properties.getAccountingTtl());
+            } catch (Exception e) {
+                log.warn("Error writing conversation usage msg[{}]", e.getMessage());
+            }
+        });
+    }
+
+    public ConversationUsage get(String conversationId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(USAGE_KEY + conversationId);
+        if (fields.isEmpty()) {
+            return ConversationUsage.EMPTY;
+        }
+        return new ConversationUsage(Convert.toLong(fields.get(PROMPT), 0L),
+                Convert.toLong(fields.get(COMPLETION), 0L),
+                Convert.toLong(fields.get(CALLS), 0L));
+    }
+}
@@ -1,32 +1,69 @@
 package com.lb.aiagent.utils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Jackson 字符串与对象转换工具类
+ * 按目标类型缓存 ObjectReader，JavaType 只构造一次；ObjectWriter 全局共用。
+ * 流式读写不关闭传入的流，由调用方负责关闭
  */
 public class JacksonUtil {
-    
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    
-    static {
+
+    private static final ObjectMapper objectMapper = configure(new ObjectMapper());
+
+    private static final ObjectWriter writer = objectMapper.writer()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, JavaType> listTypes = new ConcurrentHashMap<>();
+
+    private static final Map<MapType, ObjectReader> mapReaders = new ConcurrentHashMap<>();
+
+    private static final Map<Type, ObjectReader> typeReaders = new ConcurrentHashMap<>();
+
+    private JacksonUtil() {
+    }
+
+    /**
+     * 公共的 ObjectMapper 配置，本工具类与 Web 层（JsonConfig）共用
+     * @param mapper 待配置的 ObjectMapper
+     * @return 传入的 mapper
+     */
+    public static ObjectMapper configure(ObjectMapper mapper) {
         // 注册 Java 8 时间模块
-        objectMapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new JavaTimeModule());
         // 禁用日期转时间戳
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        // 美化输出（可选，根据需求开启）
-        // objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+        mapper.setTimeZone(TimeZone.getTimeZone("GMT+8"));
+        return mapper;
     }
-    
+
     /**
      * 对象转字符串
      * @param obj 对象
@@ -34,12 +71,38 @@ public class JacksonUtil {
      */
     public static String toJsonString(Object obj) {
         try {
-            return objectMapper.writeValueAsString(obj);
+            return writer.writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("对象转JSON字符串失败", e);
         }
     }
-    
+
+    /**
+     * 对象转 UTF-8 字节
+     * @param obj 对象
+     * @return JSON 字节
+     */
+    public static byte[] toJsonBytes(Object obj) {
+        try {
+            return writer.writeValueAsBytes(obj);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("对象转JSON字节失败", e);
+        }
+    }
+
+    /**
+     * 对象直接写入输出流，不经过中间字符串
+     * @param out 输出流
+     * @param obj 对象
+     */
+    public static void writeTo(OutputStream out, Object obj) {
+        try {
+            writer.writeValue(out, obj);
+        } catch (IOException e) {
+            throw new RuntimeException("对象写入JSON输出流失败", e);
+        }
+    }
+
     /**
      * 字符串转对象
      * @param json JSON 字符串
@@ -49,12 +112,34 @@ public class JacksonUtil {
      */
     public static <T> T toObject(String json, Class<T> clazz) {
         try {
-            return objectMapper.readValue(json, clazz);
+            return readerFor(clazz).readValue(json);
         } catch (IOException e) {
             throw new RuntimeException("JSON字符串转对象失败", e);
         }
     }
-    
+
+    /**
+     * 字节转对象
+     */
+    public static <T> T toObject(byte[] json, Class<T> clazz) {
+        try {
+            return readerFor(clazz).readValue(json);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON字节转对象失败", e);
+        }
+    }
+
+    /**
+     * 输入流转对象
+     */
+    public static <T> T toObject(InputStream in, Class<T> clazz) {
+        try {
+            return readerFor(clazz).readValue(in);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON输入流转对象失败", e);
+        }
+    }
+
     /**
      * 字符串转集合
      * @param json JSON 字符串
@@ -64,13 +149,50 @@ public class JacksonUtil {
      */
     public static <T> List<T> toList(String json, Class<T> clazz) {
         try {
-            JavaType javaType = objectMapper.getTypeFactory().constructCollectionType(List.class, clazz);
-            return objectMapper.readValue(json, javaType);
+            return listReaderFor(clazz).readValue(json);
         } catch (IOException e) {
             throw new RuntimeException("JSON字符串转集合失败 " + e.getMessage(), e);
         }
     }
-    
+
+    /**
+     * 字节转集合
+     */
+    public static <T> List<T> toList(byte[] json, Class<T> clazz) {
+        try {
+            return listReaderFor(clazz).readValue(json);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON字节转集合失败 " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 输入流转集合
+     */
+    public static <T> List<T> toList(InputStream in, Class<T> clazz) {
+        try {
+            return listReaderFor(clazz).readValue(in);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON输入流转集合失败 " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 逐个读取 JSON 数组中的元素，不把整个数组读入内存，适合很大的数组。
+     * 用完后关闭返回的迭代器；读取出错时 next() 抛出 RuntimeJsonMappingException
+     * @param in 内容为 JSON 数组的输入流
+     * @param clazz 数组元素类
+     * @param <T> 泛型类型
+     * @return 元素迭代器
+     */
+    public static <T> MappingIterator<T> iterateArray(InputStream in, Class<T> clazz) {
+        try {
+            return readerFor(clazz).readValues(in);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON输入流读取数组失败", e);
+        }
+    }
+
     /**
      * 字符串转Map
      * @param json JSON 字符串
@@ -82,13 +204,15 @@ public class JacksonUtil {
      */
     public static <K, V> Map<K, V> toMap(String json, Class<K> keyClass, Class<V> valueClass) {
         try {
-            JavaType javaType = objectMapper.getTypeFactory().constructMapType(Map.class, keyClass, valueClass);
-            return objectMapper.readValue(json, javaType);
+            ObjectReader reader = mapReaders.computeIfAbsent(new MapType(keyClass, valueClass),
+                    k -> objectMapper.readerFor(objectMapper.getTypeFactory()
+                            .constructMapType(Map.class, keyClass, valueClass)));
+            return reader.readValue(json);
         } catch (IOException e) {
             throw new RuntimeException("JSON字符串转Map失败", e);
         }
     }
-    
+
     /**
      * 字符串转复杂类型（如List<Map<String, Object>>等）
      * @param json JSON 字符串
@@ -98,12 +222,36 @@ public class JacksonUtil {
      */
     public static <T> T toComplexType(String json, TypeReference<T> typeReference) {
         try {
-            return objectMapper.readValue(json, typeReference);
+            ObjectReader reader = typeReaders.computeIfAbsent(typeReference.getType(),
+                    k -> objectMapper.readerFor(typeReference));
+            return reader.readValue(json);
         } catch (IOException e) {
             throw new RuntimeException("JSON字符串转复杂类型失败", e);
         }
     }
-    
+
+    /**
+     * 对象转换为另一类型（如 Map 转实体），不经过中间字符串；已是目标类型时直接返回
+     */
+    public static <T> T convert(Object obj, Class<T> clazz) {
+        try {
+            return objectMapper.convertValue(obj, clazz);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("对象类型转换失败", e);
+        }
+    }
+
+    /**
+     * 对象转换为集合，不经过中间字符串
+     */
+    public static <T> List<T> convertList(Object obj, Class<T> clazz) {
+        try {
+            return objectMapper.convertValue(obj, listType(clazz));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("对象转集合失败", e);
+        }
+    }
+
     /**
      * 格式化输出JSON字符串（美化输出）
      * @param obj 对象
@@ -111,9 +259,27 @@ public class JacksonUtil {
      */
     public static String toPrettyJsonString(Object obj) {
         try {
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
+            return prettyWriter.writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("对象转格式化JSON字符串失败", e);
         }
     }
-}
\ No newline at end of file
+
+    private static ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz,
+                k -> objectMapper.readerFor(k).without(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+    }
+
+    private static ObjectReader listReaderFor(Class<?> clazz) {
+        return listReaders.computeIfAbsent(clazz,
+                k -> objectMapper.readerFor(listType(k)).without(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+    }
+
+    private static JavaType listType(Class<?> clazz) {
+        return listTypes.computeIfAbsent(clazz,
+                k -> objectMapper.getTypeFactory().constructCollectionType(List.class, k));
+    }
+
+    private record MapType(Class<?> keyClass, Class<?> valueClass) {
+    }
+}
@@ -266,6 +266,6 @@ public class MapUtil {
         if (o == null) {
             return List.of();
         }
-        return JacksonUtil.toList(JacksonUtil.toJsonString(o), clazz);
+        return JacksonUtil.convertList(o, clazz);
     }
 }
\ No newline at end of file
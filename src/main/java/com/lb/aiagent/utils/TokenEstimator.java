@@ -0,0 +1,76 @@
+package com.lb.aiagent.utils;
+
+import com.lb.aiagent.tokenizer.TokenCounter;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * Token 数估算
+ * 配置了本地分词器（见 TokenizerConfig）时按词表精确计数；
+ * 否则中日韩字符按每字 1 个 token，其余字符按每 4 个 1 个 token，只用于路由、预算等不要求精确的场景
+ */
+public class TokenEstimator {
+
+    private static volatile TokenCounter counter;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 设置计数方式，传 null 恢复按字符数估算
+     */
+    public static void use(TokenCounter tokenCounter) {
+        counter = tokenCounter;
+    }
+
+    /**
+     * 估算文本的 token 数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        TokenCounter tokenCounter = counter;
+        return tokenCounter != null ? tokenCounter.count(text) : heuristic(text);
+    }
+
+    /**
+     * 按字符数估算
+     */
+    public static int heuristic(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c) || (c >= '\u3000' && c <= '\u30ff') || (c >= '\uff00' && c <= '\uffef')) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 估算消息列表的 token 数
+     */
+    public static int estimate(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += estimate(message.getText());
+        }
+        return tokens;
+    }
+
+    /**
+     * 估算请求的提示词 token 数（系统提示词、上下文消息、用户输入）
+     */
+    public static int estimate(AdvisedRequest request) {
+        return estimate(request.systemText()) + estimate(request.userText()) + estimate(request.messages());
+    }
+}
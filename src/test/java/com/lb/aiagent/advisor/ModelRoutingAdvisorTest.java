@@ -0,0 +1,181 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.concurrent.ModelConcurrencyLimiter;
+import com.lb.aiagent.concurrent.Priority;
+import com.lb.aiagent.config.ConcurrencyLimitProperties;
+import com.lb.aiagent.config.ModelRoutingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ModelRoutingAdvisorTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final ChatModel model = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+
+    private MeterRegistry meterRegistry;
+
+    private ModelRoutingProperties properties;
+
+    private ModelConcurrencyLimiter limiter;
+
+    private ModelRoutingAdvisor advisor;
+
+    private static ModelRoutingProperties.Tier tier(String name, String model, int maxPromptTokens) {
+        ModelRoutingProperties.Tier tier = new ModelRoutingProperties.Tier();
+        tier.setName(name);
+        tier.setModel(model);
+        tier.setMaxPromptTokens(maxPromptTokens);
+        return tier;
+    }
+
+    @BeforeEach
+    void setUp() {
+        ModelRoutingProperties.Tier lite = tier("lite", "qwen-turbo", 100);
+        lite.setMaxHistory(4);
+        lite.setStructuredOutput(false);
+        lite.setMaxLatency(Duration.ofSeconds(1));
+        lite.setMaxFirstTokenLatency(Duration.ofMillis(500));
+        ModelRoutingProperties.Tier standard = tier("standard", "qwen-plus", 1000);
+        standard.setMaxLatency(Duration.ofSeconds(2));
+        ModelRoutingProperties.Tier max = tier("max", "qwen-max", 10_000);
+        properties = new ModelRoutingProperties();
+        properties.setEnabled(true);
+        properties.setTiers(List.of(lite, standard, max));
+        properties.setLatencyMinSamples(3);
+        properties.setLatencyWindowSize(10);
+
+        meterRegistry = new SimpleMeterRegistry();
+        // 每个模型只有一个并发，占住一个许可即视为并发已满
+        ConcurrencyLimitProperties limitProperties = new ConcurrencyLimitProperties();
+        limitProperties.getDefaults().setInitialLimit(1);
+        limitProperties.getDefaults().setMinLimit(1);
+        limiter = new ModelConcurrencyLimiter(limitProperties, meterRegistry);
+        advisor = new ModelRoutingAdvisor(properties, limiter, meterRegistry);
+    }
+
+    private AdvisedRequest request(String userText) {
+        return this.request(userText, List.of(), Map.of());
+    }
+
+    private AdvisedRequest request(String userText, List<Message> messages, Map<String, Object> context) {
+        return AdvisedRequest.builder()
+                .chatModel(model)
+                .userText(userText)
+                .messages(messages)
+                .adviseContext(context)
+                .build();
+    }
+
+    private void saturate(String model) {
+        limiter.forModel(model).acquire().join();
+    }
+
+    private double routed(String tier, String reason) {
+        return meterRegistry.get("ai.model.route").tag("tier", tier).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void testEligibility() {
+        Assertions.assertEquals("lite", advisor.route(request("你好"), false).getName());
+        // 提示词超出 lite 的上限
+        Assertions.assertEquals("standard", advisor.route(request("你".repeat(300)), false).getName());
+        // lite 不处理结构化输出
+        Assertions.assertEquals("standard", advisor.route(request("你好", List.of(),
+                Map.of(Priority.CONTEXT_KEY, Priority.REPORT)), false).getName());
+        // 上下文消息数超出 lite 的上限
+        List<Message> history = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            history.add(new UserMessage("第" + i + "轮"));
+        }
+        Assertions.assertEquals("standard", advisor.route(request("你好", history, Map.of()), false).getName());
+        Assertions.assertEquals(1, routed("lite", "match"));
+        Assertions.assertEquals(3, routed("standard", "match"));
+    }
+
+    @Test
+    void testNoEligibleTierUsesLast() {
+        Assertions.assertEquals("max", advisor.route(request("你".repeat(20_000)), false).getName());
+        // 兜底时即使拥堵也不再切换
+        saturate("qwen-max");
+        Assertions.assertEquals("max", advisor.route(request("你".repeat(20_000)), false).getName());
+        Assertions.assertEquals(2, routed("max", "default"));
+    }
+
+    @Test
+    void testUnknownPriorityFallsBackToDefault() {
+        AdvisedRequest request = request("你好", List.of(), Map.of(Priority.CONTEXT_KEY, "urgent"));
+        Assertions.assertEquals("lite", advisor.route(request, false).getName());
+    }
+
+    @Test
+    void testPreferHigherTierWhenSaturated() {
+        saturate("qwen-turbo");
+        Assertions.assertEquals("standard", advisor.route(request("你好"), false).getName());
+        saturate("qwen-plus");
+        Assertions.assertEquals("max", advisor.route(request("你好"), false).getName());
+        // 只在满足条件的级别中切换：长提示词不会退到 lite
+        Assertions.assertEquals("max", advisor.route(request("你".repeat(300)), false).getName());
+        Assertions.assertEquals(1, routed("standard", "fallback"));
+        Assertions.assertEquals(2, routed("max", "fallback"));
+    }
+
+    @Test
+    void testAllSaturatedKeepsPreferred() {
+        saturate("qwen-turbo");
+        saturate("qwen-plus");
+        saturate("qwen-max");
+        Assertions.assertEquals("lite", advisor.route(request("你好"), false).getName());
+        Assertions.assertEquals(1, routed("lite", "saturated"));
+    }
+
+    @Test
+    void testCallAndStreamLatencyWindows() {
+        for (int i = 0; i < 3; i++) {
+            advisor.recordLatency("qwen-turbo", false, 2 * SECOND);
+        }
+        // 同步调用耗时超过 maxLatency，流式首包耗时没有样本
+        Assertions.assertEquals("standard", advisor.route(request("你好"), false).getName());
+        Assertions.assertEquals("lite", advisor.route(request("你好"), true).getName());
+
+        for (int i = 0; i < 3; i++) {
+            advisor.recordLatency("qwen-turbo", true, 600 * SECOND / 1000);
+        }
+        // 首包耗时按 maxFirstTokenLatency 判断
+        Assertions.assertEquals("standard", advisor.route(request("你好"), true).getName());
+    }
+
+    @Test
+    void testTooFewLatencySamplesIgnored() {
+        advisor.recordLatency("qwen-turbo", false, 2 * SECOND);
+        advisor.recordLatency("qwen-turbo", false, 2 * SECOND);
+        Assertions.assertEquals("lite", advisor.route(request("你好"), false).getName());
+    }
+
+    @Test
+    void testStaleLatencyIgnored() throws Exception {
+        properties.setLatencyStaleAfter(Duration.ofMillis(50));
+        for (int i = 0; i < 3; i++) {
+            advisor.recordLatency("qwen-turbo", false, 2 * SECOND);
+        }
+        Assertions.assertEquals("standard", advisor.route(request("你好"), false).getName());
+        // 拥堵的级别没有新样本，超过时限后重新获得流量
+        Thread.sleep(100);
+        Assertions.assertEquals("lite", advisor.route(request("你好"), false).getName());
+    }
+}
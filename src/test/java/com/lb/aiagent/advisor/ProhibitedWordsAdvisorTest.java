@@ -0,0 +1,68 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public class ProhibitedWordsAdvisorTest {
+
+    /**
+     * 违禁词“分手费”被切在两个分片之间
+     */
+    private static final List<String> CHUNKS = List.of("建议你先", "谈好分", "手费再说", "，别冲动");
+
+    private final ChatModel model = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return response(String.join("", CHUNKS));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.fromIterable(CHUNKS).map(ProhibitedWordsAdvisorTest::response);
+        }
+    };
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private ChatClient chatClient() {
+        return ChatClient.builder(model)
+                .defaultAdvisors(new ProhibitedWordsAdvisor(List.of("分手费", "冲动")))
+                .build();
+    }
+
+    @Test
+    void testMaskCallResponse() {
+        String content = chatClient().prompt().user("怎么办").call().content();
+        Assertions.assertEquals("建议你先谈好***再说，别**", content);
+    }
+
+    @Test
+    void testMaskStreamAcrossChunks() {
+        List<String> chunks = chatClient().prompt().user("怎么办").stream().content().collectList().block();
+        Assertions.assertNotNull(chunks);
+        Assertions.assertEquals("建议你先谈好***再说，别**", String.join("", chunks));
+        // 每个分片单独看也不含违禁词的任何完整片段
+        for (String chunk : chunks) {
+            Assertions.assertFalse(chunk.contains("分手"), chunk);
+            Assertions.assertFalse(chunk.contains("手费"), chunk);
+        }
+    }
+
+    @Test
+    void testRejectRequest() {
+        Assertions.assertThrows(BusinessException.class,
+                () -> chatClient().prompt().user("分手费要多少").call().content());
+    }
+}
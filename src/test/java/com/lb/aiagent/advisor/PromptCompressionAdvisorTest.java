@@ -0,0 +1,132 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.config.PromptCompressionProperties;
+import com.lb.aiagent.utils.TokenEstimator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY;
+
+public class PromptCompressionAdvisorTest {
+
+    private final AtomicReference<Prompt> lastPrompt = new AtomicReference<>();
+
+    private final ChatModel model = prompt -> {
+        lastPrompt.set(prompt);
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+    };
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ChatClient chatClient(ChatMemory chatMemory, PromptCompressionProperties properties) {
+        return ChatClient.builder(model)
+                .defaultSystem("扮演恋爱心理专家")
+                .defaultAdvisors(new MessageChatMemoryAdvisor(chatMemory),
+                        new PromptCompressionAdvisor(properties, meterRegistry))
+                .build();
+    }
+
+    private List<Message> history() {
+        return lastPrompt.get().getInstructions().stream()
+                .filter(m -> m.getMessageType() != MessageType.SYSTEM)
+                .toList();
+    }
+
+    @Test
+    void testReReadShortQueryOnly() {
+        PromptCompressionProperties properties = new PromptCompressionProperties();
+        properties.setReReadMaxTokens(10);
+        ChatClient chatClient = chatClient(new InMemoryChatMemory(), properties);
+
+        chatClient.prompt().user("怎么追她").advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "a"))
+                .call().content();
+        Assertions.assertTrue(lastPrompt.get().getContents().contains("Read the question again: 怎么追她"));
+
+        String longQuery = "我和女朋友因为生活习惯不同经常吵架，她总是嫌我不爱收拾房间";
+        chatClient.prompt().user(longQuery).advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "b"))
+                .call().content();
+        Assertions.assertFalse(lastPrompt.get().getContents().contains("Read the question again"));
+    }
+
+    @Test
+    void testDedupeAndTrimToBudget() {
+        ChatMemory chatMemory = new InMemoryChatMemory();
+        String longReply = "建议".repeat(100);
+        for (int i = 0; i < 5; i++) {
+            chatMemory.add("a", List.of(new UserMessage("你好"), new AssistantMessage("你好，我是恋爱专家")));
+            chatMemory.add("a", List.of(new UserMessage("第" + i + "个问题"), new AssistantMessage(longReply + i)));
+        }
+        PromptCompressionProperties properties = new PromptCompressionProperties();
+        properties.setMaxInputTokens(500);
+        properties.setOldMessageMaxTokens(100);
+        ChatClient chatClient = chatClient(chatMemory, properties);
+
+        chatClient.prompt().user("那我该怎么办")
+                .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "a")
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 100))
+                .call().content();
+
+        List<Message> history = history();
+        // 重复的问候只保留最近一次
+        Assertions.assertEquals(1, history.stream().filter(m -> "你好".equals(m.getText())).count());
+        // 最近一轮保持原样，最后一条是本次用户输入
+        Assertions.assertEquals(longReply + 4, history.get(history.size() - 2).getText());
+        Assertions.assertEquals("那我该怎么办", history.get(history.size() - 1).getText());
+        int tokens = 0;
+        for (Message message : lastPrompt.get().getInstructions()) {
+            tokens += TokenEstimator.estimate(message.getText());
+        }
+        Assertions.assertTrue(tokens <= 500, "tokens=" + tokens);
+        Assertions.assertTrue(meterRegistry.get("ai.prompt.compression").tag("action", "shorten").counter().count() > 0);
+        Assertions.assertTrue(meterRegistry.get("ai.prompt.compression").tag("action", "drop").counter().count() > 0);
+        Assertions.assertTrue(meterRegistry.get("ai.prompt.tokens.saved").summary().totalAmount() > 0);
+        Assertions.assertTrue(meterRegistry.get("ai.prompt.compression").tag("action", "dedupe").counter().count() > 0);
+    }
+
+    @Test
+    void testDedupeWholeTurns() {
+        ChatMemory chatMemory = new InMemoryChatMemory();
+        // 相同的回答对应不同的问题，不能只去掉回答
+        chatMemory.add("a", List.of(new UserMessage("在吗"), new AssistantMessage("我在")));
+        chatMemory.add("a", List.of(new UserMessage("你还在吗"), new AssistantMessage("我在")));
+        chatMemory.add("a", List.of(new UserMessage("在吗"), new AssistantMessage("我在")));
+        ChatClient chatClient = chatClient(chatMemory, new PromptCompressionProperties());
+
+        chatClient.prompt().user("那我该怎么办")
+                .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "a")
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 100))
+                .call().content();
+
+        List<String> texts = history().stream().map(Message::getText).toList();
+        Assertions.assertEquals(List.of("你还在吗", "我在", "在吗", "我在", "那我该怎么办"), texts);
+        // 默认不重读问题
+        Assertions.assertFalse(lastPrompt.get().getContents().contains("Read the question again"));
+    }
+
+    @Test
+    void testShortenText() {
+        String text = "一".repeat(100) + "二".repeat(100);
+        String shorter = PromptCompressionAdvisor.shortenText(text, 30);
+        Assertions.assertTrue(shorter.startsWith("一"));
+        Assertions.assertTrue(shorter.endsWith("二"));
+        Assertions.assertTrue(shorter.length() < 40);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.cache.ResponseCache;
+import com.lb.aiagent.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+
+public class ResponseCacheAdvisorTest {
+
+    private static final List<String> CHUNKS = List.of("你好，", "我是恋爱", "心理专家");
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final ChatModel model = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            return response(String.join("", CHUNKS));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            calls.incrementAndGet();
+            return Flux.fromIterable(CHUNKS).map(ResponseCacheAdvisorTest::response);
+        }
+    };
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private ResponseCacheAdvisor advisor() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(true);
+        properties.setRedisEnabled(false);
+        return new ResponseCacheAdvisor(new ResponseCache(properties, null, meterRegistry), properties);
+    }
+
+    @Test
+    void testCallHit() {
+        ChatClient chatClient = ChatClient.builder(model).defaultAdvisors(advisor()).build();
+
+        String first = chatClient.prompt().user("你好").call().content();
+        ChatResponse second = chatClient.prompt().user("你好！").call().chatResponse();
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(first, second.getResult().getOutput().getText());
+        Assertions.assertEquals(true,
+                second.getResult().getOutput().getMetadata().get(ResponseCacheAdvisor.CACHED_METADATA_KEY));
+    }
+
+    @Test
+    void testStreamHitReplay() {
+        ChatClient chatClient = ChatClient.builder(model).defaultAdvisors(advisor()).build();
+
+        List<String> first = chatClient.prompt().user("你好").stream().content().collectList().block();
+        List<String> second = chatClient.prompt().user("你好").stream().content().collectList().block();
+
+        Assertions.assertEquals(CHUNKS, first);
+        // 命中时整段回答作为一个分片返回
+        Assertions.assertEquals(List.of(String.join("", CHUNKS)), second);
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testBypassWithMemory() {
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(new MessageChatMemoryAdvisor(new InMemoryChatMemory()), advisor())
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            chatClient.prompt().user("你好").advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "a"))
+                    .call().content();
+        }
+        // 第二轮带有历史记忆，不走缓存
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals(1, meterRegistry.get("ai.response.cache.requests").tag("result", "bypass")
+                .counter().count());
+    }
+}
@@ -0,0 +1,121 @@
+package com.lb.aiagent.advisor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+public class SingleFlightAdvisorTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AtomicInteger streams = new AtomicInteger();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Sinks.Many<ChatResponse> sink = Sinks.many().replay().all();
+
+    private final ChatModel model = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response("你好，我是恋爱专家");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            streams.incrementAndGet();
+            return sink.asFlux();
+        }
+    };
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ChatClient chatClient = ChatClient.builder(model)
+            .defaultAdvisors(new SingleFlightAdvisor(meterRegistry))
+            .build();
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    @Test
+    void testCoalesceConcurrentCalls() throws Exception {
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+        Thread leader = Thread.ofVirtual().start(() -> first.set(chatClient.prompt().user("你好").call().content()));
+        started.await();
+        Thread follower = Thread.ofVirtual().start(() -> second.set(chatClient.prompt().user("你好").call().content()));
+        while (follower.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals("你好，我是恋爱专家", first.get());
+        Assertions.assertEquals(first.get(), second.get());
+        Assertions.assertEquals(1, meterRegistry.get("ai.single.flight.coalesced").counter().count());
+        // 不同的问题不合并
+        chatClient.prompt().user("在吗").call().content();
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testCoalesceConcurrentStreams() throws Exception {
+        List<String> first = Collections.synchronizedList(new ArrayList<>());
+        List<String> second = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch completed = new CountDownLatch(2);
+        chatClient.prompt().user("你好").stream().content()
+                .doOnComplete(completed::countDown).subscribe(first::add);
+        awaitUntil(() -> streams.get() == 1);
+        sink.tryEmitNext(response("你好，"));
+        awaitUntil(() -> first.size() == 1);
+        // 晚到的请求复用进行中的流，先收到已产生的分片
+        chatClient.prompt().user("你好").stream().content()
+                .doOnComplete(completed::countDown).subscribe(second::add);
+        awaitUntil(() -> second.size() == 1);
+        sink.tryEmitNext(response("我是恋爱专家"));
+        sink.tryEmitComplete();
+        Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1, streams.get());
+        Assertions.assertEquals(List.of("你好，", "我是恋爱专家"), first);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, meterRegistry.get("ai.single.flight.coalesced").counter().count());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(1);
+        }
+    }
+}
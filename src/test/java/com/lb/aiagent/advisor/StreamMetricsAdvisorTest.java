@@ -0,0 +1,107 @@
+package com.lb.aiagent.advisor;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class StreamMetricsAdvisorTest {
+
+    private static final List<String> CHUNKS = List.of("你好，", "我是恋爱", "心理专家");
+
+    private static final long CHUNK_DELAY_MS = 30;
+
+    /**
+     * 每个分片的用量是截至当前的累计值
+     */
+    private final ChatModel model = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return response(String.join("", CHUNKS), 10);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.range(0, CHUNKS.size())
+                    .delayElements(Duration.ofMillis(CHUNK_DELAY_MS))
+                    .map(i -> response(CHUNKS.get(i), (i + 1) * 3L));
+        }
+    };
+
+    private static ChatResponse response(String text, long outputTokens) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().withModel("qwen-plus-0919")
+                        .withUsage(new DefaultUsage(20L, outputTokens)).build());
+    }
+
+    @Test
+    void testStreamMetrics() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(new StreamMetricsAdvisor(meterRegistry, null))
+                .build();
+
+        chatClient.prompt().user("你好")
+                .advisors(spec -> spec.param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat_stream"))
+                .stream().content().blockLast();
+
+        Assertions.assertEquals(1, meterRegistry.get("ai.model.ttft").tag("endpoint", "chat_stream").timer().count());
+        Assertions.assertTrue(meterRegistry.get("ai.model.ttft").timer().totalTime(TimeUnit.MILLISECONDS) >= CHUNK_DELAY_MS);
+        Assertions.assertEquals(CHUNKS.size() - 1, meterRegistry.get("ai.model.chunk.gap").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("ai.model.output.rate").summary().count());
+        // 取最后一个分片的累计用量，而不是逐个相加
+        Assertions.assertEquals(9, meterRegistry.get("ai.model.tokens").tag("type", "completion").counter().count());
+        Assertions.assertEquals(20, meterRegistry.get("ai.model.tokens").tag("type", "prompt").counter().count());
+    }
+
+    @Test
+    void testCallUsage() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(new StreamMetricsAdvisor(meterRegistry, null))
+                .build();
+
+        chatClient.prompt().user("你好").advisors(spec -> spec.param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat"))
+                .call().content();
+
+        Assertions.assertEquals(10, meterRegistry.get("ai.model.tokens").tags("endpoint", "chat", "type", "completion")
+                .counter().count());
+        Assertions.assertTrue(meterRegistry.find("ai.model.ttft").timers().isEmpty());
+    }
+
+    @Test
+    void testSameModelTagForCallAndStream() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = ChatClient.builder(model)
+                .defaultAdvisors(new StreamMetricsAdvisor(meterRegistry, null))
+                .build();
+        DashScopeChatOptions options = DashScopeChatOptions.builder().build();
+        options.setModel("qwen-plus");
+
+        chatClient.prompt().user("你好").options(options)
+                .advisors(spec -> spec.param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat"))
+                .call().content();
+        chatClient.prompt().user("你好").options(options)
+                .advisors(spec -> spec.param(StreamMetricsAdvisor.ENDPOINT_KEY, "chat_stream"))
+                .stream().content().blockLast();
+
+        // 模型名都取请求选项，不取响应元数据中带版本后缀的名称
+        Assertions.assertEquals(2, meterRegistry.get("ai.model.tokens").tags("model", "qwen-plus", "type", "prompt")
+                .counters().size());
+        Assertions.assertTrue(meterRegistry.find("ai.model.tokens").tag("model", "qwen-plus-0919").counters().isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.config.AdvisorTracingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TracingAdvisorTest {
+
+    private static final long MODEL_LATENCY_MS = 50;
+
+    private static final String REPLY = "你好，我是恋爱心理专家";
+
+    private final ChatModel slowModel = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            try {
+                Thread.sleep(MODEL_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(REPLY))));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.just("你好，", "我是恋爱心理专家")
+                    .delayElements(Duration.ofMillis(MODEL_LATENCY_MS))
+                    .map(text -> new ChatResponse(List.of(new Generation(new AssistantMessage(text)))));
+        }
+    };
+
+    @Test
+    void testSelfAndTotalTime() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = this.chatClient(meterRegistry);
+
+        Assertions.assertEquals(REPLY, chatClient.prompt().user("你好").call().content());
+
+        double total = meterRegistry.get("ai.advisor.total").tags("advisor", "MyLoggerAdvisor", "mode", "call")
+                .timer().totalTime(TimeUnit.MILLISECONDS);
+        double self = meterRegistry.get("ai.advisor.self").tags("advisor", "MyLoggerAdvisor", "mode", "call")
+                .timer().totalTime(TimeUnit.MILLISECONDS);
+        double model = meterRegistry.get("ai.model.span").tag("mode", "call").timer().totalTime(TimeUnit.MILLISECONDS);
+        // 模型耗时计入总耗时，不计入自身耗时
+        Assertions.assertTrue(total >= MODEL_LATENCY_MS);
+        Assertions.assertTrue(model >= MODEL_LATENCY_MS);
+        Assertions.assertTrue(self < MODEL_LATENCY_MS);
+        Assertions.assertEquals(REPLY.length(), meterRegistry.get("ai.model.payload").tag("direction", "response")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testStream() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = this.chatClient(meterRegistry);
+
+        String content = String.join("", chatClient.prompt().user("你好").stream().content().collectList().block());
+
+        Assertions.assertEquals(REPLY, content);
+        Assertions.assertEquals(1, meterRegistry.get("ai.advisor.total").tags("advisor", "MyLoggerAdvisor", "mode", "stream")
+                .timer().count());
+        Assertions.assertTrue(meterRegistry.get("ai.model.span").tag("mode", "stream").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= MODEL_LATENCY_MS * 2);
+        Assertions.assertEquals(REPLY.length(), meterRegistry.get("ai.model.payload").tag("direction", "response")
+                .summary().totalAmount());
+    }
+
+    private ChatClient chatClient(MeterRegistry meterRegistry) {
+        List<Advisor> advisors = TracingAdvisor.wrap(List.of(new MyLoggerAdvisor()), new AdvisorTracingProperties(),
+                meterRegistry, ObservationRegistry.NOOP);
+        return ChatClient.builder(slowModel).defaultAdvisors(advisors).build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.lb.aiagent.advisor;
+
+import com.lb.aiagent.chatmemory.VectorMemoryStore;
+import com.lb.aiagent.config.VectorMemoryProperties;
+import com.lb.aiagent.embedding.LocalHashEmbeddingProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
+import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY;
+
+public class VectorMemoryAdvisorTest {
+
+    private final AtomicReference<Prompt> lastPrompt = new AtomicReference<>();
+
+    private final ChatModel model = prompt -> {
+        lastPrompt.set(prompt);
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+    };
+
+    private final ChatMemory chatMemory = new InMemoryChatMemory();
+
+    private final VectorMemoryStore vectorMemoryStore =
+            new VectorMemoryStore(new LocalHashEmbeddingProvider(256), properties());
+
+    private final ChatClient chatClient = ChatClient.builder(model)
+            .defaultAdvisors(new VectorMemoryAdvisor(chatMemory, vectorMemoryStore))
+            .build();
+
+    private static VectorMemoryProperties properties() {
+        VectorMemoryProperties properties = new VectorMemoryProperties();
+        // 本地哈希向量的相似度偏低，放宽阈值
+        properties.setMinSimilarity(0.2f);
+        return properties;
+    }
+
+    private void chat(String message) {
+        chatClient.prompt().user(message)
+                .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, "a")
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 2))
+                .call().content();
+    }
+
+    @Test
+    void testRecallEarlierTurn() {
+        chat("你好，我是程序员张三");
+        chat("我想让另一半（李四）更爱我");
+        chat("今天天气不错，适合出去走走");
+        chat("我的另一半叫什么来着");
+
+        String contents = lastPrompt.get().getContents();
+        // 最近一轮之外，按相似度召回了更早的相关轮次
+        Assertions.assertTrue(contents.contains("我想让另一半（李四）更爱我"), contents);
+        Assertions.assertFalse(contents.contains("张三"), contents);
+        Assertions.assertTrue(contents.contains("今天天气不错"), contents);
+    }
+
+    @Test
+    void testRebuildIndexAfterMemoryExpired() {
+        chat("你好，我是程序员张三");
+        chat("我想让另一半（李四）更爱我");
+        chat("今天天气不错，适合出去走走");
+        Assertions.assertEquals(4, vectorMemoryStore.get("a").lastOffset());
+
+        // 记忆过期，历史比索引短
+        chatMemory.clear("a");
+        chat("我叫王五");
+        Assertions.assertEquals(0, vectorMemoryStore.get("a").lastOffset());
+
+        // 记忆重新增长到超过旧索引的下标，旧轮次不会被召回
+        chat("最近工作很忙");
+        chat("周末想去爬山");
+        chat("我的另一半叫什么来着");
+        String contents = lastPrompt.get().getContents();
+        Assertions.assertFalse(contents.contains("李四"), contents);
+        Assertions.assertTrue(vectorMemoryStore.get("a").lastText().startsWith("我的另一半叫什么来着"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.lb.aiagent.app;
+
+import com.lb.aiagent.mock.LoadDriver;
+import com.lb.aiagent.mock.MiniRedisServer;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import com.lb.aiagent.service.ProhibitedWordsService;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 端到端压测：LoveApp 的完整拦截器链 + 本地模拟模型 + 进程内 Redis 替身，不依赖外部服务。
+ * 违禁词预置在 Redis 缓存中，因此不会访问 MySQL。
+ * 规模和模型行为可通过系统属性调整，例如
+ * -Dload.conversations=2000 -Dload.turns=6 -Dload.ttft-ms=800 -Dload.sigma=0.6 -Dload.error-rate=0.01
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class LoveAppLoadTest {
+
+    private static final int CONVERSATIONS = Integer.getInteger("load.conversations", 50);
+
+    private static final int TURNS = Integer.getInteger("load.turns", 4);
+
+    private static final long THINK_MS = Long.getLong("load.think-ms", 50);
+
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("load.error-rate", "0"));
+
+    private static MockDashScopeServer modelServer;
+
+    private static MiniRedisServer redisServer;
+
+    @Resource
+    private LoveApp loveApp;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        modelServer = new MockDashScopeServer(new MockDashScopeServer.Behavior()
+                .firstTokenLatency(Long.getLong("load.ttft-ms", 200),
+                        Double.parseDouble(System.getProperty("load.sigma", "0.4")))
+                .tokensPerSecond(Double.parseDouble(System.getProperty("load.tokens-per-second", "200")))
+                .chunkSize(Integer.getInteger("load.chunk-size", 4))
+                .errorRate(ERROR_RATE)
+                .streamErrorRate(ERROR_RATE));
+        redisServer = new MiniRedisServer();
+        redisServer.set(ProhibitedWordsService.PROHIBITED_WORDS_KEY, "[\"违禁词\"]");
+
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", redisServer::port);
+        registry.add("spring.ai.dashscope.api-key", () -> "mock");
+        // SpringAiAiInvoke 启动时会用自动配置的模型调用一次
+        registry.add("spring.ai.dashscope.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.enabled", () -> true);
+        registry.add("ai-agent.dashscope-http.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.api-key", () -> "mock");
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        modelServer.close();
+        redisServer.close();
+    }
+
+    @Test
+    void testMultiTurnConversations() throws Exception {
+        LoadDriver driver = new LoadDriver(CONVERSATIONS, TURNS, Duration.ofMillis(THINK_MS));
+        LoadDriver.Report report = driver.run((chatId, turn, probe) -> {
+            if (turn == TURNS - 1) {
+                // 最后一轮生成报告
+                Assertions.assertNotNull(loveApp.doChatWithReport("帮我总结一下", chatId));
+            } else if (turn % 2 == 1) {
+                loveApp.doChatByStream("我该怎么让另一半更爱我", chatId)
+                        .doOnNext(chunk -> probe.firstToken())
+                        .blockLast();
+            } else {
+                Assertions.assertNotNull(loveApp.doChat("你好，我是程序员张三", chatId));
+            }
+        });
+        System.out.print(report);
+        System.out.printf("model requests=%d, injected errors=%d, redis keys=%d%n",
+                modelServer.requestCount(), modelServer.injectedErrorCount(), redisServer.size());
+        Assertions.assertTrue(report.completed() > 0);
+        if (ERROR_RATE == 0) {
+            Assertions.assertEquals(0, report.errors());
+            Assertions.assertEquals((long) CONVERSATIONS * TURNS, report.completed());
+        }
+    }
+}
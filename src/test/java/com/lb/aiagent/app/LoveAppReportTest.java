@@ -0,0 +1,174 @@
+package com.lb.aiagent.app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lb.aiagent.chatmemory.RedisChatMemory;
+import com.lb.aiagent.mock.MiniRedisServer;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import com.lb.aiagent.report.ConversationReportStore;
+import com.lb.aiagent.report.ReportSnapshot;
+import com.lb.aiagent.service.ProhibitedWordsService;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 增量报告：按会话保存的报告快照决定直接返回、增量更新还是全量生成。
+ * 模拟模型每次返回标题带序号的报告，并记下每次请求的内容
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class LoveAppReportTest {
+
+    /**
+     * 增量更新时附在系统提示词后的说明中的一段
+     */
+    private static final String INCREMENTAL_HINT = "之前生成的报告";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private static MockDashScopeServer modelServer;
+
+    private static MiniRedisServer redisServer;
+
+    @Resource
+    private LoveApp loveApp;
+
+    @Resource
+    private ConversationReportStore reportStore;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        modelServer = new MockDashScopeServer(new MockDashScopeServer.Behavior()
+                .reply(body -> {
+                    // 统一成 JSON 树的文本，中文是否被转义都能直接查找
+                    requests.add(normalize(body));
+                    return "{\"title\":\"报告#" + requests.size() + "#\",\"suggestions\":[\"多沟通\"]}";
+                })
+                .firstTokenLatency(1, 0)
+                .tokensPerSecond(100_000));
+        redisServer = new MiniRedisServer();
+        redisServer.set(ProhibitedWordsService.PROHIBITED_WORDS_KEY, "[\"违禁词\"]");
+
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", redisServer::port);
+        registry.add("spring.ai.dashscope.api-key", () -> "mock");
+        registry.add("spring.ai.dashscope.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.enabled", () -> true);
+        registry.add("ai-agent.dashscope-http.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.api-key", () -> "mock");
+        registry.add("ai-agent.report.incremental", () -> true);
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        modelServer.close();
+        redisServer.close();
+    }
+
+    private static String normalize(String body) {
+        try {
+            return MAPPER.readTree(body).toString();
+        } catch (IOException e) {
+            return body;
+        }
+    }
+
+    private static String newChatId() {
+        return "report-" + UUID.randomUUID();
+    }
+
+    /**
+     * 执行一次操作，返回期间发给模型的请求
+     */
+    private static List<String> requestsDuring(Runnable action) {
+        int before = requests.size();
+        action.run();
+        return List.copyOf(requests.subList(before, requests.size()));
+    }
+
+    private ReportSnapshot snapshot(String chatId) {
+        return reportStore.get(chatId, LoveApp.LoveReport.class);
+    }
+
+    @Test
+    void testNoSnapshotGeneratesFullReport() {
+        String chatId = newChatId();
+        loveApp.doChat("第一轮消息", chatId);
+
+        LoveApp.LoveReport[] report = new LoveApp.LoveReport[1];
+        List<String> sent = requestsDuring(() -> report[0] = loveApp.doChatWithReport("生成报告", chatId));
+
+        Assertions.assertEquals(1, sent.size());
+        Assertions.assertFalse(sent.get(0).contains(INCREMENTAL_HINT));
+        Assertions.assertTrue(sent.get(0).contains("第一轮消息"));
+        Assertions.assertEquals(List.of("多沟通"), report[0].suggestions());
+        // 快照覆盖到写入本轮对话后的全部记忆：两轮，各一问一答
+        ReportSnapshot snapshot = snapshot(chatId);
+        Assertions.assertNotNull(snapshot);
+        Assertions.assertEquals(4, snapshot.offset());
+    }
+
+    @Test
+    void testUnchangedInputReturnsCachedReport() {
+        String chatId = newChatId();
+        loveApp.doChat("第一轮消息", chatId);
+        LoveApp.LoveReport first = loveApp.doChatWithReport("生成报告", chatId);
+
+        LoveApp.LoveReport[] second = new LoveApp.LoveReport[1];
+        List<String> sent = requestsDuring(() -> second[0] = loveApp.doChatWithReport("生成报告", chatId));
+
+        Assertions.assertEquals(List.of(), sent);
+        Assertions.assertEquals(first, second[0]);
+    }
+
+    @Test
+    void testNewTurnsUpdateIncrementally() {
+        String chatId = newChatId();
+        loveApp.doChat("第一轮消息", chatId);
+        LoveApp.LoveReport first = loveApp.doChatWithReport("生成报告", chatId);
+        loveApp.doChat("新的一轮", chatId);
+
+        List<String> sent = requestsDuring(() -> loveApp.doChatWithReport("生成报告", chatId));
+
+        // 只发送上次的报告和之后的新对话
+        Assertions.assertEquals(1, sent.size());
+        Assertions.assertTrue(sent.get(0).contains(INCREMENTAL_HINT));
+        Assertions.assertTrue(sent.get(0).contains(first.title()));
+        Assertions.assertTrue(sent.get(0).contains("新的一轮"));
+        Assertions.assertFalse(sent.get(0).contains("第一轮消息"));
+        Assertions.assertEquals(8, snapshot(chatId).offset());
+    }
+
+    @Test
+    void testExpiredMemoryRegeneratesFullReport() {
+        String chatId = newChatId();
+        loveApp.doChat("第一轮消息", chatId);
+        loveApp.doChatWithReport("生成报告", chatId);
+        // 记忆过期后重新增长到超过快照覆盖的条数，但前面的消息已经不同
+        stringRedisTemplate.delete(RedisChatMemory.CHAT_MEMORY_KEY + chatId);
+        loveApp.doChat("重新开始", chatId);
+        loveApp.doChat("又聊了一轮", chatId);
+        loveApp.doChat("再聊一轮", chatId);
+
+        List<String> sent = requestsDuring(() -> loveApp.doChatWithReport("生成报告", chatId));
+
+        Assertions.assertEquals(1, sent.size());
+        Assertions.assertFalse(sent.get(0).contains(INCREMENTAL_HINT));
+        Assertions.assertTrue(sent.get(0).contains("重新开始"));
+        Assertions.assertEquals(8, snapshot(chatId).offset());
+    }
+}
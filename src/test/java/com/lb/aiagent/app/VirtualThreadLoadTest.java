@@ -0,0 +1,117 @@
+package com.lb.aiagent.app;
+
+import com.lb.aiagent.mock.MiniRedisServer;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import com.lb.aiagent.service.ProhibitedWordsService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 虚拟线程压测：请求经过 Tomcat、LoveAppController、完整拦截器链（RedisChatMemory、违禁词检查）到本地模拟模型，
+ * 验证同时进行的对话数可以超过平台线程池上限。Redis 使用进程内替身，违禁词预置在 Redis 缓存中，不访问 MySQL。
+ * 总耗时受机器负载影响，默认只打印；-Dload.assert-elapsed=true 时才断言总耗时低于平台线程池的下限
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class VirtualThreadLoadTest {
+
+    /**
+     * Tomcat 默认最大工作线程数（server.tomcat.threads.max）
+     */
+    private static final int PLATFORM_THREAD_LIMIT = 200;
+
+    private static final long MODEL_LATENCY_MS = 500;
+
+    private static final boolean ASSERT_ELAPSED = Boolean.getBoolean("load.assert-elapsed");
+
+    private static MockDashScopeServer modelServer;
+
+    private static MiniRedisServer redisServer;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        // 首包固定延迟，同步请求再加上按输出速率计算的生成耗时（很短）
+        modelServer = new MockDashScopeServer(new MockDashScopeServer.Behavior()
+                .reply(body -> "ok")
+                .firstTokenLatency(MODEL_LATENCY_MS, 0)
+                .tokensPerSecond(1000));
+        redisServer = new MiniRedisServer();
+        redisServer.set(ProhibitedWordsService.PROHIBITED_WORDS_KEY, "[\"违禁词\"]");
+
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", redisServer::port);
+        registry.add("spring.ai.dashscope.api-key", () -> "mock");
+        registry.add("spring.ai.dashscope.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.enabled", () -> true);
+        registry.add("ai-agent.dashscope-http.base-url", modelServer::baseUrl);
+        registry.add("ai-agent.dashscope-http.api-key", () -> "mock");
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        modelServer.close();
+        redisServer.close();
+    }
+
+    @Test
+    void testConcurrencyBeyondPlatformThreadLimit() throws Exception {
+        int conversations = PLATFORM_THREAD_LIMIT * 5;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String baseUrl = "http://127.0.0.1:" + port + "/api/love_app/chat/sync?message="
+                + URLEncoder.encode("你好", StandardCharsets.UTF_8) + "&chatId=";
+
+        long start = System.currentTimeMillis();
+        List<Future<HttpResponse<String>>> futures = new ArrayList<>(conversations);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < conversations; i++) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + UUID.randomUUID()))
+                        .timeout(Duration.ofSeconds(60))
+                        .GET()
+                        .build();
+                futures.add(executor.submit(() -> httpClient.send(request, HttpResponse.BodyHandlers.ofString())));
+            }
+            for (Future<HttpResponse<String>> future : futures) {
+                HttpResponse<String> response = future.get();
+                Assertions.assertEquals(200, response.statusCode());
+                Assertions.assertTrue(response.body().contains("\"ok\""), response.body());
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        // 平台线程池下至少需要 conversations / 200 批，每批一次模型耗时
+        long platformBound = conversations / PLATFORM_THREAD_LIMIT * MODEL_LATENCY_MS;
+        System.out.printf("conversations=%d, maxInFlight=%d, elapsed=%dms, platform-thread bound=%dms, redis keys=%d%n",
+                conversations, modelServer.maxInFlight(), elapsed, platformBound, redisServer.size());
+        Assertions.assertTrue(modelServer.maxInFlight() > PLATFORM_THREAD_LIMIT,
+                "maxInFlight=" + modelServer.maxInFlight());
+        if (ASSERT_ELAPSED) {
+            Assertions.assertTrue(elapsed < platformBound, "elapsed=" + elapsed + "ms");
+        }
+        // 每个会话的记忆都写入了 Redis
+        Assertions.assertTrue(redisServer.size() >= conversations);
+    }
+}
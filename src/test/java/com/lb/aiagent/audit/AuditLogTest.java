@@ -0,0 +1,124 @@
+package com.lb.aiagent.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lb.aiagent.config.AuditLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteCompressedJsonLines() throws Exception {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setEnabled(true);
+        properties.setDir(dir.toString());
+        properties.setMaxPayloadChars(10);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditLog auditLog = new AuditLog(properties, meterRegistry);
+
+        Assertions.assertTrue(auditLog.record("request", "a", "test", "你好"));
+        Assertions.assertTrue(auditLog.record("response", "a", "test", "x".repeat(100)));
+        auditLog.close();
+
+        List<JsonNode> lines = readAll();
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertEquals("request", lines.get(0).get("type").asText());
+        Assertions.assertEquals("你好", lines.get(0).get("text").asText());
+        Assertions.assertEquals("a", lines.get(1).get("conversationId").asText());
+        Assertions.assertTrue(lines.get(1).get("truncated").asBoolean());
+        Assertions.assertEquals(100, lines.get(1).get("length").asInt());
+        Assertions.assertEquals(10, lines.get(1).get("text").asText().length());
+        Assertions.assertEquals(2, meterRegistry.get("ai.audit.records").tag("result", "written").counter().count());
+    }
+
+    @Test
+    void testDropWhenFull() throws Exception {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setDir(dir.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 未启用时不记录，也不启动后台线程
+        AuditLog auditLog = new AuditLog(properties, meterRegistry);
+        Assertions.assertFalse(auditLog.record("request", "a", "test", "你好"));
+        auditLog.close();
+
+        properties.setEnabled(true);
+        properties.setBufferSize(2);
+        properties.setFlushInterval(Duration.ofMinutes(1));
+        SimpleMeterRegistry fullRegistry = new SimpleMeterRegistry();
+        AuditLog full = new AuditLog(properties, fullRegistry);
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (full.record("request", "a", "test", "m" + i)) {
+                accepted++;
+            }
+        }
+        full.close();
+        // 写线程来不及消费时直接丢弃，调用方不阻塞
+        Assertions.assertTrue(accepted > 0);
+        Assertions.assertTrue(accepted < 10_000, "accepted=" + accepted);
+        Assertions.assertEquals(10_000 - accepted,
+                fullRegistry.get("ai.audit.records").tag("result", "dropped").counter().count());
+        Assertions.assertEquals(accepted, readAll().size());
+    }
+
+    @Test
+    void testFlushOnlyOnInterval() throws Exception {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setEnabled(true);
+        properties.setDir(dir.toString());
+        properties.setFlushInterval(Duration.ofMinutes(1));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditLog auditLog = new AuditLog(properties, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(auditLog.record("request", "a", "test", "m" + i));
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (meterRegistry.get("ai.audit.records").tag("result", "written").counter().count() < 100
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(100, meterRegistry.get("ai.audit.records").tag("result", "written").counter().count());
+        // 逐条写入不触发 flush，刷新周期未到
+        Assertions.assertEquals(0, meterRegistry.get("ai.audit.flushes").counter().count());
+
+        auditLog.close();
+        Assertions.assertEquals(100, readAll().size());
+    }
+
+    private List<JsonNode> readAll() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> lines = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.sorted().toList();
+        }
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(mapper.readTree(line));
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,66 @@
+package com.lb.aiagent.audit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MpscRingBufferTest {
+
+    @Test
+    void testOfferFailsWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            Assertions.assertTrue(buffer.offer(i));
+        }
+        Assertions.assertFalse(buffer.offer(99));
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertEquals(2, buffer.drain(drained::add, 2));
+        Assertions.assertEquals(List.of(0, 1), drained);
+        Assertions.assertTrue(buffer.offer(4));
+        Assertions.assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void testConcurrentProducers() throws Exception {
+        int producers = 8;
+        int perProducer = 20_000;
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        Set<Integer> seen = new HashSet<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            while (!done.get() || buffer.size() > 0) {
+                if (buffer.drain(seen::add, 256) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        // 满时自旋重试，验证不丢不重
+                        while (!buffer.offer(base + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        done.set(true);
+        consumer.join();
+        Assertions.assertEquals(producers * perProducer, seen.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.lb.aiagent.benchmark;
+
+import cn.hutool.http.HttpRequest;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.lb.aiagent.chatmodel.DashScopeHttpChatModel;
+import com.lb.aiagent.config.DashScopeHttpProperties;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次新建 Hutool 请求并整体读取响应（HttpAiInvoke 的做法）与共享 JDK HttpClient、增量解析的对比
+ * 模拟服务没有延迟，测得的是客户端建连、序列化和解析的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashScopeClientBenchmark {
+
+    private static final String QUESTION = "我和对象异地恋，最近总是吵架，怎么办？";
+
+    private MockDashScopeServer server;
+
+    private DashScopeHttpChatModel model;
+
+    @Param({"200", "2000"})
+    private int replyLength;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new MockDashScopeServer("恋".repeat(replyLength), 8);
+        DashScopeHttpProperties properties = new DashScopeHttpProperties();
+        properties.setBaseUrl(server.baseUrl());
+        properties.setApiKey("benchmark");
+        model = new DashScopeHttpChatModel(properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public Object hutoolCall() {
+        String body = HttpRequest.post(server.baseUrl() + MockDashScopeServer.GENERATION_PATH)
+                .header("Authorization", "Bearer benchmark")
+                .header("Content-Type", "application/json")
+                .body(requestBody().toString())
+                .execute()
+                .body();
+        return JSONUtil.parseObj(body).getByPath("output.choices[0].message.content");
+    }
+
+    @Benchmark
+    public Object hutoolStream() {
+        String body = HttpRequest.post(server.baseUrl() + MockDashScopeServer.GENERATION_PATH)
+                .header("Authorization", "Bearer benchmark")
+                .header("Content-Type", "application/json")
+                .header("X-DashScope-SSE", "enable")
+                .body(requestBody().toString())
+                .execute()
+                .body();
+        StringBuilder text = new StringBuilder();
+        for (String line : body.split("\n")) {
+            if (line.startsWith("data:")) {
+                text.append(JSONUtil.parseObj(line.substring(5)).getByPath("output.choices[0].message.content"));
+            }
+        }
+        return text;
+    }
+
+    @Benchmark
+    public Object pooledCall() {
+        return model.call(new Prompt(QUESTION)).getResult().getOutput().getText();
+    }
+
+    @Benchmark
+    public Object pooledStream() {
+        return model.stream(new Prompt(QUESTION)).count().block();
+    }
+
+    private static JSONObject requestBody() {
+        JSONArray messages = new JSONArray();
+        messages.add(new JSONObject().set("role", "user").set("content", QUESTION));
+        return new JSONObject()
+                .set("model", "qwen-plus")
+                .set("input", new JSONObject().set("messages", messages))
+                .set("parameters", new JSONObject().set("result_format", "message"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DashScopeClientBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
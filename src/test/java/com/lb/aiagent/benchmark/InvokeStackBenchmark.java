@@ -0,0 +1,193 @@
+package com.lb.aiagent.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatModel;
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.alibaba.dashscope.aigc.generation.Generation;
+import com.alibaba.dashscope.protocol.Protocol;
+import com.lb.aiagent.demo.invoke.HttpAiInvoke;
+import com.lb.aiagent.demo.invoke.SdkAiInvoke;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import dev.langchain4j.community.model.dashscope.QwenChatModel;
+import dev.langchain4j.community.model.dashscope.QwenStreamingChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * demo.invoke 中四种调用方式的客户端开销对比：Hutool HTTP、DashScope SDK、Spring AI Alibaba、LangChain4j
+ * 都指向本地模拟服务，模拟服务没有延迟，测得的耗时就是各自的序列化、连接和解析开销。
+ * 客户端在 Setup 中创建一次并复用（Hutool 没有客户端对象，每次新建请求）。
+ * 除 JMH 的结果外，结束时按调用方式输出一张汇总表：耗时、整个进程的 CPU 时间和内存分配、流式吞吐（字符/秒）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvokeStackBenchmark {
+
+    private static final String QUESTION = "我和对象异地恋，最近总是吵架，怎么办？";
+
+    private static final String API_KEY = "benchmark";
+
+    @Param({"http", "sdk", "spring-ai", "langchain4j"})
+    private String stack;
+
+    @Param({"200", "2000"})
+    private int replyLength;
+
+    private MockDashScopeServer server;
+
+    private Generation generation;
+
+    private ChatModel springAiModel;
+
+    private QwenChatModel qwenChatModel;
+
+    private QwenStreamingChatModel qwenStreamingChatModel;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new MockDashScopeServer("恋".repeat(replyLength), 8);
+        String apiBaseUrl = server.baseUrl() + "/api/v1";
+        switch (stack) {
+            case "sdk" -> generation = new Generation(Protocol.HTTP.getValue(), apiBaseUrl);
+            case "spring-ai" -> springAiModel = new DashScopeChatModel(new DashScopeApi(server.baseUrl(), API_KEY, null),
+                    DashScopeChatOptions.builder().withModel("qwen-plus").build());
+            case "langchain4j" -> {
+                qwenChatModel = QwenChatModel.builder()
+                        .baseUrl(apiBaseUrl)
+                        .apiKey(API_KEY)
+                        .modelName("qwen-plus")
+                        .build();
+                qwenStreamingChatModel = QwenStreamingChatModel.builder()
+                        .baseUrl(apiBaseUrl)
+                        .apiKey(API_KEY)
+                        .modelName("qwen-plus")
+                        .build();
+            }
+            default -> {
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * 同步调用，返回回答文本
+     */
+    @Benchmark
+    public Object call() throws Exception {
+        return switch (stack) {
+            case "http" -> JSONUtil.parseObj(HttpAiInvoke.call(server.baseUrl() + MockDashScopeServer.GENERATION_PATH,
+                    API_KEY, QUESTION, false).body()).getByPath("output.choices[0].message.content");
+            case "sdk" -> SdkAiInvoke.callWithMessage(generation, API_KEY, QUESTION)
+                    .getOutput().getChoices().get(0).getMessage().getContent();
+            case "spring-ai" -> springAiModel.call(new Prompt(QUESTION)).getResult().getOutput().getText();
+            case "langchain4j" -> qwenChatModel.chat(QUESTION);
+            default -> throw new IllegalStateException("Unknown stack: " + stack);
+        };
+    }
+
+    /**
+     * 流式调用，消费完所有分片，返回分片数
+     */
+    @Benchmark
+    public int stream() throws Exception {
+        return switch (stack) {
+            case "http" -> {
+                // Hutool 没有流式接口，只能读完整个 SSE 响应再逐行解析
+                String body = HttpAiInvoke.call(server.baseUrl() + MockDashScopeServer.GENERATION_PATH,
+                        API_KEY, QUESTION, true).body();
+                int chunks = 0;
+                for (String line : body.split("\n")) {
+                    if (line.startsWith("data:")) {
+                        JSONUtil.parseObj(line.substring(5)).getByPath("output.choices[0].message.content");
+                        chunks++;
+                    }
+                }
+                yield chunks;
+            }
+            case "sdk" -> (int) SdkAiInvoke.streamWithMessage(generation, API_KEY, QUESTION).count().blockingGet().longValue();
+            case "spring-ai" -> springAiModel.stream(new Prompt(QUESTION)).count().block().intValue();
+            case "langchain4j" -> {
+                AtomicInteger chunks = new AtomicInteger();
+                CompletableFuture<ChatResponse> done = new CompletableFuture<>();
+                qwenStreamingChatModel.chat(QUESTION, new StreamingChatResponseHandler() {
+                    @Override
+                    public void onPartialResponse(String partialResponse) {
+                        chunks.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onCompleteResponse(ChatResponse completeResponse) {
+                        done.complete(completeResponse);
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        done.completeExceptionally(error);
+                    }
+                });
+                done.get(30, TimeUnit.SECONDS);
+                yield chunks.get();
+            }
+            default -> throw new IllegalStateException("Unknown stack: " + stack);
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(InvokeStackBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .addProfiler(ProcessResourceProfiler.class)
+                .build()).run();
+        printTable(results);
+    }
+
+    private static void printTable(Collection<RunResult> results) {
+        System.out.printf("%n%-8s %-12s %8s %12s %12s %14s %14s%n",
+                "mode", "stack", "reply", "latency(us)", "cpu(us)", "alloc(KB)", "chars/s");
+        results.stream()
+                .sorted(Comparator.comparing((RunResult r) -> r.getParams().getBenchmark())
+                        .thenComparing(r -> Integer.parseInt(r.getParams().getParam("replyLength")))
+                        .thenComparing(r -> r.getPrimaryResult().getScore()))
+                .forEach(r -> {
+                    String benchmark = r.getParams().getBenchmark();
+                    String mode = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+                    int reply = Integer.parseInt(r.getParams().getParam("replyLength"));
+                    double latency = r.getPrimaryResult().getScore();
+                    System.out.printf("%-8s %-12s %8d %12.1f %12.1f %14.1f %14.0f%n",
+                            mode, r.getParams().getParam("stack"), reply, latency,
+                            secondary(r, ProcessResourceProfiler.CPU),
+                            secondary(r, ProcessResourceProfiler.ALLOC) / 1024,
+                            reply * 1e6 / latency);
+                });
+    }
+
+    private static double secondary(RunResult result, String label) {
+        Result<?> secondary = result.getSecondaryResults().get(label);
+        return secondary == null ? Double.NaN : secondary.getScore();
+    }
+}
@@ -0,0 +1,145 @@
+package com.lb.aiagent.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lb.aiagent.utils.JacksonUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JacksonUtil 改为缓存 ObjectReader / ObjectWriter 前后的对比。
+ * legacy* 为原先的做法：每次调用构造 JavaType、新建格式化 writer，统一经过中间字符串；
+ * 与 Redis 记忆的数据形态相同（消息列表）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonUtilBenchmark {
+
+    public record Message(String messageType, String content, Map<String, Object> metadata) {
+    }
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
+    static {
+        LEGACY_MAPPER.registerModule(new JavaTimeModule());
+        LEGACY_MAPPER.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * 丢弃写入内容的输出流，只计算序列化开销
+     */
+    private static final OutputStream NULL_OUTPUT = OutputStream.nullOutputStream();
+
+    @Param({"10", "1000"})
+    private int messages;
+
+    private List<Message> list;
+
+    private String json;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        list = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            list.add(new Message(i % 2 == 0 ? "USER" : "ASSISTANT",
+                    "我和对象异地恋，最近总是因为回消息慢吵架，怎么办？第" + i + "轮",
+                    Map.of("messageType", "USER", "index", i)));
+        }
+        json = JacksonUtil.toJsonString(list);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object legacyToList() throws JsonProcessingException {
+        JavaType javaType = LEGACY_MAPPER.getTypeFactory().constructCollectionType(List.class, Message.class);
+        return LEGACY_MAPPER.readValue(json, javaType);
+    }
+
+    @Benchmark
+    public Object toList() {
+        return JacksonUtil.toList(json, Message.class);
+    }
+
+    @Benchmark
+    public Object toListFromBytes() {
+        return JacksonUtil.toList(bytes, Message.class);
+    }
+
+    @Benchmark
+    public int iterateArray() throws IOException {
+        int count = 0;
+        try (MappingIterator<Message> iterator = JacksonUtil.iterateArray(new ByteArrayInputStream(bytes),
+                Message.class)) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object legacyToMap() throws JsonProcessingException {
+        JavaType javaType = LEGACY_MAPPER.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        return LEGACY_MAPPER.readValue(JacksonUtil.toJsonString(list.get(0)), javaType);
+    }
+
+    @Benchmark
+    public Object toMap() {
+        return JacksonUtil.toMap(JacksonUtil.toJsonString(list.get(0)), String.class, Object.class);
+    }
+
+    @Benchmark
+    public Object legacyPretty() throws JsonProcessingException {
+        return LEGACY_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(list);
+    }
+
+    @Benchmark
+    public Object pretty() {
+        return JacksonUtil.toPrettyJsonString(list);
+    }
+
+    @Benchmark
+    public Object legacyWriteBytes() throws JsonProcessingException {
+        return LEGACY_MAPPER.writeValueAsString(list).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object toJsonBytes() {
+        return JacksonUtil.toJsonBytes(list);
+    }
+
+    @Benchmark
+    public void writeTo() {
+        JacksonUtil.writeTo(NULL_OUTPUT, list);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JacksonUtilBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.lb.aiagent.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按整个进程统计每次操作的 CPU 时间和内存分配
+ * GCProfiler 只统计基准线程自己的分配，HTTP 客户端的 IO 线程、Reactor 调度线程上的开销统计不到。
+ * 模拟服务运行在同一进程内，它的开销对各实现大致相同，比较时看差值
+ */
+public class ProcessResourceProfiler implements InternalProfiler {
+
+    public static final String CPU = "·cpu.time.norm";
+
+    public static final String ALLOC = "·alloc.total.norm";
+
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long cpuBefore;
+
+    private long allocBefore;
+
+    @Override
+    public String getDescription() {
+        return "Process-wide CPU time and allocated bytes per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        cpuBefore = os.getProcessCpuTime();
+        allocBefore = threads.getTotalThreadAllocatedBytes();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        long cpu = os.getProcessCpuTime() - cpuBefore;
+        long alloc = threads.getTotalThreadAllocatedBytes() - allocBefore;
+        long ops = Math.max(result.getMetadata().getAllOps(), 1);
+        return List.of(
+                new ScalarResult(CPU, cpu / 1000.0 / ops, "us/op", AggregationPolicy.AVG),
+                new ScalarResult(ALLOC, (double) alloc / ops, "B/op", AggregationPolicy.AVG));
+    }
+}
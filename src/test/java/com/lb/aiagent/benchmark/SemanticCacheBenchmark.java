@@ -0,0 +1,74 @@
+package com.lb.aiagent.benchmark;
+
+import com.lb.aiagent.cache.SemanticResponseCache;
+import com.lb.aiagent.config.SemanticCacheProperties;
+import com.lb.aiagent.embedding.LocalHashEmbeddingProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义缓存查询耗时（向量化 + HNSW 查询）
+ * 模型一次调用通常在 1~5 秒，查询耗时在微秒级即可忽略不计
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SemanticCacheBenchmark {
+
+    private static final String SCOPE = "benchmark";
+
+    private static final String[] WORDS = {"怎么", "让", "另一半", "更爱我", "吵架", "异地恋", "约会", "礼物",
+            "见家长", "分手", "复合", "沟通", "冷战", "表白", "暗恋", "结婚", "纪念日", "信任"};
+
+    @Param({"1000", "10000", "50000"})
+    private int entries;
+
+    private SemanticResponseCache cache;
+
+    private String[] queries;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        SemanticCacheProperties properties = new SemanticCacheProperties();
+        properties.setMaxEntries(entries + 1);
+        cache = new SemanticResponseCache(new LocalHashEmbeddingProvider(256), properties, new SimpleMeterRegistry());
+        Random random = new Random(7);
+        for (int i = 0; i < entries; i++) {
+            cache.put(SCOPE, randomQuery(random) + i, "answer " + i, 2000);
+        }
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomQuery(random);
+        }
+    }
+
+    @Benchmark
+    public Object lookup() {
+        return cache.get(SCOPE, queries[cursor++ & (queries.length - 1)]);
+    }
+
+    private static String randomQuery(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SemanticCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.lb.aiagent.benchmark;
+
+import com.lb.aiagent.app.LoveApp;
+import com.lb.aiagent.structured.StructuredOutputRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.converter.BeanOutputConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次新建 BeanOutputConverter（生成 JSON Schema）与复用注册表中预编译转换器的对比
+ * 用 GC profiler 运行，gc.alloc.rate.norm 即每次调用的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredOutputBenchmark {
+
+    private static final String SYSTEM_PROMPT = "扮演深耕恋爱心理领域的专家。";
+
+    private static final String RESPONSE = """
+            {"title": "小明的恋爱报告", "suggestions": ["多沟通", "多陪伴", "尊重对方的习惯"]}
+            """;
+
+    private StructuredOutputRegistry registry;
+
+    @Setup
+    public void setup() {
+        registry = new StructuredOutputRegistry();
+        registry.register(LoveApp.LoveReport.class, SYSTEM_PROMPT + "每次对话后都要生成恋爱结果");
+    }
+
+    /**
+     * 等同于 entity(LoveReport.class)：每次新建转换器、生成格式说明并解析
+     */
+    @Benchmark
+    public Object perCallConverter() {
+        BeanOutputConverter<LoveApp.LoveReport> converter = new BeanOutputConverter<>(LoveApp.LoveReport.class);
+        String format = converter.getFormat();
+        return format.length() + converter.convert(RESPONSE).suggestions().size();
+    }
+
+    @Benchmark
+    public Object registryConverter() {
+        var output = registry.get(LoveApp.LoveReport.class);
+        String format = output.getFormat();
+        return format.length() + output.convert(RESPONSE).suggestions().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StructuredOutputBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
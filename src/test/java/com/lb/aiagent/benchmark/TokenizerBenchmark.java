@@ -0,0 +1,89 @@
+package com.lb.aiagent.benchmark;
+
+import com.lb.aiagent.tokenizer.BpeTokenizer;
+import com.lb.aiagent.tokenizer.CachingTokenCounter;
+import com.lb.aiagent.tokenizer.TestVocabulary;
+import com.lb.aiagent.utils.TokenEstimator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地分词器吞吐量：按词表精确计数、带缓存计数（历史消息重复计算）与按字符数估算的对比。
+ * 默认使用合成词表，-Dtokenizer.vocab=qwen.tiktoken 时使用真实词表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private static final String ZH = "我和女朋友因为生活习惯不同经常吵架，她总是嫌我不爱收拾房间，我觉得她太挑剔了。";
+
+    private static final String EN = "How should I talk to my girlfriend when we keep arguing about small things? ";
+
+    private static final String MIXED = "她说我不够 romantic，纪念日只送了一束花 🌹，we had a big fight about it. ";
+
+    @Param({"zh", "en", "mixed"})
+    private String language;
+
+    @Param({"100", "2000"})
+    private int length;
+
+    private BpeTokenizer tokenizer;
+
+    private CachingTokenCounter cachingCounter;
+
+    private String text;
+
+    @Setup
+    public void setup() throws IOException {
+        String vocab = System.getProperty("tokenizer.vocab");
+        Path path = vocab != null ? Path.of(vocab)
+                : TestVocabulary.write(Files.createTempFile("vocab", ".tiktoken"));
+        tokenizer = BpeTokenizer.load(path);
+        cachingCounter = new CachingTokenCounter(tokenizer, 1000, 64);
+        String sample = switch (language) {
+            case "zh" -> ZH;
+            case "en" -> EN;
+            default -> MIXED;
+        };
+        text = sample.repeat(length / sample.length() + 1).substring(0, length);
+    }
+
+    @Benchmark
+    public int count() {
+        return tokenizer.count(text);
+    }
+
+    @Benchmark
+    public int[] encode() {
+        return tokenizer.encode(text);
+    }
+
+    @Benchmark
+    public int cachedCount() {
+        return cachingCounter.count(text);
+    }
+
+    @Benchmark
+    public int heuristic() {
+        return TokenEstimator.heuristic(text);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenizerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
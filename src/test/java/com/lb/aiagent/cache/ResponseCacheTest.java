@@ -0,0 +1,121 @@
+package com.lb.aiagent.cache;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.lb.aiagent.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class ResponseCacheTest {
+
+    private final ChatModel model = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdvisedRequest.Builder request(String userText) {
+        return AdvisedRequest.builder()
+                .chatModel(model)
+                .systemText("扮演恋爱心理专家")
+                .userText(userText);
+    }
+
+    private static DashScopeChatOptions options(String model) {
+        DashScopeChatOptions options = DashScopeChatOptions.builder().build();
+        options.setModel(model);
+        return options;
+    }
+
+    private ResponseCache cache(ResponseCacheProperties properties) {
+        properties.setRedisEnabled(false);
+        return new ResponseCache(properties, null, meterRegistry);
+    }
+
+    @Test
+    void testKeyStability() {
+        String key = ResponseCacheKey.of(request("怎么追女生？").build());
+        // 空白、结尾标点和大小写不影响缓存键
+        Assertions.assertEquals(key, ResponseCacheKey.of(request("  怎么追女生  ").build()));
+        Assertions.assertEquals(ResponseCacheKey.of(request("Hello").build()),
+                ResponseCacheKey.of(request("hello!").build()));
+        // 参数顺序不影响缓存键
+        Assertions.assertEquals(
+                ResponseCacheKey.of(request("你好").userParams(Map.of("a", 1, "b", 2)).build()),
+                ResponseCacheKey.of(request("你好").userParams(Map.of("b", 2, "a", 1)).build()));
+
+        Assertions.assertNotEquals(key, ResponseCacheKey.of(request("怎么追男生").build()));
+        Assertions.assertNotEquals(key, ResponseCacheKey.of(request("怎么追女生").systemText("扮演律师").build()));
+        Assertions.assertNotEquals(key, ResponseCacheKey.of(request("怎么追女生")
+                .messages(List.of(new UserMessage("我叫张三"), new AssistantMessage("你好"))).build()));
+        Assertions.assertNotEquals(ResponseCacheKey.of(request("你好").chatOptions(options("qwen-plus")).build()),
+                ResponseCacheKey.of(request("你好").chatOptions(options("qwen-turbo")).build()));
+    }
+
+    @Test
+    void testTtl() throws Exception {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setTtl(Duration.ofMillis(50));
+        ResponseCache cache = cache(properties);
+        cache.put("k", "你好，我是恋爱专家", 1200);
+
+        CachedResponse cached = cache.get("k");
+        Assertions.assertNotNull(cached);
+        Assertions.assertEquals("你好，我是恋爱专家", cached.text());
+        Assertions.assertEquals(1, meterRegistry.get("ai.response.cache.requests").tag("result", "hit_local")
+                .counter().count());
+
+        Thread.sleep(80);
+        Assertions.assertNull(cache.get("k"));
+        Assertions.assertEquals(1, meterRegistry.get("ai.response.cache.requests").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void testLocalBytesLimit() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        // 每条约 64 + 100 * 2 字节，最多放两条
+        properties.setLocalMaxBytes(600);
+        ResponseCache cache = cache(properties);
+        String text = "好".repeat(100);
+        cache.put("a", text, 0);
+        cache.put("b", text, 0);
+        // 访问 a 后 b 变为最久未使用
+        Assertions.assertNotNull(cache.get("a"));
+        cache.put("c", text, 0);
+
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertNotNull(cache.get("a"));
+        Assertions.assertNotNull(cache.get("c"));
+        Assertions.assertEquals(1, meterRegistry.get("ai.response.cache.evictions").counter().count());
+        // 空回答和超长回答不缓存
+        cache.put("blank", " ", 0);
+        Assertions.assertNull(cache.get("blank"));
+    }
+
+    @Test
+    void testBypassRules() {
+        Assertions.assertFalse(CacheBypassRules.bypass(request("你好").build(), true, 200));
+        // 带历史记忆的请求
+        Assertions.assertTrue(CacheBypassRules.bypass(request("你好")
+                .messages(List.of(new UserMessage("我叫张三"), new AssistantMessage("你好"))).build(), true, 200));
+        Assertions.assertFalse(CacheBypassRules.bypass(request("你好")
+                .messages(List.of(new UserMessage("我叫张三"), new AssistantMessage("你好"))).build(), false, 200));
+        // 带工具调用的请求
+        Assertions.assertTrue(CacheBypassRules.bypass(request("今天天气怎么样")
+                .functionNames(List.of("weather")).build(), true, 200));
+        // 显式跳过、输入过长
+        Assertions.assertTrue(CacheBypassRules.bypass(request("你好")
+                .adviseContext(Map.of(CacheBypassRules.CACHE_BYPASS_KEY, true)).build(), true, 200));
+        Assertions.assertTrue(CacheBypassRules.bypass(request("好".repeat(201)).build(), true, 200));
+    }
+}
@@ -0,0 +1,85 @@
+package com.lb.aiagent.cache;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.lb.aiagent.config.SemanticCacheProperties;
+import com.lb.aiagent.embedding.EmbeddingProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.util.List;
+import java.util.Map;
+
+public class SemanticResponseCacheTest {
+
+    /**
+     * 固定向量，便于精确控制相似度：与“怎么追女生”的余弦相似度分别为 0.95 和 0.8
+     */
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "怎么追女生", new float[]{1f, 0f},
+            "怎样追女生", new float[]{0.95f, 0.3122f},
+            "怎么哄女生", new float[]{0.8f, 0.6f});
+
+    private final EmbeddingProvider embeddingProvider = new EmbeddingProvider() {
+        @Override
+        public float[] embed(String text) {
+            return EmbeddingProvider.normalize(VECTORS.get(text).clone());
+        }
+
+        @Override
+        public int dimensions() {
+            return 2;
+        }
+    };
+
+    private final ChatModel model = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+
+    private final SemanticResponseCache cache = new SemanticResponseCache(embeddingProvider,
+            new SemanticCacheProperties(), new SimpleMeterRegistry());
+
+    private AdvisedRequest.Builder request() {
+        return AdvisedRequest.builder()
+                .chatModel(model)
+                .systemText("扮演恋爱心理专家")
+                .userText("怎么追女生");
+    }
+
+    @Test
+    void testSimilarityThreshold() {
+        String scope = SemanticResponseCache.scopeOf(request().build());
+        cache.put(scope, "怎么追女生？", "先做朋友", 1000);
+
+        Assertions.assertEquals("先做朋友", cache.get(scope, "怎么追女生").text());
+        // 相似度 0.95，超过默认阈值 0.92
+        Assertions.assertEquals("先做朋友", cache.get(scope, "怎样追女生").text());
+        // 相似度 0.8，不命中
+        Assertions.assertNull(cache.get(scope, "怎么哄女生"));
+    }
+
+    @Test
+    void testScopeIsolation() {
+        String scope = SemanticResponseCache.scopeOf(request().build());
+        Assertions.assertEquals(scope, SemanticResponseCache.scopeOf(request().userText("怎么哄女生").build()));
+        cache.put(scope, "怎么追女生", "先做朋友", 1000);
+
+        DashScopeChatOptions options = DashScopeChatOptions.builder().build();
+        options.setModel("qwen-turbo");
+        List<String> others = List.of(
+                SemanticResponseCache.scopeOf(request().systemText("扮演律师").build()),
+                SemanticResponseCache.scopeOf(request().systemParams(Map.of("name", "张三")).build()),
+                SemanticResponseCache.scopeOf(request().userParams(Map.of("name", "张三")).build()),
+                SemanticResponseCache.scopeOf(request().userParams(Map.of("name", "李四")).build()),
+                SemanticResponseCache.scopeOf(request().chatOptions(options).build()));
+        Assertions.assertEquals(others.size(), others.stream().distinct().count());
+        for (String other : others) {
+            Assertions.assertNotEquals(scope, other);
+            Assertions.assertNull(cache.get(other, "怎么追女生"));
+        }
+        Assertions.assertNotNull(cache.get(scope, "怎么追女生"));
+    }
+}
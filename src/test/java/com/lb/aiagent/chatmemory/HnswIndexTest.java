@@ -0,0 +1,48 @@
+package com.lb.aiagent.chatmemory;
+
+import com.lb.aiagent.embedding.EmbeddingProvider;
+import com.lb.aiagent.embedding.LocalHashEmbeddingProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class HnswIndexTest {
+
+    @Test
+    void testSearchMatchesBruteForce() {
+        int dimensions = 32;
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(dimensions, 8, 64, 4);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = new float[dimensions];
+            for (int j = 0; j < dimensions; j++) {
+                v[j] = (float) random.nextGaussian();
+            }
+            vectors[i] = EmbeddingProvider.normalize(v);
+            Assertions.assertEquals(i, index.add(vectors[i]));
+        }
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = vectors[random.nextInt(vectors.length)];
+            List<HnswIndex.SearchResult> results = index.search(query, 1, 50);
+            if (results.get(0).similarity() > 0.999f) {
+                hits++;
+            }
+        }
+        Assertions.assertTrue(hits >= 48, "recall too low: " + hits);
+    }
+
+    @Test
+    void testRecallEarlierTurn() {
+        EmbeddingProvider provider = new LocalHashEmbeddingProvider(256);
+        HnswIndex index = new HnswIndex(provider.dimensions(), 16, 100);
+        index.add(provider.embed("你好，我是程序员张三"));
+        index.add(provider.embed("我想让另一半（李四）更爱我"));
+        index.add(provider.embed("今天天气不错，适合出去走走"));
+        List<HnswIndex.SearchResult> results = index.search(provider.embed("我的另一半叫什么来着"), 1, 10);
+        Assertions.assertEquals(1, results.get(0).node());
+    }
+}
@@ -0,0 +1,54 @@
+package com.lb.aiagent.chatmodel;
+
+import com.lb.aiagent.config.DashScopeHttpProperties;
+import com.lb.aiagent.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class DashScopeHttpChatModelTest {
+
+    private static final String REPLY = "你好，我是恋爱心理专家。\n说说你的\"困扰\"吧。";
+
+    @Test
+    void testCallAndStream() throws Exception {
+        try (MockDashScopeServer server = new MockDashScopeServer(REPLY, 3)) {
+            DashScopeHttpProperties properties = new DashScopeHttpProperties();
+            properties.setBaseUrl(server.baseUrl());
+            properties.setApiKey("test");
+            DashScopeHttpChatModel model = new DashScopeHttpChatModel(properties);
+
+            ChatResponse response = model.call(new Prompt("你好"));
+            Assertions.assertEquals(REPLY, response.getResult().getOutput().getText());
+
+            List<ChatResponse> chunks = model.stream(new Prompt("你好")).collectList().block();
+            Assertions.assertNotNull(chunks);
+            Assertions.assertTrue(chunks.size() > 1);
+            String text = chunks.stream()
+                    .map(chunk -> chunk.getResult().getOutput().getText())
+                    .collect(Collectors.joining());
+            Assertions.assertEquals(REPLY, text);
+        }
+    }
+
+    @Test
+    void testSseDecoderAcrossBufferBoundaries() {
+        String sse = "id:1\r\nevent:result\r\ndata:{\"a\":1}\r\n\r\n:comment\ndata: line1\ndata: line2\n\n";
+        byte[] bytes = sse.getBytes(StandardCharsets.UTF_8);
+        SseDecoder decoder = new SseDecoder();
+        List<String> events = new ArrayList<>();
+        // 每次只喂 1 个字节
+        for (byte b : bytes) {
+            decoder.feed(ByteBuffer.wrap(new byte[]{b}))
+                    .forEach(event -> events.add(new String(event, StandardCharsets.UTF_8)));
+        }
+        Assertions.assertEquals(List.of("{\"a\":1}", "line1\nline2"), events);
+    }
+}
@@ -0,0 +1,196 @@
+package com.lb.aiagent.chatmodel;
+
+import com.lb.aiagent.config.HedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+public class HedgingChatModelTest {
+
+    /**
+     * 第一次调用很慢，之后的调用立即返回
+     */
+    private static class SlowFirstChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile boolean firstInterrupted;
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    firstInterrupted = true;
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer " + call))));
+        }
+    }
+
+    /**
+     * 第 n 次流式调用返回 streams.apply(n)
+     */
+    private static class StreamingChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final IntFunction<Flux<ChatResponse>> streams;
+
+        private StreamingChatModel(IntFunction<Flux<ChatResponse>> streams) {
+            this.streams = streams;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> streams.apply(calls.incrementAndGet()));
+        }
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static String text(List<ChatResponse> responses) {
+        StringBuilder text = new StringBuilder();
+        responses.forEach(response -> text.append(response.getResult().getOutput().getText()));
+        return text.toString();
+    }
+
+    private static HedgingProperties properties(double budgetRatio) {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setInitialDelay(Duration.ofMillis(100));
+        properties.setBudgetRatio(budgetRatio);
+        return properties;
+    }
+
+    @Test
+    void testHedgeWinsAndCancelsSlowCall() throws Exception {
+        SlowFirstChatModel delegate = new SlowFirstChatModel();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgingChatModel model = new HedgingChatModel(delegate, properties(1.0), registry);
+
+        long start = System.nanoTime();
+        ChatResponse response = model.call(new Prompt("你好"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertEquals("answer 2", response.getResult().getOutput().getText());
+        Assertions.assertTrue(elapsedMillis < 2000, "took " + elapsedMillis + "ms");
+        Assertions.assertEquals(1, registry.get("ai.model.hedge.wins").tag("mode", "call").counter().count());
+        // 败出的慢请求被中断
+        Thread.sleep(200);
+        Assertions.assertTrue(delegate.firstInterrupted);
+    }
+
+    @Test
+    void testRecordPrimaryLatencyWhenHedgeWins() {
+        HedgingProperties properties = properties(1.0);
+        properties.setMinSamples(1);
+        properties.setMinDelay(Duration.ofMillis(1));
+        HedgingChatModel model = new HedgingChatModel(new SlowFirstChatModel(), properties, new SimpleMeterRegistry());
+
+        model.call(new Prompt("你好"));
+
+        // 记录的是原请求已等待的时长，而不是对冲请求自身的耗时
+        Assertions.assertTrue(model.hedgeDelay(false).toMillis() >= 100, "delay " + model.hedgeDelay(false));
+        // 流式首包耗时单独统计，不受同步调用影响
+        Assertions.assertEquals(properties.getInitialDelay(), model.hedgeDelay(true));
+    }
+
+    @Test
+    void testBudgetLimitsHedges() {
+        SlowFirstChatModel delegate = new SlowFirstChatModel();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgingChatModel model = new HedgingChatModel(delegate, properties(0.1), registry);
+
+        // 额度不足，等原请求返回
+        ChatResponse response = model.call(new Prompt("你好"));
+
+        Assertions.assertEquals("answer 1", response.getResult().getOutput().getText());
+        Assertions.assertEquals(0, registry.get("ai.model.hedge.requests").tag("mode", "call").counter().count());
+        Assertions.assertEquals(1,
+                registry.get("ai.model.hedge.budget.exhausted").tag("mode", "call").counter().count());
+    }
+
+    @Test
+    void testStreamHedgeWinsOnSlowFirstToken() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StreamingChatModel delegate = new StreamingChatModel(call -> call == 1
+                ? Flux.just(response("slow")).delaySubscription(Duration.ofSeconds(5))
+                : Flux.just(response("answer "), response(String.valueOf(call))));
+        HedgingChatModel model = new HedgingChatModel(delegate, properties(1.0), registry);
+
+        List<ChatResponse> responses = model.stream(new Prompt("你好")).collectList().block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals("answer 2", text(responses));
+        Assertions.assertEquals(1, registry.get("ai.model.hedge.wins").tag("mode", "stream").counter().count());
+    }
+
+    @Test
+    void testStreamPrimaryErrorFailsFast() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgingProperties properties = properties(1.0);
+        properties.setInitialDelay(Duration.ofSeconds(5));
+        IllegalArgumentException badRequest = new IllegalArgumentException("400 Bad Request");
+        StreamingChatModel delegate = new StreamingChatModel(call -> Flux.error(badRequest));
+        HedgingChatModel model = new HedgingChatModel(delegate, properties, registry);
+
+        long start = System.nanoTime();
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> model.stream(new Prompt("你好")).blockLast(Duration.ofSeconds(2)));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 原样抛出模型的异常，不等对冲延迟，也不发对冲请求
+        Assertions.assertSame(badRequest, thrown);
+        Assertions.assertTrue(elapsedMillis < 1000, "took " + elapsedMillis + "ms");
+        Assertions.assertEquals(1, delegate.calls.get());
+        Assertions.assertEquals(0, registry.get("ai.model.hedge.requests").tag("mode", "stream").counter().count());
+    }
+
+    @Test
+    void testStreamPrimaryEmptyCompletesImmediately() {
+        HedgingProperties properties = properties(1.0);
+        properties.setInitialDelay(Duration.ofSeconds(5));
+        StreamingChatModel delegate = new StreamingChatModel(call -> Flux.empty());
+        HedgingChatModel model = new HedgingChatModel(delegate, properties, new SimpleMeterRegistry());
+
+        List<ChatResponse> responses = model.stream(new Prompt("你好")).collectList().block(Duration.ofSeconds(2));
+
+        Assertions.assertEquals(List.of(), responses);
+        Assertions.assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    void testStreamHedgeErrorWaitsForPrimary() {
+        StreamingChatModel delegate = new StreamingChatModel(call -> call == 1
+                ? Flux.just(response("answer 1")).delaySubscription(Duration.ofMillis(500))
+                : Flux.error(new IllegalStateException("hedge failed")));
+        HedgingChatModel model = new HedgingChatModel(delegate, properties(1.0), new SimpleMeterRegistry());
+
+        List<ChatResponse> responses = model.stream(new Prompt("你好")).collectList().block(Duration.ofSeconds(2));
+
+        // 对冲请求首包前失败，继续等原请求
+        Assertions.assertEquals("answer 1", text(responses));
+        Assertions.assertEquals(2, delegate.calls.get());
+    }
+}
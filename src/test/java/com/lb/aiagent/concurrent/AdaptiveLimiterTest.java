@@ -0,0 +1,159 @@
+package com.lb.aiagent.concurrent;
+
+import com.lb.aiagent.config.ConcurrencyLimitProperties;
+import com.lb.aiagent.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+public class AdaptiveLimiterTest {
+
+    private static ConcurrencyLimitProperties.Limit settings(int initialLimit, int maxQueueSize) {
+        ConcurrencyLimitProperties.Limit settings = new ConcurrencyLimitProperties.Limit();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(1);
+        settings.setMaxLimit(10);
+        settings.setMaxQueueSize(maxQueueSize);
+        settings.setMaxWait(Duration.ofMillis(200));
+        return settings;
+    }
+
+    private static AdaptiveLimiter limiter(ConcurrencyLimitProperties.Limit settings) {
+        return new AdaptiveLimiter("test", settings, new ConcurrencyLimitProperties().getPriorities());
+    }
+
+    @Test
+    void testQueueAndReject() throws Exception {
+        AdaptiveLimiter limiter = limiter(settings(1, 1));
+        AdaptiveLimiter.Permit first = limiter.acquire().get();
+        CompletableFuture<AdaptiveLimiter.Permit> queued = limiter.acquire();
+        Assertions.assertFalse(queued.isDone());
+        // 队列已满，立即拒绝
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> limiter.acquire().get());
+        Assertions.assertInstanceOf(BusinessException.class, e.getCause());
+
+        first.ignore();
+        Assertions.assertTrue(queued.isDone());
+        Assertions.assertEquals(1, limiter.getInFlight());
+        queued.get().ignore();
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testQueueTimeout() throws Exception {
+        AdaptiveLimiter limiter = limiter(settings(1, 1));
+        AdaptiveLimiter.Permit first = limiter.acquire().get();
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> limiter.acquire().get());
+        Assertions.assertInstanceOf(TimeoutException.class, e.getCause());
+        Assertions.assertEquals(0, limiter.getQueueSize());
+        first.ignore();
+        // 超时的等待者不会占用许可
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testAdditiveIncreaseMultiplicativeDecrease() throws Exception {
+        AdaptiveLimiter limiter = limiter(settings(4, 10));
+        for (int i = 0; i < 3; i++) {
+            AdaptiveLimiter.Permit a = limiter.acquire().get();
+            AdaptiveLimiter.Permit b = limiter.acquire().get();
+            AdaptiveLimiter.Permit c = limiter.acquire().get();
+            // 利用率过半且耗时正常，上限加一
+            a.success(1_000_000);
+            b.ignore();
+            c.ignore();
+        }
+        Assertions.assertEquals(7, limiter.getLimit());
+
+        // 耗时远超基线，收紧上限
+        limiter.acquire().get().success(100_000_000);
+        Assertions.assertEquals(6, limiter.getLimit());
+
+        limiter.acquire().get().dropped();
+        Assertions.assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testSampleKeepsPermit() throws Exception {
+        AdaptiveLimiter limiter = limiter(settings(1, 1));
+        AdaptiveLimiter.Permit permit = limiter.acquire().get();
+        // 记录首包耗时后许可仍被占用，排队者不会被放行
+        permit.sample(1_000_000);
+        Assertions.assertEquals(1, limiter.getInFlight());
+        CompletableFuture<AdaptiveLimiter.Permit> queued = limiter.acquire();
+        Assertions.assertFalse(queued.isDone());
+
+        permit.success();
+        Assertions.assertTrue(queued.isDone());
+        queued.get().ignore();
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testWeightedFairWithoutStarvation() throws Exception {
+        ConcurrencyLimitProperties.Limit settings = settings(1, 100);
+        settings.setMaxWait(Duration.ofSeconds(10));
+        AdaptiveLimiter limiter = limiter(settings);
+        AdaptiveLimiter.Permit running = limiter.acquire().get();
+        List<CompletableFuture<AdaptiveLimiter.Permit>> interactive = new ArrayList<>();
+        List<CompletableFuture<AdaptiveLimiter.Permit>> report = new ArrayList<>();
+        for (int i = 0; i < 14; i++) {
+            interactive.add(limiter.acquire(Priority.INTERACTIVE));
+        }
+        for (int i = 0; i < 7; i++) {
+            report.add(limiter.acquire(Priority.REPORT));
+        }
+        // 逐个放行，按 6:3 的权重分配
+        List<Priority> order = new ArrayList<>();
+        AdaptiveLimiter.Permit current = running;
+        for (int i = 0; i < 9; i++) {
+            current.ignore();
+            current = next(interactive, report);
+            order.add(current.getPriority());
+        }
+        Assertions.assertEquals(6, order.stream().filter(p -> p == Priority.INTERACTIVE).count());
+        Assertions.assertEquals(3, order.stream().filter(p -> p == Priority.REPORT).count());
+        current.ignore();
+    }
+
+    @Test
+    void testBackgroundShareAndEviction() throws Exception {
+        AdaptiveLimiter limiter = limiter(settings(10, 1));
+        // 后台任务最多占用 30% 的并发
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(limiter.acquire(Priority.BACKGROUND).isDone());
+        }
+        CompletableFuture<AdaptiveLimiter.Permit> background = limiter.acquire(Priority.BACKGROUND);
+        Assertions.assertFalse(background.isDone());
+        Assertions.assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire(Priority.INTERACTIVE).get();
+        }
+        // 并发已满、队列已满，交互式请求挤掉排队的后台任务
+        CompletableFuture<AdaptiveLimiter.Permit> interactive = limiter.acquire(Priority.INTERACTIVE);
+        Assertions.assertFalse(interactive.isDone());
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, background::get);
+        Assertions.assertInstanceOf(BusinessException.class, e.getCause());
+        Assertions.assertEquals(1, limiter.getQueueSize());
+    }
+
+    private static AdaptiveLimiter.Permit next(List<CompletableFuture<AdaptiveLimiter.Permit>> interactive,
+                                               List<CompletableFuture<AdaptiveLimiter.Permit>> report) {
+        for (List<CompletableFuture<AdaptiveLimiter.Permit>> futures : List.of(interactive, report)) {
+            for (CompletableFuture<AdaptiveLimiter.Permit> future : futures) {
+                if (future.isDone()) {
+                    futures.remove(future);
+                    return future.join();
+                }
+            }
+        }
+        throw new AssertionError("No permit granted");
+    }
+}
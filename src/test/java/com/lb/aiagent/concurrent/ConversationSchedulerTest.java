@@ -0,0 +1,135 @@
+package com.lb.aiagent.concurrent;
+
+import com.lb.aiagent.config.ConversationSchedulerProperties;
+import com.lb.aiagent.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConversationSchedulerTest {
+
+    @Test
+    void testSameConversationRunsInOrder() {
+        ConversationSchedulerProperties properties = new ConversationSchedulerProperties();
+        properties.setMaxQueueDepth(100);
+        ConversationScheduler scheduler = new ConversationScheduler(properties, new SimpleMeterRegistry());
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int turn = i;
+            futures.add(scheduler.submit("chat", "message " + i, () -> {
+                Assertions.assertEquals(1, running.incrementAndGet());
+                order.add(turn);
+                running.decrementAndGet();
+                return turn;
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void testMergeAndReject() throws Exception {
+        ConversationSchedulerProperties properties = new ConversationSchedulerProperties();
+        properties.setMaxQueueDepth(1);
+        ConversationScheduler scheduler = new ConversationScheduler(properties, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<Integer> first = scheduler.submit("chat", "你好", () -> {
+            started.countDown();
+            await(release);
+            return executions.incrementAndGet();
+        });
+        started.await();
+        // 相同消息合并到正在执行的轮次
+        Assertions.assertSame(first, scheduler.submit("chat", "你好", executions::incrementAndGet));
+        scheduler.submit("chat", "第二轮", executions::incrementAndGet);
+        // 排队已满
+        Assertions.assertThrows(BusinessException.class,
+                () -> scheduler.submit("chat", "第三轮", executions::incrementAndGet));
+        // 其他会话不受影响
+        Assertions.assertEquals("ok", scheduler.submit("other", "你好", () -> "ok").join());
+        release.countDown();
+        Assertions.assertEquals(1, first.join());
+    }
+
+    @Test
+    void testStreamSupplierThrows() {
+        ConversationScheduler scheduler = new ConversationScheduler(new ConversationSchedulerProperties(),
+                new SimpleMeterRegistry());
+        Flux<String> failing = scheduler.executeStream("chat", () -> {
+            throw new IllegalStateException("boom");
+        });
+        Assertions.assertThrows(IllegalStateException.class, failing::blockLast);
+        // 会话没有被占住，下一轮正常执行
+        List<String> next = scheduler.executeStream("chat", () -> Flux.just("a", "b"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertEquals(List.of("a", "b"), next);
+    }
+
+    @Test
+    void testCancelQueuedStream() throws Exception {
+        ConversationScheduler scheduler = new ConversationScheduler(new ConversationSchedulerProperties(),
+                new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = scheduler.submit("chat", "第一轮", () -> {
+            started.countDown();
+            await(release);
+            return "first";
+        });
+        started.await();
+        AtomicInteger subscribed = new AtomicInteger();
+        // 排队期间取消
+        Disposable queued = scheduler.executeStream("chat",
+                        () -> Flux.just("a").doOnSubscribe(subscription -> subscribed.incrementAndGet()))
+                .subscribe();
+        queued.dispose();
+        release.countDown();
+        Assertions.assertEquals("first", first.join());
+        List<String> next = scheduler.executeStream("chat", () -> Flux.just("b"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertEquals(List.of("b"), next);
+        Assertions.assertEquals(0, subscribed.get());
+    }
+
+    @Test
+    void testCancelWhileStreamStarting() {
+        ConversationScheduler scheduler = new ConversationScheduler(new ConversationSchedulerProperties(),
+                new SimpleMeterRegistry());
+        // 取消与轮次开始并发，无论落在哪一侧，会话都不能被一直占住
+        for (int i = 0; i < 200; i++) {
+            scheduler.executeStream("chat", () -> Flux.<String>never())
+                    .subscribe()
+                    .dispose();
+        }
+        List<String> next = scheduler.executeStream("chat", () -> Flux.just("c"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertEquals(List.of("c"), next);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.lb.aiagent.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void testCoalesceCalls() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<SingleFlight.Result<String>> first = new AtomicReference<>();
+        Thread leader = Thread.ofVirtual().start(() -> first.set(singleFlight.execute("k", () -> {
+            started.countDown();
+            await(release);
+            return "answer" + executions.incrementAndGet();
+        })));
+        started.await();
+        AtomicReference<SingleFlight.Result<String>> second = new AtomicReference<>();
+        Thread follower = Thread.ofVirtual().start(
+                () -> second.set(singleFlight.execute("k", () -> "answer" + executions.incrementAndGet())));
+        awaitWaiting(follower);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertFalse(first.get().shared());
+        Assertions.assertTrue(second.get().shared());
+        Assertions.assertEquals("answer1", second.get().value());
+        // 调用结束后不再复用
+        SingleFlight.Result<String> third = singleFlight.execute("k", () -> "answer" + executions.incrementAndGet());
+        Assertions.assertFalse(third.shared());
+        Assertions.assertEquals("answer2", third.value());
+    }
+
+    @Test
+    void testCallErrorPropagates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> leaderError = new AtomicReference<>();
+        Thread leader = Thread.ofVirtual().start(() -> {
+            try {
+                singleFlight.execute("k", () -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("boom");
+                });
+            } catch (RuntimeException e) {
+                leaderError.set(e);
+            }
+        });
+        started.await();
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+        Thread follower = Thread.ofVirtual().start(() -> {
+            try {
+                singleFlight.execute("k", () -> "unused");
+            } catch (RuntimeException e) {
+                followerError.set(e);
+            }
+        });
+        awaitWaiting(follower);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        Assertions.assertInstanceOf(IllegalStateException.class, leaderError.get());
+        Assertions.assertSame(leaderError.get(), followerError.get());
+        // 失败的调用同样会被移除
+        Assertions.assertEquals("ok", singleFlight.execute("k", () -> "ok").value());
+    }
+
+    @Test
+    void testCoalesceStreamsAndCleanup() {
+        Sinks.Many<String> sink = Sinks.many().replay().all();
+        AtomicInteger subscriptions = new AtomicInteger();
+        AtomicInteger shared = new AtomicInteger();
+        Supplier<Flux<String>> upstream = () -> {
+            subscriptions.incrementAndGet();
+            return sink.asFlux();
+        };
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        singleFlight.stream("k", upstream, shared::incrementAndGet).subscribe(first::add);
+        sink.tryEmitNext("a");
+        // 晚到的订阅者先收到已产生的数据
+        singleFlight.stream("k", upstream, shared::incrementAndGet).subscribe(second::add);
+        sink.tryEmitNext("b");
+        sink.tryEmitComplete();
+
+        Assertions.assertEquals(List.of("a", "b"), first);
+        Assertions.assertEquals(List.of("a", "b"), second);
+        Assertions.assertEquals(1, subscriptions.get());
+        Assertions.assertEquals(1, shared.get());
+
+        // 流结束后重新订阅上游
+        singleFlight.stream("k", upstream, shared::incrementAndGet).blockLast();
+        Assertions.assertEquals(2, subscriptions.get());
+        Assertions.assertEquals(1, shared.get());
+    }
+
+    @Test
+    void testStreamErrorPropagates() {
+        Sinks.Many<String> sink = Sinks.many().multicast().onBackpressureBuffer();
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        AtomicReference<Throwable> second = new AtomicReference<>();
+        singleFlight.stream("k", sink::asFlux, () -> {
+        }).subscribe(v -> {
+        }, first::set);
+        singleFlight.stream("k", sink::asFlux, () -> {
+        }).subscribe(v -> {
+        }, second::set);
+        sink.tryEmitError(new IllegalStateException("boom"));
+
+        Assertions.assertInstanceOf(IllegalStateException.class, first.get());
+        Assertions.assertSame(first.get(), second.get());
+        Assertions.assertEquals(List.of("ok"),
+                singleFlight.stream("k", () -> Flux.just("ok"), () -> {
+                }).collectList().block());
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
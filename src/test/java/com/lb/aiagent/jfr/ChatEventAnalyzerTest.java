@@ -0,0 +1,86 @@
+package com.lb.aiagent.jfr;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+public class ChatEventAnalyzerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSummarizePerConversation() throws Exception {
+        Path file = dir.resolve("chat.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ChatTurnEvent.class);
+            recording.enable(MemoryEvent.class);
+            recording.enable(ModerationScanEvent.class);
+            recording.enable(ModelCallEvent.class);
+            recording.start();
+            for (int i = 0; i < 3; i++) {
+                ChatTurnRecorder.record("a", "chat", "你好", () -> {
+                    MemoryEvent load = MemoryEvent.begin("redis", MemoryEvent.LOAD, "a");
+                    load.bytes = 100;
+                    load.commit();
+                    ModerationScanEvent scan = new ModerationScanEvent();
+                    scan.conversationId = "a";
+                    scan.dictionaryVersion = "v1";
+                    scan.commit();
+                    ModelCallEvent call = new ModelCallEvent();
+                    call.conversationId = "a";
+                    call.begin();
+                    sleep(5);
+                    call.commit();
+                    MemoryEvent save = MemoryEvent.begin("redis", MemoryEvent.SAVE, "a");
+                    save.bytes = 200;
+                    save.commit();
+                    return "ok";
+                });
+            }
+            Assertions.assertThrows(IllegalStateException.class, () -> ChatTurnRecorder.record("b", "chat", "你好", () -> {
+                throw new IllegalStateException();
+            }));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, ChatEventAnalyzer.ConversationStats> stats = ChatEventAnalyzer.analyze(file);
+
+        ChatEventAnalyzer.ConversationStats a = stats.get("a");
+        Assertions.assertEquals(3, a.getTurns());
+        Assertions.assertEquals(3, a.getModelCalls());
+        Assertions.assertEquals(6, a.getMemoryOps());
+        Assertions.assertEquals(300, a.getMemoryLoadBytes());
+        Assertions.assertEquals(600, a.getMemorySaveBytes());
+        Assertions.assertEquals(3, a.getScans());
+        Assertions.assertTrue(a.getDictionaryVersions().contains("v1"));
+        Assertions.assertTrue(a.getTurnTime().compareTo(a.getModelTime()) >= 0);
+        Assertions.assertEquals(1, stats.get("b").getFailedTurns());
+        // 按轮次总耗时降序
+        Assertions.assertEquals("a", stats.keySet().iterator().next());
+
+        String[] lines = ChatEventAnalyzer.format(stats, 10).split("\\R");
+        Assertions.assertTrue(lines[0].startsWith("conversation"), lines[0]);
+        Assertions.assertTrue(lines[0].contains("turns"), lines[0]);
+        // 第一行数据是耗时最长的会话 a：3 轮、0 次失败
+        String[] row = lines[1].trim().split("\\s+");
+        Assertions.assertEquals("a", row[0]);
+        Assertions.assertEquals("3", row[1]);
+        Assertions.assertEquals("0", row[2]);
+        Assertions.assertTrue(lines[lines.length - 1].startsWith("conversations=" + stats.size()),
+                lines[lines.length - 1]);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.lb.aiagent.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多轮对话压测驱动
+ * 每个会话一个虚拟线程，按顺序执行若干轮对话，轮次之间随机停顿模拟用户思考；
+ * 记录每轮的端到端耗时和首包耗时（流式轮次），结束后输出吞吐量和分位数
+ */
+public class LoadDriver {
+
+    private final int conversations;
+
+    private final int turns;
+
+    private final Duration maxThinkTime;
+
+    public LoadDriver(int conversations, int turns, Duration maxThinkTime) {
+        this.conversations = conversations;
+        this.turns = turns;
+        this.maxThinkTime = maxThinkTime;
+    }
+
+    /**
+     * 执行一轮对话
+     */
+    @FunctionalInterface
+    public interface Turn {
+
+        /**
+         * @param chatId 会话 id
+         * @param turn 轮次，从 0 开始
+         * @param probe 流式轮次收到第一个分片时调用 {@link Probe#firstToken()}
+         */
+        void execute(String chatId, int turn, Probe probe) throws Exception;
+    }
+
+    /**
+     * 首包探针
+     */
+    public static class Probe {
+
+        private final long start = System.nanoTime();
+
+        private long firstTokenNanos = -1;
+
+        public void firstToken() {
+            if (firstTokenNanos < 0) {
+                firstTokenNanos = System.nanoTime() - start;
+            }
+        }
+    }
+
+    public Report run(Turn turn) throws InterruptedException {
+        Samples latencies = new Samples();
+        Samples firstTokens = new Samples();
+        AtomicLong errors = new AtomicLong();
+        ConcurrentLinkedQueue<Throwable> firstErrors = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(conversations);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < conversations; c++) {
+                futures.add(executor.submit(() -> {
+                    String chatId = UUID.randomUUID().toString();
+                    for (int t = 0; t < turns; t++) {
+                        this.think();
+                        Probe probe = new Probe();
+                        try {
+                            turn.execute(chatId, t, probe);
+                            latencies.add(System.nanoTime() - probe.start);
+                            if (probe.firstTokenNanos >= 0) {
+                                firstTokens.add(probe.firstTokenNanos);
+                            }
+                        } catch (Exception e) {
+                            if (errors.incrementAndGet() <= 3) {
+                                firstErrors.add(e);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Report(conversations, turns, elapsed, latencies.sorted(), firstTokens.sorted(), errors.get(),
+                List.copyOf(firstErrors));
+    }
+
+    private void think() throws InterruptedException {
+        long max = maxThinkTime.toMillis();
+        if (max > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(max));
+        }
+    }
+
+    /**
+     * 纳秒耗时样本
+     */
+    private static class Samples {
+
+        private final ConcurrentLinkedQueue<Long> values = new ConcurrentLinkedQueue<>();
+
+        void add(long nanos) {
+            values.add(nanos);
+        }
+
+        long[] sorted() {
+            long[] array = values.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(array);
+            return array;
+        }
+    }
+
+    /**
+     * 压测结果
+     * @param elapsedNanos 总耗时
+     * @param latencies 升序排列的每轮耗时（纳秒）
+     * @param firstTokens 升序排列的首包耗时（纳秒）
+     * @param errors 失败轮次数
+     * @param sampleErrors 前几个失败原因
+     */
+    public record Report(int conversations, int turns, long elapsedNanos, long[] latencies, long[] firstTokens,
+                         long errors, List<Throwable> sampleErrors) {
+
+        public long completed() {
+            return latencies.length;
+        }
+
+        /**
+         * 每秒完成的轮次
+         */
+        public double throughput() {
+            return latencies.length * 1e9 / elapsedNanos;
+        }
+
+        public double latencyMillis(double quantile) {
+            return percentileMillis(latencies, quantile);
+        }
+
+        public double firstTokenMillis(double quantile) {
+            return percentileMillis(firstTokens, quantile);
+        }
+
+        private static double percentileMillis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("conversations=%d, turns=%d, completed=%d, errors=%d, elapsed=%.1fs, throughput=%.1f turns/s%n",
+                    conversations, turns, completed(), errors, elapsedNanos / 1e9, throughput()));
+            sb.append(String.format("%-12s %10s %10s %10s %10s%n", "", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+            sb.append(String.format("%-12s %10.1f %10.1f %10.1f %10.1f%n", "latency",
+                    latencyMillis(0.5), latencyMillis(0.99), latencyMillis(0.999), latencyMillis(1)));
+            if (firstTokens.length > 0) {
+                sb.append(String.format("%-12s %10.1f %10.1f %10.1f %10.1f%n", "ttft",
+                        firstTokenMillis(0.5), firstTokenMillis(0.99), firstTokenMillis(0.999), firstTokenMillis(1)));
+            }
+            for (Throwable error : sampleErrors) {
+                sb.append("error: ").append(error).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.lb.aiagent.mock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内的 Redis 替身（RESP2），只实现项目用到的字符串命令：GET、SET（EX/PX）、DEL、EXISTS、EXPIRE、PING。
+ * HELLO 返回错误，让 Lettuce 回退到 RESP2；其余连接握手命令一律返回 OK
+ */
+public class MiniRedisServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    public MiniRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 直接写入数据，用于预置缓存
+     */
+    public void set(String key, String value) {
+        data.put(key, new Entry(value.getBytes(StandardCharsets.UTF_8), Long.MAX_VALUE));
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> this.serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                this.execute(command, out);
+                // 管道中还有命令时攒批写出
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        }
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "GET" -> {
+                Entry entry = this.live(key(command, 1));
+                writeBulk(out, entry == null ? null : entry.value);
+            }
+            case "SET" -> {
+                long expireAt = Long.MAX_VALUE;
+                for (int i = 3; i + 1 < command.size(); i += 2) {
+                    String option = new String(command.get(i), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+                    long amount = Long.parseLong(key(command, i + 1));
+                    if ("EX".equals(option)) {
+                        expireAt = System.currentTimeMillis() + amount * 1000;
+                    } else if ("PX".equals(option)) {
+                        expireAt = System.currentTimeMillis() + amount;
+                    }
+                }
+                data.put(key(command, 1), new Entry(command.get(2), expireAt));
+                writeSimple(out, "OK");
+            }
+            case "DEL", "UNLINK" -> {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (data.remove(key(command, i)) != null) {
+                        removed++;
+                    }
+                }
+                writeInteger(out, removed);
+            }
+            case "EXISTS" -> {
+                long count = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (this.live(key(command, i)) != null) {
+                        count++;
+                    }
+                }
+                writeInteger(out, count);
+            }
+            case "EXPIRE", "PEXPIRE" -> {
+                Entry entry = this.live(key(command, 1));
+                if (entry == null) {
+                    writeInteger(out, 0);
+                } else {
+                    long amount = Long.parseLong(key(command, 2));
+                    long millis = "EXPIRE".equals(name) ? amount * 1000 : amount;
+                    data.put(key(command, 1), new Entry(entry.value, System.currentTimeMillis() + millis));
+                    writeInteger(out, 1);
+                }
+            }
+            case "PING" -> writeSimple(out, "PONG");
+            case "HELLO" -> writeError(out, "ERR unknown command 'HELLO'");
+            case "CONFIG" -> {
+                if ("GET".equalsIgnoreCase(key(command, 1))) {
+                    out.write("*0\r\n".getBytes(StandardCharsets.US_ASCII));
+                } else {
+                    writeSimple(out, "OK");
+                }
+            }
+            case "INFO" -> writeBulk(out, "# Server\r\nredis_version:7.0.0\r\n".getBytes(StandardCharsets.UTF_8));
+            default -> writeSimple(out, "OK");
+        }
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取一条命令，客户端总是以多条批量字符串组成的数组发送
+     */
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            throw new EOFException();
+        }
+        if (type != '*') {
+            throw new IOException("Unsupported RESP type: " + (char) type);
+        }
+        int count = (int) readNumber(in);
+        List<byte[]> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected bulk string");
+            }
+            int length = (int) readNumber(in);
+            byte[] part = in.readNBytes(length);
+            in.skipNBytes(2);
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private static long readNumber(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private static void writeSimple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeError(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeInteger(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private record Entry(byte[] value, long expireAt) {
+    }
+}
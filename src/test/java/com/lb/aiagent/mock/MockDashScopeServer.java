@@ -0,0 +1,252 @@
+package com.lb.aiagent.mock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 本地模拟 DashScope 文本生成接口
+ * 同步请求返回完整 JSON，带 X-DashScope-SSE 或 Accept: text/event-stream 的请求按分片返回 SSE。
+ * 首包延迟服从对数正态分布，之后按给定的 token 速率输出，可按比例注入 HTTP 错误和流中断
+ */
+public class MockDashScopeServer implements AutoCloseable {
+
+    public static final String GENERATION_PATH = "/api/v1/services/aigc/text-generation/generation";
+
+    /**
+     * 请求中带 JSON Schema（结构化输出）时返回的报告
+     */
+    private static final String REPORT_REPLY = "{\"title\": \"恋爱报告\", \"suggestions\": [\"多沟通\", \"多陪伴\", \"尊重对方的习惯\"]}";
+
+    private final HttpServer server;
+
+    private final Behavior behavior;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * 没有延迟、固定回答的模拟服务
+     * @param reply 回答内容
+     * @param chunkSize 流式返回时每个分片的字符数
+     */
+    public MockDashScopeServer(String reply, int chunkSize) throws IOException {
+        this(new Behavior().reply(body -> reply).chunkSize(chunkSize));
+    }
+
+    public MockDashScopeServer(Behavior behavior) throws IOException {
+        this.behavior = behavior;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext(GENERATION_PATH, this::handle);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long injectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * 同时处理中的请求数的最大值
+     */
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            this.respond(exchange);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        boolean stream = "enable".equals(exchange.getRequestHeaders().getFirst("X-DashScope-SSE"))
+                || (accept != null && accept.contains("text/event-stream"));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < behavior.errorRate) {
+            injectedErrors.incrementAndGet();
+            int status = random.nextBoolean() ? 429 : 500;
+            this.write(exchange, status, "application/json",
+                    "{\"code\":\"MockError\",\"message\":\"injected " + status + "\",\"request_id\":\"mock\"}");
+            return;
+        }
+        String reply = behavior.reply.apply(body);
+        sleep(behavior.firstTokenDelayMillis(random));
+        if (stream) {
+            this.writeStream(exchange, reply, random.nextDouble() < behavior.streamErrorRate);
+        } else {
+            // 同步请求等全部 token 生成完再返回
+            sleep((long) (reply.length() * 1000.0 / behavior.tokensPerSecond));
+            this.write(exchange, 200, "application/json", result(reply, "stop", reply.length()));
+        }
+    }
+
+    private void write(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void writeStream(HttpExchange exchange, String reply, boolean failMidway) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        int chunkSize = behavior.chunkSize;
+        long chunkMillis = (long) (chunkSize * 1000.0 / behavior.tokensPerSecond);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int id = 1;
+            for (int start = 0; start < reply.length(); start += chunkSize) {
+                if (start > 0) {
+                    sleep(chunkMillis);
+                }
+                String data;
+                if (failMidway && start >= reply.length() / 2) {
+                    injectedErrors.incrementAndGet();
+                    data = "{\"code\":\"MockStreamError\",\"message\":\"injected stream error\",\"request_id\":\"mock\"}";
+                    start = reply.length();
+                } else {
+                    int end = Math.min(start + chunkSize, reply.length());
+                    data = result(reply.substring(start, end), end == reply.length() ? "stop" : "null", end);
+                }
+                String event = "id:" + id++ + "\nevent:result\n:HTTP_STATUS/200\ndata:" + data + "\n\n";
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+
+    static String result(String content, String finishReason, int outputTokens) {
+        return "{\"output\":{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"" + escape(content)
+                + "\"},\"finish_reason\":\"" + finishReason + "\"}]},\"usage\":{\"input_tokens\":20,\"output_tokens\":"
+                + outputTokens + ",\"total_tokens\":" + (20 + outputTokens) + "},\"request_id\":\"mock\"}";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * 模拟服务的行为
+     */
+    public static class Behavior {
+
+        private Function<String, String> reply = body -> body.contains("$schema")
+                ? REPORT_REPLY : "你好，我是恋爱心理专家，可以和我说说你遇到的恋爱难题。";
+
+        private long firstTokenMedianMillis;
+
+        private double firstTokenSigma;
+
+        private double tokensPerSecond = Double.POSITIVE_INFINITY;
+
+        private int chunkSize = 8;
+
+        private double errorRate;
+
+        private double streamErrorRate;
+
+        /**
+         * 回答内容，参数为请求体
+         */
+        public Behavior reply(Function<String, String> reply) {
+            this.reply = reply;
+            return this;
+        }
+
+        /**
+         * 首包延迟服从对数正态分布
+         * @param medianMillis 中位数
+         * @param sigma 对数标准差，越大长尾越重，0 表示固定延迟
+         */
+        public Behavior firstTokenLatency(long medianMillis, double sigma) {
+            this.firstTokenMedianMillis = medianMillis;
+            this.firstTokenSigma = sigma;
+            return this;
+        }
+
+        /**
+         * 输出速率，每个字符按一个 token 计
+         */
+        public Behavior tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        /**
+         * 流式返回时每个分片的字符数
+         */
+        public Behavior chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * 直接返回 429 或 500 的请求比例
+         */
+        public Behavior errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * 流式返回到一半时发送错误事件的请求比例
+         */
+        public Behavior streamErrorRate(double streamErrorRate) {
+            this.streamErrorRate = streamErrorRate;
+            return this;
+        }
+
+        long firstTokenDelayMillis(ThreadLocalRandom random) {
+            if (firstTokenMedianMillis <= 0) {
+                return 0;
+            }
+            return (long) (firstTokenMedianMillis * Math.exp(firstTokenSigma * random.nextGaussian()));
+        }
+    }
+}
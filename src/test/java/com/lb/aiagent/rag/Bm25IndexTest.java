@@ -0,0 +1,34 @@
+package com.lb.aiagent.rag;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class Bm25IndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSearchAcrossSegments() {
+        Bm25Index index = new Bm25Index(dir, 2);
+        index.add("a.md", "异地恋需要保持稳定的沟通频率，约定固定的视频时间。");
+        index.add("b.md", "吵架后先冷静，再用我感受句式表达情绪，而不是指责对方。");
+        index.add("c.md", "见家长前了解对方父母的喜好，准备合适的礼物。");
+
+        List<Bm25Index.Hit> hits = index.search("吵架以后怎么表达情绪", 2);
+        Assertions.assertFalse(hits.isEmpty());
+        Assertions.assertEquals("b.md", hits.get(0).source());
+
+        // 落盘后重新打开，已映射的段可以直接检索
+        index.flush();
+        Bm25Index reopened = new Bm25Index(dir, 2);
+        Assertions.assertEquals(3, reopened.size());
+        Assertions.assertEquals("c.md", reopened.search("见家长送什么礼物", 1).get(0).source());
+        Assertions.assertEquals("异地恋需要保持稳定的沟通频率，约定固定的视频时间。",
+                reopened.search("异地恋 沟通", 1).get(0).text());
+    }
+}
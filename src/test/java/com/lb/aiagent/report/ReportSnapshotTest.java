@@ -0,0 +1,49 @@
+package com.lb.aiagent.report;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReportSnapshotTest {
+
+    private static final List<Message> HISTORY = List.of(new UserMessage("我和女朋友吵架了"),
+            new AssistantMessage("先冷静一下"), new UserMessage("帮我生成报告"), new AssistantMessage("{}"));
+
+    @Test
+    void testCoversAppendedHistory() {
+        ReportSnapshot snapshot = ReportSnapshot.of("{}", "input", HISTORY);
+        Assertions.assertEquals(4, snapshot.offset());
+        Assertions.assertTrue(snapshot.covers(HISTORY));
+
+        List<Message> grown = new ArrayList<>(HISTORY);
+        grown.add(new UserMessage("她还是不理我"));
+        grown.add(new AssistantMessage("主动道歉"));
+        Assertions.assertTrue(snapshot.covers(grown));
+    }
+
+    @Test
+    void testNotCoverExpiredHistory() {
+        ReportSnapshot snapshot = ReportSnapshot.of("{}", "input", HISTORY);
+        // 记忆过期后变短
+        Assertions.assertFalse(snapshot.covers(HISTORY.subList(2, 4)));
+        // 记忆过期后重新增长到相同条数，但内容对不上
+        List<Message> regrown = List.of(new UserMessage("你好"), new AssistantMessage("你好呀"),
+                new UserMessage("帮我生成报告"), new AssistantMessage("{}"));
+        Assertions.assertFalse(snapshot.covers(regrown));
+        // 同样的文本、不同的角色也对不上
+        List<Message> swapped = List.of(new AssistantMessage("我和女朋友吵架了"), new AssistantMessage("先冷静一下"),
+                new UserMessage("帮我生成报告"), new AssistantMessage("{}"));
+        Assertions.assertFalse(snapshot.covers(swapped));
+    }
+
+    @Test
+    void testNotCoverWithoutDigest() {
+        ReportSnapshot legacy = new ReportSnapshot("{}", 0, "input", null);
+        Assertions.assertFalse(legacy.covers(HISTORY));
+    }
+}
@@ -0,0 +1,38 @@
+package com.lb.aiagent.structured;
+
+import com.lb.aiagent.app.LoveApp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public class IncrementalJsonParserTest {
+
+    @Test
+    void testPartialReports() {
+        Flux<String> chunks = Flux.just("```json\n{\"ti", "tle\": \"小明的恋", "爱报告\", \"sugges",
+                "tions\": [\"多沟通\", \"多陪", "伴\"", "]}\n```");
+        List<LoveApp.LoveReport> reports = IncrementalJsonParser.parse(chunks, LoveApp.LoveReport.class)
+                .collectList()
+                .block();
+
+        Assertions.assertNotNull(reports);
+        Assertions.assertEquals(3, reports.size());
+        // 标题先到
+        Assertions.assertEquals("小明的恋爱报告", reports.get(0).title());
+        Assertions.assertNull(reports.get(0).suggestions());
+        Assertions.assertEquals(List.of("多沟通"), reports.get(1).suggestions());
+        Assertions.assertEquals(List.of("多沟通", "多陪伴"), reports.get(2).suggestions());
+    }
+
+    @Test
+    void testIgnoresTextAroundRootObject() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        Assertions.assertFalse(parser.feed("好的，以下是报告："));
+        Assertions.assertTrue(parser.feed("{\"title\": \"报告\", \"suggestions\": []}"));
+        Assertions.assertTrue(parser.isFinished());
+        Assertions.assertFalse(parser.feed("{\"title\": \"另一个\"}"));
+        Assertions.assertEquals("报告", parser.snapshot().get("title").asText());
+    }
+}
@@ -0,0 +1,29 @@
+package com.lb.aiagent.structured;
+
+import com.lb.aiagent.app.LoveApp;
+import com.lb.aiagent.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StructuredOutputRegistryTest {
+
+    @Test
+    void testRegisterSamePromptReturnsExisting() {
+        StructuredOutputRegistry registry = new StructuredOutputRegistry();
+        StructuredOutput<LoveApp.LoveReport> first = registry.register(LoveApp.LoveReport.class, "生成恋爱报告");
+        StructuredOutput<LoveApp.LoveReport> second = registry.register(LoveApp.LoveReport.class, "生成恋爱报告");
+
+        Assertions.assertSame(first, second);
+        Assertions.assertSame(first, registry.get(LoveApp.LoveReport.class));
+    }
+
+    @Test
+    void testRegisterConflictingPromptThrows() {
+        StructuredOutputRegistry registry = new StructuredOutputRegistry();
+        registry.register(LoveApp.LoveReport.class, "生成恋爱报告");
+
+        Assertions.assertThrows(BusinessException.class,
+                () -> registry.register(LoveApp.LoveReport.class, "生成简短的恋爱报告"));
+        Assertions.assertEquals("生成恋爱报告", registry.get(LoveApp.LoveReport.class).getSystemText());
+    }
+}
@@ -0,0 +1,82 @@
+package com.lb.aiagent.tokenizer;
+
+import com.lb.aiagent.utils.TokenEstimator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+public class BpeTokenizerTest {
+
+    private static BpeTokenizer tokenizer;
+
+    @BeforeAll
+    static void setup(@TempDir Path dir) throws Exception {
+        tokenizer = BpeTokenizer.load(TestVocabulary.write(dir.resolve("vocab.tiktoken")));
+    }
+
+    @Test
+    void testEncodeMixedText() {
+        String text = "我和girlfriend吵架了，how should we talk?\n\n  谢谢😀";
+        int[] tokens = tokenizer.encode(text);
+        Assertions.assertEquals(text, tokenizer.decode(tokens));
+        Assertions.assertEquals(tokens.length, tokenizer.count(text));
+        // 汉字合并为整字，" talk" 连同前导空格是一个 token
+        Assertions.assertEquals(2, tokenizer.count("你好"));
+        Assertions.assertEquals(1, tokenizer.count(" talk"));
+        Assertions.assertEquals(tokens.length, tokenizer.count(new StringBuilder(text)));
+    }
+
+    @Test
+    void testMergeOrderByRank(@TempDir Path dir) throws Exception {
+        // "bc" 编号比 "ab" 小，"abc" 应切为 a + bc
+        Path file = dir.resolve("small.tiktoken");
+        StringBuilder vocab = new StringBuilder();
+        for (int b = 0; b < 256; b++) {
+            vocab.append(Base64.getEncoder().encodeToString(new byte[]{(byte) b})).append(' ').append(b).append('\n');
+        }
+        vocab.append(base64("bc")).append(" 256\n").append(base64("ab")).append(" 257\n");
+        Files.writeString(file, vocab);
+        BpeTokenizer small = BpeTokenizer.load(file);
+        Assertions.assertArrayEquals(new int[]{'a', 256}, small.encode("abc"));
+        Assertions.assertArrayEquals(new int[]{257, 'a', 256}, small.encode("ababc"));
+    }
+
+    @Test
+    void testCachingCounter() {
+        CachingTokenCounter counter = new CachingTokenCounter(tokenizer, 2, 4);
+        String a = "我和女朋友经常吵架";
+        String b = "异地恋应该怎么维持";
+        String c = "见家长要准备什么礼物";
+        Assertions.assertEquals(tokenizer.count(a), counter.count(a));
+        Assertions.assertEquals(tokenizer.count(a), counter.count(a));
+        Assertions.assertEquals(1, counter.hitCount());
+        counter.count(b);
+        counter.count(c);
+        // 超出容量时淘汰最久未使用的
+        Assertions.assertEquals(2, counter.size());
+        counter.count("短");
+        Assertions.assertEquals(3, counter.missCount());
+    }
+
+    @Test
+    void testTokenEstimatorUsesInstalledCounter() {
+        try {
+            TokenEstimator.use(tokenizer);
+            Assertions.assertEquals(tokenizer.count("how do I talk to my girlfriend"),
+                    TokenEstimator.estimate("how do I talk to my girlfriend"));
+        } finally {
+            TokenEstimator.use(null);
+        }
+        Assertions.assertEquals(TokenEstimator.heuristic("你好"), TokenEstimator.estimate("你好"));
+    }
+
+    private static String base64(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package com.lb.aiagent.tokenizer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 测试和基准用的合成词表（tiktoken 格式）：全部单字节、常用汉字（含合并所需的两字节前缀）和若干常见英文单词。
+ * 真实词表较大不放进仓库，基准可用 -Dtokenizer.vocab=qwen.tiktoken 指定
+ */
+public class TestVocabulary {
+
+    private static final String[] WORDS = {"the", "and", "you", "to", "of", "is", "in", "it", "that", "for",
+            "love", "how", "what", "do", "my", "girlfriend", "boyfriend", "she", "he", "we", "are", "not",
+            "with", "have", "this", "be", "can", "should", "relationship", "talk", "why", "me", "I"};
+
+    private TestVocabulary() {
+    }
+
+    public static Path write(Path file) throws IOException {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int b = 0; b < 256; b++) {
+            tokens.add(encode(new byte[]{(byte) b}));
+        }
+        // 汉字为 3 字节，先有两字节前缀才能合并出整字
+        for (int c = 0x4e00; c <= 0x9fa5; c++) {
+            byte[] bytes = String.valueOf((char) c).getBytes(StandardCharsets.UTF_8);
+            tokens.add(encode(new byte[]{bytes[0], bytes[1]}));
+        }
+        for (int c = 0x4e00; c <= 0x9fa5; c++) {
+            tokens.add(encode(String.valueOf((char) c).getBytes(StandardCharsets.UTF_8)));
+        }
+        for (String word : WORDS) {
+            for (String variant : new String[]{word, " " + word}) {
+                for (int end = 2; end <= variant.length(); end++) {
+                    tokens.add(encode(variant.substring(0, end).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            int id = 0;
+            for (String token : tokens) {
+                writer.write(token + " " + id++ + "\n");
+            }
+        }
+        return file;
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
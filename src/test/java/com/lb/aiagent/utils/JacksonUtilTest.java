@@ -0,0 +1,59 @@
+package com.lb.aiagent.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class JacksonUtilTest {
+
+    public record Item(String role, String content, Date time) {
+    }
+
+    @Test
+    void testStringBytesAndStreamAgree() {
+        List<Item> items = List.of(new Item("user", "你好", new Date(0)), new Item("assistant", "你好呀", null));
+        String json = JacksonUtil.toJsonString(items);
+        // 与 Web 层一致的日期格式和时区
+        Assertions.assertTrue(json.contains("\"1970-01-01 08:00:00\""), json);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JacksonUtil.writeTo(out, items);
+        Assertions.assertArrayEquals(JacksonUtil.toJsonBytes(items), out.toByteArray());
+
+        Assertions.assertEquals(items, JacksonUtil.toList(json, Item.class));
+        Assertions.assertEquals(items, JacksonUtil.toList(out.toByteArray(), Item.class));
+        Assertions.assertEquals(items, JacksonUtil.toList(new ByteArrayInputStream(out.toByteArray()), Item.class));
+        Assertions.assertEquals(items.get(0), JacksonUtil.toObject(JacksonUtil.toJsonBytes(items.get(0)), Item.class));
+
+        List<Map<String, Object>> maps = JacksonUtil.toComplexType(json, new TypeReference<>() {
+        });
+        Assertions.assertEquals("你好", maps.get(0).get("content"));
+        Assertions.assertEquals(items.get(1), JacksonUtil.convert(maps.get(1), Item.class));
+        Assertions.assertEquals(items, JacksonUtil.convertList(maps, Item.class));
+    }
+
+    @Test
+    void testIterateArray() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append(JacksonUtil.toJsonString(new Item("user", "m" + i, null)));
+        }
+        json.append(']');
+        int count = 0;
+        try (MappingIterator<Item> iterator = JacksonUtil.iterateArray(
+                new ByteArrayInputStream(json.toString().getBytes()), Item.class)) {
+            while (iterator.hasNext()) {
+                Assertions.assertEquals("m" + count, iterator.next().content());
+                count++;
+            }
+        }
+        Assertions.assertEquals(1000, count);
+    }
+}